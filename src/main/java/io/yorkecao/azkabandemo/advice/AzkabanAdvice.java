@@ -1,34 +1,51 @@
 package io.yorkecao.azkabandemo.advice;
 
 import io.yorkecao.azkabandemo.azkaban.AzkabanAdapter;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.exception.AzkabanSessionExpiredException;
 import lombok.extern.slf4j.Slf4j;
-import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.annotation.Pointcut;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
-
 /**
  * @author Yorke
  */
 @Slf4j
 @Aspect
+@Order(100)
 @Component
 public class AzkabanAdvice {
 
-    @Autowired
-    private AzkabanAdapter azkabanAdapter;
-
     @Pointcut("execution(* io.yorkecao.azkabandemo.azkaban.AzkabanAdapter.*(..)))")
     public void azkabanPointcut(){}
 
-    @Before("azkabanPointcut()")
-    public void login(JoinPoint joinPoint) throws IOException {
-        if (!"login".equals(joinPoint.getSignature().getName())) {
-            azkabanAdapter.login();
+    /**
+     * 会话失效时重新登录并重试一次
+     * <p>
+     * 每个集群的适配器有各自的会话，续期的是被调用的适配器所用的会话。
+     */
+    @Around("azkabanPointcut()")
+    public Object renewSession(ProceedingJoinPoint joinPoint) throws Throwable {
+        try {
+            return joinPoint.proceed();
+        } catch (AzkabanSessionExpiredException e) {
+            log.info("Azkaban session expired during {}, login again", joinPoint.getSignature().getName());
+            ((AzkabanAdapter) joinPoint.getTarget()).getSessionManager().renew(e.getSessionId());
+            return joinPoint.proceed();
         }
     }
+
+    /**
+     * @return 被调用的适配器所访问的集群名
+     */
+    static String clusterOf(ProceedingJoinPoint joinPoint) {
+        Object target = joinPoint.getTarget();
+        return target instanceof AzkabanAdapter
+                ? ((AzkabanAdapter) target).getSessionManager().getCluster().getName()
+                : AzkabanDemoConfiguration.Cluster.DEFAULT;
+    }
 }
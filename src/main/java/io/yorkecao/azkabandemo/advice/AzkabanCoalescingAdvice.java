@@ -0,0 +1,89 @@
+package io.yorkecao.azkabandemo.advice;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.yorkecao.azkabandemo.azkaban.AzkabanOperation;
+import io.yorkecao.azkabandemo.azkaban.AzkabanOperationType;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.resilience.SingleFlight;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 合并相同的在途只读请求，多个调用方同时查询同一项目、调度或执行时只访问一次 Azkaban
+ * <p>
+ * 只作用于 coalesce 为 true 的 FETCH 操作，按目标 adapter（即集群）、方法名与参数合并；调用方共享同一个结果对象，不应修改。
+ * 位于最外层，等待的是同一次（含重试的）调用，只有实际执行的调用计入 azkaban.operation。
+ * 合并情况记录在 {@value #COUNTER}，按 operation 与 result（executed、joined）打标签，
+ * {@value #RATIO} 为各操作被合并的调用占比，{@value #IN_FLIGHT} 为当前在途的合并键数。
+ *
+ * @author Yorke
+ */
+@Aspect
+@Order(0)
+@Component
+public class AzkabanCoalescingAdvice {
+
+    public static final String COUNTER = "azkaban.coalescing";
+    public static final String RATIO = "azkaban.coalescing.ratio";
+    public static final String IN_FLIGHT = "azkaban.coalescing.in.flight";
+
+    @Autowired
+    private AzkabanDemoConfiguration config;
+    @Autowired
+    private MeterRegistry registry;
+
+    private final SingleFlight<List<Object>> singleFlight = new SingleFlight<>();
+    private final ConcurrentMap<String, Stats> stats = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        registry.gauge(IN_FLIGHT, singleFlight, SingleFlight::getInFlight);
+    }
+
+    @Around("io.yorkecao.azkabandemo.advice.AzkabanAdvice.azkabanPointcut() && @annotation(operation)")
+    public Object coalesce(ProceedingJoinPoint joinPoint, AzkabanOperation operation) throws Throwable {
+        if (!config.getCoalescing().isEnabled() || operation.value() != AzkabanOperationType.FETCH || !operation.coalesce()) {
+            return joinPoint.proceed();
+        }
+        String name = joinPoint.getSignature().getName();
+        Stats operationStats = stats.computeIfAbsent(name, Stats::new);
+        List<Object> key = Arrays.asList(joinPoint.getTarget(), name, Arrays.asList(joinPoint.getArgs()));
+        boolean[] executed = new boolean[1];
+        try {
+            return singleFlight.execute(key, () -> {
+                executed[0] = true;
+                return joinPoint.proceed();
+            });
+        } finally {
+            (executed[0] ? operationStats.executed : operationStats.joined).increment();
+        }
+    }
+
+    private class Stats {
+        private final Counter executed;
+        private final Counter joined;
+
+        private Stats(String operation) {
+            executed = registry.counter(COUNTER, "operation", operation, "result", "executed");
+            joined = registry.counter(COUNTER, "operation", operation, "result", "joined");
+            registry.gauge(RATIO, Tags.of("operation", operation), this, Stats::ratio);
+        }
+
+        private double ratio() {
+            double total = executed.count() + joined.count();
+            return total == 0 ? 0 : joined.count() / total;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package io.yorkecao.azkabandemo.advice;
+
+import io.yorkecao.azkabandemo.azkaban.AzkabanExchange;
+import io.yorkecao.azkabandemo.azkaban.AzkabanOperation;
+import io.yorkecao.azkabandemo.azkaban.AzkabanOperationMetrics;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每次 Azkaban 操作输出一行摘要：操作、分类、结果、状态码、耗时与响应字节数
+ * <p>
+ * 响应体只保留有界的前缀：失败时以 WARN 输出，成功时按比例抽样以 INFO 输出；
+ * DEBUG 级别下每次都输出，前缀上限放宽到 max-debug-payload-size，但仍有上限。
+ * 位于合并切面内、重试切面外，被合并的调用方不重复输出，重试的多次请求累计在同一行。
+ *
+ * @author Yorke
+ */
+@Slf4j
+@Aspect
+@Order(7)
+@Component
+public class AzkabanLoggingAdvice {
+
+    @Autowired
+    private AzkabanDemoConfiguration config;
+
+    @Around("io.yorkecao.azkabandemo.advice.AzkabanAdvice.azkabanPointcut() && @annotation(operation)")
+    public Object summarize(ProceedingJoinPoint joinPoint, AzkabanOperation operation) throws Throwable {
+        AzkabanDemoConfiguration.Logging logging = config.getLogging();
+        if (!logging.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        boolean debug = log.isDebugEnabled();
+        AzkabanExchange exchange = AzkabanExchange.begin(debug ? logging.getMaxDebugPayloadSize() : logging.getMaxPayloadSize());
+        long start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            exchange.end();
+            String name = joinPoint.getSignature().getName();
+            log.info("azkaban op={} type={} outcome={} status={} latency={}ms bytes={}", name, operation.value().tag(),
+                    AzkabanOperationMetrics.outcome(failure), exchange.getStatus(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), exchange.getBytes());
+            if (exchange.getBytes() > 0) {
+                String truncated = exchange.isTruncated() ? " (truncated)" : "";
+                if (failure != null) {
+                    log.warn("azkaban op={} payload{}: {}", name, truncated, exchange.getPayload());
+                } else if (debug) {
+                    log.debug("azkaban op={} payload{}: {}", name, truncated, exchange.getPayload());
+                } else if (ThreadLocalRandom.current().nextDouble() < logging.getPayloadSampleRate()) {
+                    log.info("azkaban op={} sampled payload{}: {}", name, truncated, exchange.getPayload());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package io.yorkecao.azkabandemo.advice;
+
+import io.yorkecao.azkabandemo.azkaban.AzkabanOperation;
+import io.yorkecao.azkabandemo.azkaban.AzkabanOperationMetrics;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 记录 Azkaban 操作的耗时、结果与在途数
+ * <p>
+ * 位于合并切面内，被合并的调用方不重复计数；耗时包含会话续期等内层切面的开销。
+ *
+ * @author Yorke
+ */
+@Aspect
+@Order(5)
+@Component
+public class AzkabanMetricsAdvice {
+
+    @Autowired
+    private AzkabanOperationMetrics metrics;
+
+    @Around("io.yorkecao.azkabandemo.advice.AzkabanAdvice.azkabanPointcut() && @annotation(operation)")
+    public Object record(ProceedingJoinPoint joinPoint, AzkabanOperation operation) throws Throwable {
+        AzkabanOperationMetrics.Sample sample = metrics.start(joinPoint.getSignature().getName(), operation.value());
+        try {
+            Object result = joinPoint.proceed();
+            sample.success();
+            return result;
+        } catch (Throwable e) {
+            sample.failure(e);
+            throw e;
+        }
+    }
+}
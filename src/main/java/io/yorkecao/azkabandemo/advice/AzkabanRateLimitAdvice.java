@@ -0,0 +1,64 @@
+package io.yorkecao.azkabandemo.advice;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.yorkecao.azkabandemo.azkaban.AzkabanOperation;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.exception.AzkabanRejectedException;
+import io.yorkecao.azkabandemo.resilience.AzkabanResilience;
+import io.yorkecao.azkabandemo.resilience.TokenBucket;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按接口分组限流，突发的触发与轮询不会同时压到 Azkaban web server
+ * <p>
+ * 每个集群各自限流；获取令牌的等待时间记录在 azkaban.rate.limiter.wait，按 cluster 与 endpoint 打标签。
+ *
+ * @author Yorke
+ */
+@Slf4j
+@Aspect
+@Order(30)
+@Component
+public class AzkabanRateLimitAdvice {
+
+    @Autowired
+    private AzkabanDemoConfiguration config;
+    @Autowired
+    private AzkabanResilience resilience;
+    @Autowired
+    private MeterRegistry registry;
+
+    @Around("io.yorkecao.azkabandemo.advice.AzkabanAdvice.azkabanPointcut() && @annotation(operation)")
+    public Object limit(ProceedingJoinPoint joinPoint, AzkabanOperation operation) throws Throwable {
+        String cluster = AzkabanAdvice.clusterOf(joinPoint);
+        TokenBucket rateLimiter = resilience.getRateLimiter(cluster, operation.endpoint());
+        if (rateLimiter == null) {
+            return joinPoint.proceed();
+        }
+        AzkabanDemoConfiguration.RateLimit rateLimit = config.getRateLimit();
+        long maxWait = rateLimit.getMode() == AzkabanDemoConfiguration.RateLimit.Mode.QUEUE ? rateLimit.getMaxWait().toNanos() : 0;
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = rateLimiter.tryAcquire(maxWait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        registry.timer("azkaban.rate.limiter.wait", "cluster", cluster, "endpoint", operation.endpoint().tag())
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            log.warn("Azkaban /{} rate limit of cluster {} exceeded, reject {}", operation.endpoint().tag(), cluster, joinPoint.getSignature().getName());
+            throw new AzkabanRejectedException("Azkaban /" + operation.endpoint().tag() + " rate limit exceeded.");
+        }
+        return joinPoint.proceed();
+    }
+}
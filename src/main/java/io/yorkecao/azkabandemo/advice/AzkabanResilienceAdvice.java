@@ -0,0 +1,85 @@
+package io.yorkecao.azkabandemo.advice;
+
+import io.yorkecao.azkabandemo.azkaban.AzkabanOperation;
+import io.yorkecao.azkabandemo.azkaban.AzkabanOperationMetrics;
+import io.yorkecao.azkabandemo.exception.AzkabanRejectedException;
+import io.yorkecao.azkabandemo.resilience.AzkabanResilience;
+import io.yorkecao.azkabandemo.resilience.Bulkhead;
+import io.yorkecao.azkabandemo.resilience.CircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 熔断与并发隔离
+ * <p>
+ * 熔断器打开时直接拒绝，不再等待读超时，也不会触发重新登录；
+ * 各类操作占用各自的并发额度，慢上传不会挤占执行与查询。熔断器与并发额度按被调用适配器所在的集群区分。
+ * 只有超时、IO 错误与 5xx 计为失败，Azkaban 返回的业务错误、4xx 与响应解析失败说明服务端仍可用；
+ * 被内层限流拒绝的调用没有到达 Azkaban，只归还许可，不计成功也不计失败。
+ *
+ * @author Yorke
+ */
+@Slf4j
+@Aspect
+@Order(20)
+@Component
+public class AzkabanResilienceAdvice {
+
+    @Autowired
+    private AzkabanResilience resilience;
+
+    @Around("io.yorkecao.azkabandemo.advice.AzkabanAdvice.azkabanPointcut() && @annotation(operation)")
+    public Object guard(ProceedingJoinPoint joinPoint, AzkabanOperation operation) throws Throwable {
+        String cluster = AzkabanAdvice.clusterOf(joinPoint);
+        CircuitBreaker circuitBreaker = resilience.getCircuitBreaker(cluster);
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+            throw new AzkabanRejectedException("Azkaban cluster " + cluster + " circuit breaker is open.");
+        }
+        Bulkhead bulkhead = resilience.getBulkhead(cluster, operation.value());
+        if (bulkhead != null && !acquire(bulkhead)) {
+            if (circuitBreaker != null) {
+                circuitBreaker.release();
+            }
+            log.warn("Azkaban {} bulkhead of cluster {} is full, reject {}", operation.value().tag(), cluster, joinPoint.getSignature().getName());
+            throw new AzkabanRejectedException("Azkaban " + operation.value().tag() + " bulkhead is full.");
+        }
+        try {
+            Object result = joinPoint.proceed();
+            if (circuitBreaker != null) {
+                circuitBreaker.onSuccess();
+            }
+            return result;
+        } catch (Throwable e) {
+            if (circuitBreaker != null) {
+                String outcome = AzkabanOperationMetrics.outcome(e);
+                if (AzkabanOperationMetrics.REJECTED.equals(outcome)) {
+                    circuitBreaker.release();
+                } else if (AzkabanOperationMetrics.TIMEOUT.equals(outcome) || AzkabanOperationMetrics.IO_ERROR.equals(outcome)
+                        || AzkabanOperationMetrics.SERVER_ERROR.equals(outcome)) {
+                    circuitBreaker.onFailure();
+                } else {
+                    circuitBreaker.onSuccess();
+                }
+            }
+            throw e;
+        } finally {
+            if (bulkhead != null) {
+                bulkhead.release();
+            }
+        }
+    }
+
+    private static boolean acquire(Bulkhead bulkhead) {
+        try {
+            return bulkhead.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
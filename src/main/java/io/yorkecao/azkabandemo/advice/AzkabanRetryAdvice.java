@@ -0,0 +1,111 @@
+package io.yorkecao.azkabandemo.advice;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.yorkecao.azkabandemo.azkaban.AzkabanOperation;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.resilience.RetryPolicy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+
+import javax.annotation.PostConstruct;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 幂等操作遇到瞬时故障（超时、连接重置、5xx）时按退避策略重试
+ * <p>
+ * 位于熔断器外层，每次重试都重新经过熔断与并发隔离；熔断器打开后的拒绝不会重试。
+ * 重试次数记录在 azkaban.retry，按 operation 与 result（retry、recovered、exhausted）打标签。
+ *
+ * @author Yorke
+ */
+@Slf4j
+@Aspect
+@Order(10)
+@Component
+public class AzkabanRetryAdvice {
+
+    public static final String RETRY_COUNTER = "azkaban.retry";
+
+    @Autowired
+    private AzkabanDemoConfiguration config;
+    @Autowired
+    private MeterRegistry registry;
+
+    private RetryPolicy retryPolicy;
+
+    @PostConstruct
+    public void init() {
+        AzkabanDemoConfiguration.Retry retry = config.getRetry();
+        retryPolicy = new RetryPolicy(retry.getMaxAttempts(), retry.getInitialInterval(), retry.getMaxInterval(),
+                retry.getMultiplier(), retry.getMaxElapsed());
+    }
+
+    @Around("io.yorkecao.azkabandemo.advice.AzkabanAdvice.azkabanPointcut() && @annotation(operation)")
+    public Object retry(ProceedingJoinPoint joinPoint, AzkabanOperation operation) throws Throwable {
+        if (!config.getRetry().isEnabled() || !operation.value().isIdempotent() || !operation.retryable()) {
+            return joinPoint.proceed();
+        }
+        String name = joinPoint.getSignature().getName();
+        long start = System.nanoTime();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Object result = joinPoint.proceed();
+                if (attempt > 1) {
+                    registry.counter(RETRY_COUNTER, "operation", name, "result", "recovered").increment();
+                }
+                return result;
+            } catch (Throwable e) {
+                if (!isTransient(e)) {
+                    throw e;
+                }
+                long backoff = retryPolicy.backoffNanos(attempt, System.nanoTime() - start);
+                if (backoff < 0) {
+                    registry.counter(RETRY_COUNTER, "operation", name, "result", "exhausted").increment();
+                    log.warn("Azkaban {} failed after {} attempts: {}", name, attempt, e.getMessage());
+                    throw e;
+                }
+                registry.counter(RETRY_COUNTER, "operation", name, "result", "retry").increment();
+                log.info("Azkaban {} attempt {} failed: {}, retry in {} ms", name, attempt, e.getMessage(), TimeUnit.NANOSECONDS.toMillis(backoff));
+                try {
+                    TimeUnit.NANOSECONDS.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * 只有传输层故障（连接或读超时、服务端未响应、连接被重置）与 5xx 视为瞬时故障；
+     * 4xx、响应解析失败、Azkaban 返回的业务错误与程序错误重试也不会成功
+     */
+    static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof JsonProcessingException) {
+                return false;
+            }
+            if (cause instanceof HttpServerErrorException
+                    || cause instanceof SocketTimeoutException
+                    || cause instanceof ConnectTimeoutException
+                    || cause instanceof ConnectionPoolTimeoutException
+                    || cause instanceof NoHttpResponseException
+                    || cause instanceof SocketException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
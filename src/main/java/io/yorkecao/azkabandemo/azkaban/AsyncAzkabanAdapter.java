@@ -0,0 +1,195 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import io.yorkecao.azkabandemo.exception.AzkabanException;
+import io.yorkecao.azkabandemo.exception.AzkabanRejectedException;
+import io.yorkecao.azkabandemo.model.Execution;
+import io.yorkecao.azkabandemo.model.ExecutionPage;
+import io.yorkecao.azkabandemo.model.Flow;
+import io.yorkecao.azkabandemo.model.JobLog;
+import io.yorkecao.azkabandemo.model.JobLogChunk;
+import io.yorkecao.azkabandemo.model.ProjectFlows;
+import io.yorkecao.azkabandemo.model.Schedule;
+import io.yorkecao.azkabandemo.model.Sla;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * {@link AzkabanAdapter} 的异步版本
+ * <p>
+ * 调用在有界的 azkabanExecutor 上执行，调用方线程不会阻塞在 HTTP 请求上。
+ * 调用由 {@link AzkabanClusterRouter} 路由到项目所在的集群。execid、scheduleId、projectId 只在单个集群内唯一，
+ * 以它们为参数的调用同样需要传入所属的项目名，仅用于选择集群；只有登录访问默认集群。
+ * 失败时 Future 以 {@link AzkabanException} 异常完成，与同步版本的错误语义一致；
+ * 线程池饱和时以 code 为 503 的 {@link AzkabanException} 立即失败。
+ *
+ * @author Yorke
+ */
+@Slf4j
+@Component
+public class AsyncAzkabanAdapter {
+
+    @Autowired
+    private AzkabanAdapter azkabanAdapter;
+    @Autowired
+    private ThreadPoolTaskExecutor azkabanExecutor;
+    @Autowired
+    private AzkabanClusterRouter clusterRouter;
+
+    public CompletableFuture<Void> login() {
+        return run(() -> azkabanAdapter.login());
+    }
+
+    public CompletableFuture<Void> createProject(String projectName, String description) {
+        return run(() -> clusterRouter.createProject(projectName, description));
+    }
+
+    public CompletableFuture<Void> deleteProject(String projectName) {
+        return run(() -> clusterRouter.deleteProject(projectName));
+    }
+
+    public CompletableFuture<Void> uploadZip(String projectName, String zipFilePath) {
+        return run(() -> clusterRouter.forProject(projectName).uploadZip(projectName, zipFilePath));
+    }
+
+    public CompletableFuture<Void> uploadZip(String projectName, ZipUpload zipUpload) {
+        return run(() -> clusterRouter.forProject(projectName).uploadZip(projectName, zipUpload));
+    }
+
+    public CompletableFuture<ProjectFlows> fetchProjectFlows(String projectName) {
+        return supply(() -> clusterRouter.forProject(projectName).fetchProjectFlows(projectName));
+    }
+
+    public CompletableFuture<Flow> fetchFlowJobs(String projectName, String flowId) {
+        return supply(() -> clusterRouter.forProject(projectName).fetchFlowJobs(projectName, flowId));
+    }
+
+    public CompletableFuture<ExecutionPage> fetchFlowExecutions(String projectName, String flowId, int start, int length) {
+        return supply(() -> clusterRouter.forProject(projectName).fetchFlowExecutions(projectName, flowId, start, length));
+    }
+
+    public CompletableFuture<List<Long>> fetchFlowRunningExecutions(String projectName, String flowId) {
+        return supply(() -> clusterRouter.forProject(projectName).fetchFlowRunningExecutions(projectName, flowId));
+    }
+
+    public CompletableFuture<Void> simpleExecuteFlow(String project, String flow) {
+        return run(() -> clusterRouter.forProject(project).simpleExecuteFlow(project, flow));
+    }
+
+    public CompletableFuture<String> executeFLow(String projectName, String flowId, Map<String, Object> optionalParams) {
+        return supply(() -> clusterRouter.forProject(projectName).executeFLow(projectName, flowId, optionalParams));
+    }
+
+    public CompletableFuture<Void> cancelFlowExecution(String projectName, String execId) {
+        return run(() -> clusterRouter.forProject(projectName).cancelFlowExecution(execId));
+    }
+
+    public CompletableFuture<Void> schedulePeriodBasedFlow(String projectName, String flowName, String scheduleDate, String scheduleTime, String period) {
+        return run(() -> clusterRouter.forProject(projectName).schedulePeriodBasedFlow(projectName, flowName, scheduleDate, scheduleTime, period));
+    }
+
+    public CompletableFuture<Void> scheduleCronBasedFlow(String projectName, String flowName, String cronExpression) {
+        return run(() -> clusterRouter.forProject(projectName).scheduleCronBasedFlow(projectName, flowName, cronExpression));
+    }
+
+    public CompletableFuture<Schedule> fetchSchedule(String projectName, String projectId, String flowId) {
+        return supply(() -> clusterRouter.forProject(projectName).fetchSchedule(projectId, flowId));
+    }
+
+    public CompletableFuture<Sla> fetchSla(String projectName, String scheduleId) {
+        return supply(() -> clusterRouter.forProject(projectName).fetchSla(scheduleId));
+    }
+
+    public CompletableFuture<String> scheduleFlow(String projectName, String flowName, String cronExpression) {
+        return supply(() -> clusterRouter.forProject(projectName).scheduleFlow(projectName, flowName, cronExpression));
+    }
+
+    public CompletableFuture<Void> unscheduleFlow(String projectName, String scheduleId) {
+        return run(() -> clusterRouter.forProject(projectName).unscheduleFlow(scheduleId));
+    }
+
+    public CompletableFuture<Void> setSla(String projectName, String scheduleId, String[] slaEmails, String[][] settings) {
+        return run(() -> clusterRouter.forProject(projectName).setSla(scheduleId, slaEmails, settings));
+    }
+
+    public CompletableFuture<Void> pauseFlowExecution(String projectName, String execid) {
+        return run(() -> clusterRouter.forProject(projectName).pauseFlowExecution(execid));
+    }
+
+    public CompletableFuture<Void> resumeFlowExecution(String projectName, String execid) {
+        return run(() -> clusterRouter.forProject(projectName).resumeFlowExecution(execid));
+    }
+
+    public CompletableFuture<String> startFlow(String projectName, String flowName) {
+        return supply(() -> clusterRouter.forProject(projectName).startFlow(projectName, flowName));
+    }
+
+    public CompletableFuture<String> startFlow(String projectName, String flowName, Map<String, Object> flowParams) {
+        return supply(() -> clusterRouter.forProject(projectName).startFlow(projectName, flowName, flowParams));
+    }
+
+    public CompletableFuture<Execution> executionInfo(String projectName, String execId) {
+        return supply(() -> clusterRouter.forProject(projectName).executionInfo(execId));
+    }
+
+    public CompletableFuture<Execution> fetchFlowExecution(String projectName, String execId) {
+        return supply(() -> clusterRouter.forProject(projectName).fetchFlowExecution(execId));
+    }
+
+    public CompletableFuture<JobLog> fetchExecutionJobLogs(String projectName, String execId, String jobId, int offset, int length) {
+        return supply(() -> clusterRouter.forProject(projectName).fetchExecutionJobLogs(execId, jobId, offset, length));
+    }
+
+    public CompletableFuture<JobLogChunk> fetchExecutionJobLogs(String projectName, String execId, String jobId, long offset, int length, Writer out) {
+        return supply(() -> clusterRouter.forProject(projectName).fetchExecutionJobLogs(execId, jobId, offset, length, out));
+    }
+
+    /**
+     * 在项目所在集群上执行一组调用，用于需要组合多个调用的场景
+     *
+     * @param projectName 项目名称
+     * @param call        使用该集群适配器的调用
+     * @return 调用结果
+     */
+    public <T> CompletableFuture<T> onProject(String projectName, Function<AzkabanAdapter, T> call) {
+        return supply(() -> call.apply(clusterRouter.forProject(projectName)));
+    }
+
+    private CompletableFuture<Void> run(Runnable call) {
+        return supply(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private <T> CompletableFuture<T> supply(Callable<T> call) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return call.call();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (IOException e) {
+                    throw new AzkabanException(e.getMessage(), e);
+                } catch (Exception e) {
+                    throw new AzkabanException(500, e.getMessage(), e);
+                }
+            }, azkabanExecutor);
+        } catch (RejectedExecutionException e) {
+            log.warn("Azkaban executor is saturated: {}", e.getMessage());
+            CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new AzkabanRejectedException("Azkaban executor is saturated."));
+            return rejected;
+        }
+    }
+}
@@ -1,23 +1,42 @@
 package io.yorkecao.azkabandemo.azkaban;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
 import io.yorkecao.azkabandemo.exception.AzkabanException;
+import io.yorkecao.azkabandemo.exception.AzkabanSessionExpiredException;
+import io.yorkecao.azkabandemo.model.AzkabanResponse;
+import io.yorkecao.azkabandemo.model.Execution;
+import io.yorkecao.azkabandemo.model.ExecutionPage;
+import io.yorkecao.azkabandemo.model.Flow;
+import io.yorkecao.azkabandemo.model.JobLog;
+import io.yorkecao.azkabandemo.model.JobLogChunk;
+import io.yorkecao.azkabandemo.model.ProjectFlows;
+import io.yorkecao.azkabandemo.model.Schedule;
+import io.yorkecao.azkabandemo.model.Sla;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.FileSystemResource;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.*;
 import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestTemplate;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -27,40 +46,47 @@ import java.util.stream.Collectors;
 @Component
 public class AzkabanAdapter {
 
-    @Autowired
-    private AzkabanDemoConfiguration config;
     @Autowired
     private ObjectMapper objectMapper;
     @Autowired
     private RestTemplate restTemplate;
+    @Autowired
+    @Qualifier("uploadRestTemplate")
+    private RestTemplate uploadRestTemplate;
+    @Autowired
+    private AzkabanSessionManager sessionManager;
+    @Autowired
+    private AzkabanMetadataCache metadataCache;
 
-    private static String SESSION_ID;
+    private static final Pattern SESSION_ERROR = Pattern.compile("\"error\"\\s*:\\s*\"(?i:session|invalid session)\"");
 
     /**
-     * 登录
+     * 改为访问另一个集群，须在首次使用前调用，由 {@link AzkabanClusterRouter} 使用
      */
-    public void login() {
-        LinkedMultiValueMap<String, String> params = new LinkedMultiValueMap<>();
-        params.add("action", "login");
-        params.add("username", config.getUsername());
-        params.add("password", config.getPassword());
+    void bind(AzkabanSessionManager sessionManager, RestTemplate restTemplate, RestTemplate uploadRestTemplate,
+              AzkabanMetadataCache metadataCache) {
+        this.sessionManager = sessionManager;
+        this.restTemplate = restTemplate;
+        this.uploadRestTemplate = uploadRestTemplate;
+        this.metadataCache = metadataCache;
+    }
 
-        HttpEntity<LinkedMultiValueMap<String, String>> httpEntity = new HttpEntity<>(params, getAzkabanHeaders());
+    /**
+     * @return 该适配器所用的会话，也决定访问的集群
+     */
+    public AzkabanSessionManager getSessionManager() {
+        return sessionManager;
+    }
 
-        String respResult = restTemplate.postForObject(config.getUrl(), httpEntity, String.class);
+    private String baseUrl() {
+        return sessionManager.getCluster().getUrl();
+    }
 
-        try {
-            JsonNode respRoot = objectMapper.readTree(respResult);
-            if (respRoot.hasNonNull("status") && "success".equals(respRoot.get("status").asText())) {
-                SESSION_ID = respRoot.get("session.id").asText();
-                log.info("Azkaban login success:{}", respRoot);
-            } else {
-                log.warn("Azkaban login failure:{}", respRoot);
-            }
-        } catch (IOException e) {
-            log.error(String.format("Azkaban login failure: %s !", e.getMessage()), e);
-            throw new AzkabanException(e.getMessage());
-        }
+    /**
+     * 登录
+     */
+    public void login() {
+        sessionManager.login();
     }
 
     /**
@@ -69,21 +95,25 @@ public class AzkabanAdapter {
      * @param projectName 项目名称
      * @param description 项目描述
      */
+    @AzkabanOperation(value = AzkabanOperationType.PROJECT, endpoint = AzkabanEndpoint.MANAGER)
     public void createProject(String projectName, String description) {
+        String sessionId = sessionManager.getSessionId();
         LinkedMultiValueMap<String, String> parameters = new LinkedMultiValueMap<>();
-        parameters.add("session.id", SESSION_ID);
+        parameters.add("session.id", sessionId);
         parameters.add("action", "create");
         parameters.add("name", projectName);
         parameters.add("description", description);
 
         HttpEntity<LinkedMultiValueMap<String, String>> httpEntity = new HttpEntity<>(parameters, getAzkabanHeaders());
 
-        String respResult = restTemplate.postForObject(config.getUrl() + "/manager", httpEntity, String.class);
+        String respResult = restTemplate.postForObject(baseUrl() + "/manager", httpEntity, String.class);
+        checkSession(respResult, sessionId);
 
         try {
             JsonNode respRoot = objectMapper.readTree(respResult);
             if (respRoot.hasNonNull("status") && "success".equals(respRoot.get("status").asText())) {
                 log.info("Azcaban create a Project: {}", projectName);
+                metadataCache.invalidateProject(projectName);
             } else {
                 String errorMessage = respRoot.hasNonNull("message") ? respRoot.get("message").asText() : "No message.";
                 log.error("Azcaban create Project %s failure: %s", projectName, errorMessage);
@@ -91,7 +121,7 @@ public class AzkabanAdapter {
             }
         } catch (IOException e) {
             log.error(String.format("Azcaban create Project %s failure: %s", projectName, e.getMessage()), e);
-            throw new AzkabanException(e.getMessage());
+            throw new AzkabanException(e.getMessage(), e);
         }
     }
 
@@ -101,14 +131,20 @@ public class AzkabanAdapter {
      * @param projectName 项目名称
      * @return 删除结果
      */
+    @AzkabanOperation(value = AzkabanOperationType.PROJECT, endpoint = AzkabanEndpoint.MANAGER)
     public void deleteProject(String projectName) {
+        String sessionId = sessionManager.getSessionId();
         Map<String, Object> params = new HashMap<>();
-        params.put("id", SESSION_ID);
+        params.put("id", sessionId);
         params.put("project", projectName);
 
         try {
-            restTemplate.getForObject(config.getUrl() + "/manager?session.id={id}&delete=true&project={project}", String.class, params);
+            String respResult = restTemplate.getForObject(baseUrl() + "/manager?session.id={id}&delete=true&project={project}", String.class, params);
+            checkSession(respResult, sessionId);
             log.info("Azkaban delete project: {}", projectName);
+            metadataCache.invalidateProject(projectName);
+        } catch (AzkabanSessionExpiredException e) {
+            throw e;
         } catch (Exception e) {
             log.error(String.format("Azkaban delete Project %s failure!", projectName), e);
         }
@@ -120,27 +156,49 @@ public class AzkabanAdapter {
      * @param projectName 项目名称
      * @param zipFilePath zip路径
      */
+    @AzkabanOperation(value = AzkabanOperationType.UPLOAD, endpoint = AzkabanEndpoint.MANAGER)
     public void uploadZip(String projectName, String zipFilePath) {
-        FileSystemResource file = new FileSystemResource(new File(zipFilePath));
+        try {
+            uploadZip(projectName, ZipUpload.ofFile(Paths.get(zipFilePath)));
+        } catch (IOException e) {
+            log.error(String.format("Azcaban upload Project Zip to %s failure: %s", projectName, e.getMessage()));
+            throw new AzkabanException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 为项目上传 Zip，内容以流的方式写入请求体
+     *
+     * @param projectName 项目名称
+     * @param zipUpload   Zip 内容，可以是已有文件，也可以边打包边上传
+     */
+    @AzkabanOperation(value = AzkabanOperationType.UPLOAD, endpoint = AzkabanEndpoint.MANAGER)
+    public void uploadZip(String projectName, ZipUpload zipUpload) {
+        String sessionId = sessionManager.getSessionId();
         LinkedMultiValueMap<String, Object> params = new LinkedMultiValueMap<>();
-        params.add("session.id", SESSION_ID);
+        params.add("session.id", sessionId);
         params.add("ajax", "upload");
         params.add("project", projectName);
-        params.add("file", file);
+        params.add("file", zipUpload);
 
-        String respResult = restTemplate.postForObject(config.getUrl() + "/manager", params, String.class);
+        long start = System.currentTimeMillis();
+        String respResult = uploadRestTemplate.postForObject(baseUrl() + "/manager", params, String.class);
+        checkSession(respResult, sessionId);
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
 
         try {
             JsonNode respRoot = objectMapper.readTree(respResult);
             if (!respRoot.hasNonNull("error")) {
-                log.info("Azcaban Upload a Project Zip to {}: {}", projectName, zipFilePath);
+                log.info("Azcaban Upload a Project Zip to {}: {}, {} bytes in {} ms ({} KB/s)", projectName, zipUpload.getFileName(),
+                        zipUpload.getBytesWritten(), elapsed, zipUpload.getBytesWritten() * 1000 / 1024 / elapsed);
+                metadataCache.invalidateProject(projectName);
             } else {
                 log.error(String.format("Azcaban upload Project Zip to %s failure: %s", projectName, respRoot.get("error").asText()));
                 throw new AzkabanException(respRoot.get("error").asText());
             }
         } catch (IOException e) {
             log.error(String.format("Azcaban upload Project Zip to %s failure: %s", projectName, e.getMessage()));
-            throw new AzkabanException(e.getMessage());
+            throw new AzkabanException(e.getMessage(), e);
         }
     }
 
@@ -150,98 +208,129 @@ public class AzkabanAdapter {
      * @param projectName 项目名称
      * @return 结果
      */
-    public JsonNode fetchProjectFlows(String projectName) {
+    @AzkabanOperation(value = AzkabanOperationType.FETCH, endpoint = AzkabanEndpoint.MANAGER)
+    public ProjectFlows fetchProjectFlows(String projectName) {
+        return metadataCache.getProjectFlows(projectName, this::loadProjectFlows);
+    }
+
+    private ProjectFlows loadProjectFlows(String projectName) {
+        String sessionId = sessionManager.getSessionId();
         Map<String, String> params = new HashMap<>();
-        params.put("id", SESSION_ID);
+        params.put("id", sessionId);
         params.put("project", projectName);
 
-        String respResult = restTemplate.getForObject(config.getUrl() + "/manager?session.id={id}&ajax=fetchprojectflows&project={project}", String.class, params);
-
-        try {
-            JsonNode respRoot = objectMapper.readTree(respResult);
-            if (!respRoot.hasNonNull("error")) {
-                log.info("Azkaban fetch flows of Project {}: {}", projectName, respResult);
-                return respRoot;
-            } else {
-                String errorMessage = respRoot.get("error").asText();
-                if (errorMessage.endsWith("doesn't exist.")) {
-                    return null;
-                }
-                log.error(String.format("Azkaban fetch flows of Project {} failure: {}", projectName, errorMessage));
-                throw new AzkabanException(errorMessage);
+        ProjectFlows projectFlows = getForResponse(baseUrl() + "/manager?session.id={id}&ajax=fetchprojectflows&project={project}",
+                ProjectFlows.class, sessionId, params);
+        if (projectFlows.getError() == null) {
+            log.debug("Azkaban fetch {} flows of Project {}", projectFlows.getFlows().size(), projectName);
+            return projectFlows;
+        } else {
+            String errorMessage = projectFlows.getError();
+            if (errorMessage.endsWith("doesn't exist.")) {
+                return null;
             }
-        } catch (IOException e) {
-            log.error(String.format("Azkaban fetch of Project %s failure: %s", projectName, e.getMessage()), e);
-            throw new AzkabanException(e.getMessage());
+            log.error("Azkaban fetch flows of Project {} failure: {}", projectName, errorMessage);
+            throw new AzkabanException(errorMessage);
         }
     }
 
-    public String fetchFlowJobs(String projectName, String flowId) {
-        HttpHeaders httpHeaders = getAzkabanHeaders();
-        httpHeaders.add("Accept", "text/plain;charset=utf-8");
+    /**
+     * 查询 flow 图
+     *
+     * @param projectName 项目名称
+     * @param flowId      flow ID
+     * @return 结果
+     */
+    @AzkabanOperation(value = AzkabanOperationType.FETCH, endpoint = AzkabanEndpoint.MANAGER)
+    public Flow fetchFlowJobs(String projectName, String flowId) {
+        return metadataCache.getFlowJobs(projectName, flowId, () -> loadFlowJobs(projectName, flowId));
+    }
+
+    private Flow loadFlowJobs(String projectName, String flowId) {
+        String sessionId = sessionManager.getSessionId();
         Map<String, String> map = new HashMap<>();
-        map.put("id", SESSION_ID);
+        map.put("id", sessionId);
         map.put("project", projectName);
         map.put("flow", flowId);
 
-        ResponseEntity<String> exchange = restTemplate.exchange(config.getUrl() + "/manager?session.id={id}&ajax=fetchflowgraph&project={project}&flow={flow}", HttpMethod.GET,
-                new HttpEntity<String>(httpHeaders), String.class, map);
-
-        log.info("Azkban fetch Jobs of a Flow:{}", exchange);
-        return exchange.toString();
+        Flow flow = getForResponse(baseUrl() + "/manager?session.id={id}&ajax=fetchflowgraph&project={project}&flow={flow}",
+                Flow.class, sessionId, map);
+        if (flow.getError() != null) {
+            log.error("Azkaban fetch Jobs of Flow {} failure: {}", flowId, flow.getError());
+            throw new AzkabanException(flow.getError());
+        }
+        log.debug("Azkaban fetch {} Jobs of Flow {}", flow.getNodes().size(), flowId);
+        return flow;
     }
 
-    public JsonNode fetchFlowExecutions(String projectName, String flowId, int start, int length) {
-        HttpHeaders httpHeaders = getAzkabanHeaders();
+    /**
+     * 分页查询 flow 的执行历史
+     *
+     * @param projectName 项目名称
+     * @param flowId      flow ID
+     * @param start       起始序号
+     * @param length      每页条数
+     * @return 一页执行记录，项目或 flow 不存在时为 null
+     */
+    @AzkabanOperation(value = AzkabanOperationType.FETCH, endpoint = AzkabanEndpoint.MANAGER)
+    public ExecutionPage fetchFlowExecutions(String projectName, String flowId, int start, int length) {
+        String sessionId = sessionManager.getSessionId();
         Map<String, Object> map = new HashMap<>();
-        map.put("id", SESSION_ID);
+        map.put("id", sessionId);
         map.put("project", projectName);
         map.put("flow", flowId);
         map.put("start", start);
         map.put("length", length);
 
-        String respResult = restTemplate.getForObject(config.getUrl() + "/manager?session.id={id}&ajax=fetchFlowExecutions&project={project}&flow={flow}&start={start}&length={length}", String.class, map);
-
-        try {
-            JsonNode respRoot = objectMapper.readTree(respResult);
-            if (!respRoot.hasNonNull("error")) {
-                return respRoot;
-            } else {
-                String errorMessage = respRoot.get("error").asText();
-                if (errorMessage.endsWith("doesn't exist.")) {
-                    return null;
-                }
-                log.error("Azkaban fetch Executions of Flow {} failure: {}", flowId, errorMessage);
-                throw new AzkabanException(errorMessage);
+        ExecutionPage page = getForResponse(baseUrl() + "/manager?session.id={id}&ajax=fetchFlowExecutions&project={project}&flow={flow}&start={start}&length={length}",
+                ExecutionPage.class, sessionId, map);
+        if (page.getError() == null) {
+            return page;
+        } else {
+            String errorMessage = page.getError();
+            if (errorMessage.endsWith("doesn't exist.")) {
+                return null;
             }
-        } catch (IOException e) {
-            log.error(String.format("Azkaban fetch Executions of Flow %s failure: %s", flowId, e.getMessage()), e);
-            throw new AzkabanException(e.getMessage());
+            log.error("Azkaban fetch Executions of Flow {} failure: {}", flowId, errorMessage);
+            throw new AzkabanException(errorMessage);
         }
     }
 
-    public String fetchFlowRunningExecutions(String projectName, String flowId) {
-        HttpHeaders httpHeaders = getAzkabanHeaders();
-        httpHeaders.add("Accept", "text/plain;charset=utf-8");
+    /**
+     * 查询 flow 正在运行的执行
+     *
+     * @param projectName 项目名称
+     * @param flowId      flow ID
+     * @return 正在运行的 execid
+     */
+    @AzkabanOperation(value = AzkabanOperationType.FETCH, endpoint = AzkabanEndpoint.EXECUTOR)
+    public List<Long> fetchFlowRunningExecutions(String projectName, String flowId) {
+        String sessionId = sessionManager.getSessionId();
         Map<String, Object> map = new HashMap<>();
-        map.put("id", SESSION_ID);
+        map.put("id", sessionId);
         map.put("project", projectName);
         map.put("flow", flowId);
 
-        ResponseEntity<String> exchange = restTemplate.exchange(config.getUrl() + "/executor?session.id={id}&ajax=getRunning&project={project}&flow={flow}", HttpMethod.GET,
-                new HttpEntity<String>(httpHeaders), String.class, map);
-
-        log.info("Azkban fetch Running Executions of a Flow:{}", exchange);
-        return exchange.toString();
+        RunningExecutions running = getForResponse(baseUrl() + "/executor?session.id={id}&ajax=getRunning&project={project}&flow={flow}",
+                RunningExecutions.class, sessionId, map);
+        if (running.getError() != null) {
+            log.error("Azkaban fetch Running Executions of Flow {} failure: {}", flowId, running.getError());
+            throw new AzkabanException(running.getError());
+        }
+        log.debug("Azkaban fetch Running Executions of Flow {}: {}", flowId, running.execIds);
+        return running.execIds;
     }
 
+    @AzkabanOperation(value = AzkabanOperationType.EXECUTE, endpoint = AzkabanEndpoint.EXECUTOR)
     public void simpleExecuteFlow(String project, String flow) {
+        String sessionId = sessionManager.getSessionId();
         Map<String, Object> map = new HashMap<>();
-        map.put("id", SESSION_ID);
+        map.put("id", sessionId);
         map.put("project", project);
         map.put("flow", flow);
 
-        String respResult = restTemplate.getForObject(config.getUrl() + "/executor?session.id={id}&ajax=executeFlow&project={project}&flow={flow}", String.class, map);
+        String respResult = restTemplate.getForObject(baseUrl() + "/executor?session.id={id}&ajax=executeFlow&project={project}&flow={flow}", String.class, map);
+        checkSession(respResult, sessionId);
         try {
             JsonNode respRoot = objectMapper.readTree(respResult);
             if (respRoot.hasNonNull("error")) {
@@ -251,11 +340,13 @@ public class AzkabanAdapter {
             }
         } catch (IOException e) {
             log.error(String.format("Azkaban Execute a Flow %s failure: %s", flow, e.getMessage()), e);
-            throw new AzkabanException(e.getMessage());
+            throw new AzkabanException(e.getMessage(), e);
         }
     }
 
+    @AzkabanOperation(value = AzkabanOperationType.EXECUTE, endpoint = AzkabanEndpoint.EXECUTOR)
     public String executeFLow(String projectName, String flowId, Map<String, Object> optionalParams) {
+        String sessionId = sessionManager.getSessionId();
         HttpHeaders httpHeaders = getAzkabanHeaders();
         httpHeaders.add("Accept", "text/plain;charset=utf-8");
 
@@ -263,28 +354,28 @@ public class AzkabanAdapter {
         if (optionalParams != null) {
             map.putAll(optionalParams);
         }
-        map.put("session.id", SESSION_ID);
+        map.put("session.id", sessionId);
         map.put("ajax", "getRunning");
         map.put("project", projectName);
         map.put("flow", flowId);
 
-        String paramStr = map.keySet().stream()
-                .map(key -> key + "=" + map.get(key))
-                .collect(Collectors.joining("&"));
-
-        ResponseEntity<String> exchange = restTemplate.exchange(config.getUrl() + "/executor?" + paramStr, HttpMethod.GET,
+        ResponseEntity<String> exchange = restTemplate.exchange(baseUrl() + "/executor?" + joinQuery(map), HttpMethod.GET,
                 new HttpEntity<String>(httpHeaders), String.class);
+        checkSession(exchange.getBody(), sessionId);
 
-        log.info("Azkban execute a Flow:{}", exchange);
+        log.debug("Azkban execute a Flow:{}", exchange);
         return exchange.toString();
     }
 
+    @AzkabanOperation(value = AzkabanOperationType.CANCEL, endpoint = AzkabanEndpoint.EXECUTOR)
     public void cancelFlowExecution(String execId) {
+        String sessionId = sessionManager.getSessionId();
         Map<String, Object> map = new HashMap<>();
-        map.put("id", SESSION_ID);
+        map.put("id", sessionId);
         map.put("execid", execId);
 
-        String respResult = restTemplate.getForObject(config.getUrl() + "/executor?session.id={id}&ajax=cancelFlow&execid={execid}", String.class, map);
+        String respResult = restTemplate.getForObject(baseUrl() + "/executor?session.id={id}&ajax=cancelFlow&execid={execid}", String.class, map);
+        checkSession(respResult, sessionId);
         try {
             JsonNode respRoot = objectMapper.readTree(respResult);
             if (respRoot.hasNonNull("error")) {
@@ -306,12 +397,14 @@ public class AzkabanAdapter {
      * @param scheduleDate The date to schedule the flow. Example: 07/22/2014
      * @param period       Specifies the recursion period. Depends on the “is_recurring” flag being set. Example: 5w
      */
+    @AzkabanOperation(value = AzkabanOperationType.SCHEDULE, endpoint = AzkabanEndpoint.SCHEDULE)
     public void schedulePeriodBasedFlow(String projectName, String flowName, String scheduleDate, String scheduleTime, String period) {
+        String sessionId = sessionManager.getSessionId();
         LinkedMultiValueMap<String, String> params = new LinkedMultiValueMap<>();
-        params.add("session.id", SESSION_ID);
+        params.add("session.id", sessionId);
         params.add("ajax", "scheduleFlow");
         params.add("projectName", projectName);
-        String projectId = Optional.ofNullable(fetchProjectFlows(projectName).get("projectId")).map(JsonNode::asText).orElse("");
+        String projectId = Optional.ofNullable(fetchProjectFlows(projectName)).map(flows -> String.valueOf(flows.getProjectId())).orElse("");
         params.add("projectId", projectId);
         params.add("flow", flowName);
         params.add("scheduleTime", scheduleTime);
@@ -322,7 +415,8 @@ public class AzkabanAdapter {
         }
 
         HttpEntity<LinkedMultiValueMap<String, String>> httpEntity = new HttpEntity<>(params, getAzkabanHeaders());
-        String respResult = restTemplate.postForObject(config.getUrl() + "/schedule", httpEntity, String.class);
+        String respResult = restTemplate.postForObject(baseUrl() + "/schedule", httpEntity, String.class);
+        checkSession(respResult, sessionId);
 
         try {
             JsonNode respRoot = objectMapper.readTree(respResult);
@@ -344,7 +438,7 @@ public class AzkabanAdapter {
             }
         } catch (IOException e) {
             log.error(String.format("Azkaban schedule period-based Flow %s failure: %s", flowName, e.getMessage()), e);
-            throw new AzkabanException(e.getMessage());
+            throw new AzkabanException(e.getMessage(), e);
         }
     }
 
@@ -355,9 +449,11 @@ public class AzkabanAdapter {
      * @param flowName       Flow 名
      * @param cronExpression Cron 表达式
      */
+    @AzkabanOperation(value = AzkabanOperationType.SCHEDULE, endpoint = AzkabanEndpoint.SCHEDULE)
     public void scheduleCronBasedFlow(String projectName, String flowName, String cronExpression) {
+        String sessionId = sessionManager.getSessionId();
         LinkedMultiValueMap<String, Object> params = new LinkedMultiValueMap<>();
-        params.add("session.id", SESSION_ID);
+        params.add("session.id", sessionId);
         params.add("ajax", "scheduleCronFlow");
         params.add("projectName", projectName);
         params.add("flow", flowName);
@@ -365,7 +461,8 @@ public class AzkabanAdapter {
 
         HttpEntity<LinkedMultiValueMap<String, Object>> httpEntity = new HttpEntity<>(params, getAzkabanHeaders());
 
-        String respResult = restTemplate.postForObject(config.getUrl() + "/schedule", httpEntity, String.class);
+        String respResult = restTemplate.postForObject(baseUrl() + "/schedule", httpEntity, String.class);
+        checkSession(respResult, sessionId);
         try {
             JsonNode respRoot = objectMapper.readTree(respResult);
             if (respRoot.hasNonNull("status") && "success".equals(respRoot.get("status").asText())) {
@@ -386,7 +483,7 @@ public class AzkabanAdapter {
             }
         } catch (IOException e) {
             log.error(String.format("Azkaban schedule Cron Flow {} failure: {}", flowName, e.getMessage()), e);
-            throw new AzkabanException(e.getMessage());
+            throw new AzkabanException(e.getMessage(), e);
         }
     }
 
@@ -396,19 +493,43 @@ public class AzkabanAdapter {
      * @param flowId Flow ID
      * @return Schedule
      */
-    public JsonNode fetchSchedule(String projectId, String flowId) {
+    @AzkabanOperation(value = AzkabanOperationType.FETCH, endpoint = AzkabanEndpoint.SCHEDULE)
+    public Schedule fetchSchedule(String projectId, String flowId) {
+        String sessionId = sessionManager.getSessionId();
         Map<String, Object> params = new HashMap<>();
-        params.put("id", SESSION_ID);
+        params.put("id", sessionId);
         params.put("projectId", projectId);
         params.put("flowId", flowId);
 
-        try {
-            String respResult = restTemplate.getForObject(config.getUrl() + "/schedule?session.id={id}&ajax=fetchSchedule&projectId={projectId}&flowId={flowId}", String.class, params);
-            return objectMapper.readTree(respResult);
-        } catch (IOException e) {
-            log.error(String.format("Azkaban fetch Schedule of Flow %s failure: %s", flowId, e.getMessage()), e);
-            throw new AzkabanException(e.getMessage());
+        ScheduleResponse response = getForResponse(baseUrl() + "/schedule?session.id={id}&ajax=fetchSchedule&projectId={projectId}&flowId={flowId}",
+                ScheduleResponse.class, sessionId, params);
+        if (response.getError() != null) {
+            log.error("Azkaban fetch Schedule of Flow {} failure: {}", flowId, response.getError());
+            throw new AzkabanException(response.getError());
+        }
+        return response.schedule;
+    }
+
+    /**
+     * 获取一个调度的 SLA
+     *
+     * @param scheduleId Schedule ID
+     * @return SLA，没有设置时各列表为空
+     */
+    @AzkabanOperation(value = AzkabanOperationType.FETCH, endpoint = AzkabanEndpoint.SCHEDULE)
+    public Sla fetchSla(String scheduleId) {
+        String sessionId = sessionManager.getSessionId();
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", sessionId);
+        params.put("scheduleId", scheduleId);
+
+        Sla sla = getForResponse(baseUrl() + "/schedule?session.id={id}&ajax=slaInfo&scheduleId={scheduleId}",
+                Sla.class, sessionId, params);
+        if (sla.getError() != null) {
+            log.error("Azkaban fetch SLA of Schedule {} failure: {}", scheduleId, sla.getError());
+            throw new AzkabanException(sla.getError());
         }
+        return sla;
     }
 
     /**
@@ -419,11 +540,13 @@ public class AzkabanAdapter {
      * @param cronExpression A CRON expression is a string comprising 6 or 7 fields separated by white space that represents a set of times
      * @return Response data
      */
+    @AzkabanOperation(value = AzkabanOperationType.SCHEDULE, endpoint = AzkabanEndpoint.SCHEDULE)
     public String scheduleFlow(String projectName, String flowName, String cronExpression) throws IOException {
+        String sessionId = sessionManager.getSessionId();
         HttpHeaders httpHeaders = getAzkabanHeaders();
 
         LinkedMultiValueMap<String, String> params = new LinkedMultiValueMap<>();
-        params.add("session.id", SESSION_ID);
+        params.add("session.id", sessionId);
         params.add("ajax", "scheduleCronFlow");
         params.add("projectName", projectName);
         params.add("flow", flowName);
@@ -431,9 +554,10 @@ public class AzkabanAdapter {
 
         HttpEntity<LinkedMultiValueMap<String, String>> httpEntity = new HttpEntity<>(params, httpHeaders);
 
-        String respData = restTemplate.postForObject(config.getUrl() + "/schedule", httpEntity, String.class);
+        String respData = restTemplate.postForObject(baseUrl() + "/schedule", httpEntity, String.class);
+        checkSession(respData, sessionId);
 
-        log.info("Azkaban flexible scheduling using Cron: {}", respData);
+        log.debug("Azkaban flexible scheduling using Cron: {}", respData);
 
         return respData;
     }
@@ -442,15 +566,18 @@ public class AzkabanAdapter {
      * 移除一个调度
      * @param scheduleId Schedule ID
      */
+    @AzkabanOperation(value = AzkabanOperationType.SCHEDULE, endpoint = AzkabanEndpoint.SCHEDULE)
     public void unscheduleFlow(String scheduleId) {
+        String sessionId = sessionManager.getSessionId();
         LinkedMultiValueMap<String, Object> params = new LinkedMultiValueMap<>();
-        params.add("session.id", SESSION_ID);
+        params.add("session.id", sessionId);
         params.add("action", "removeSched");
         params.add("scheduleId", scheduleId);
 
         HttpEntity<LinkedMultiValueMap<String, Object>> httpEntity = new HttpEntity<>(params, getAzkabanHeaders());
 
-        String respResult = restTemplate.postForObject(config.getUrl() + "/schedule", httpEntity, String.class);
+        String respResult = restTemplate.postForObject(baseUrl() + "/schedule", httpEntity, String.class);
+        checkSession(respResult, sessionId);
         try {
             JsonNode respRoot = objectMapper.readTree(respResult);
             if (respRoot.hasNonNull("status") && "success".equals(respRoot.get("status").asText())) {
@@ -468,23 +595,27 @@ public class AzkabanAdapter {
             }
         } catch (IOException e) {
             log.error(String.format("Azkaban unschedule Flow %s failure: %s", scheduleId, e.getMessage()), e);
-            throw new AzkabanException(e.getMessage());
+            throw new AzkabanException(e.getMessage(), e);
         }
     }
 
+    @AzkabanOperation(value = AzkabanOperationType.SCHEDULE, endpoint = AzkabanEndpoint.SCHEDULE)
     public void setSla(String scheduleId, String[] slaEmails, String[][] settings) {
+        String sessionId = sessionManager.getSessionId();
         LinkedMultiValueMap<String, Object> params = new LinkedMultiValueMap<>();
-        params.add("session.id", SESSION_ID);
+        params.add("session.id", sessionId);
         params.add("ajax", "setSla");
         params.add("scheduleId", scheduleId);
         params.add("slaEmails", Optional.ofNullable(slaEmails).map(sm -> String.join(";", sm)).orElse(""));
         for (int i = 0; i < settings.length; i++) {
-            params.add(String.format("settings[%d]", i), settings[i]);
+            // 每条规则是一个 id,rule,duration,emailAction,killAction 字符串
+            params.add(String.format("settings[%d]", i), String.join(",", settings[i]));
         }
 
         HttpEntity<LinkedMultiValueMap<String, Object>> httpEntity = new HttpEntity<>(params, getAzkabanHeaders());
 
-        String respResult = restTemplate.postForObject(config.getUrl() + "/schedule", httpEntity, String.class);
+        String respResult = restTemplate.postForObject(baseUrl() + "/schedule", httpEntity, String.class);
+        checkSession(respResult, sessionId);
 
         try {
             JsonNode respRoot = objectMapper.readTree(respResult);
@@ -494,7 +625,7 @@ public class AzkabanAdapter {
             }
         } catch (IOException e) {
             log.error(String.format("Azkaban set SLA for Scheduled %s failure: %s", scheduleId, e.getMessage()), e);
-            throw new AzkabanException(e.getMessage());
+            throw new AzkabanException(e.getMessage(), e);
         }
     }
 
@@ -502,12 +633,15 @@ public class AzkabanAdapter {
      * 暂停一个 Execution
      * @param execid Execution ID
      */
+    @AzkabanOperation(value = AzkabanOperationType.EXECUTE, endpoint = AzkabanEndpoint.EXECUTOR)
     public void pauseFlowExecution(String execid) {
+        String sessionId = sessionManager.getSessionId();
         Map<String, Object> map = new HashMap<>();
-        map.put("id", SESSION_ID);
+        map.put("id", sessionId);
         map.put("execid", execid);
 
-        String respResult = restTemplate.getForObject(config.getUrl() + "/executor?session.id={id}&ajax=pauseFlow&execid={execid}", String.class, map);
+        String respResult = restTemplate.getForObject(baseUrl() + "/executor?session.id={id}&ajax=pauseFlow&execid={execid}", String.class, map);
+        checkSession(respResult, sessionId);
         try {
             JsonNode respRoot = objectMapper.readTree(respResult);
             if (!respRoot.hasNonNull("error")) {
@@ -518,7 +652,7 @@ public class AzkabanAdapter {
             }
         } catch (IOException e) {
             log.error("Azkaban pause Flow Execution {} failure: {}", execid, e.getMessage());
-            throw new AzkabanException(e.getMessage());
+            throw new AzkabanException(e.getMessage(), e);
         }
     }
 
@@ -526,12 +660,15 @@ public class AzkabanAdapter {
      * 恢复一个 Execution
      * @param execid Execution ID
      */
+    @AzkabanOperation(value = AzkabanOperationType.EXECUTE, endpoint = AzkabanEndpoint.EXECUTOR)
     public void resumeFlowExecution(String execid) {
+        String sessionId = sessionManager.getSessionId();
         Map<String, Object> map = new HashMap<>();
-        map.put("id", SESSION_ID);
+        map.put("id", sessionId);
         map.put("execid", execid);
 
-        String respResult = restTemplate.getForObject(config.getUrl() + "/executor?session.id={id}&ajax=resumeFlow&execid={execid}", String.class, map);
+        String respResult = restTemplate.getForObject(baseUrl() + "/executor?session.id={id}&ajax=resumeFlow&execid={execid}", String.class, map);
+        checkSession(respResult, sessionId);
 
         try {
             JsonNode respRoot = objectMapper.readTree(respResult);
@@ -543,7 +680,7 @@ public class AzkabanAdapter {
             }
         } catch (IOException e) {
             log.error("Azkaban resume Flow Execution {} failure: {}", execid, e.getMessage());
-            throw new AzkabanException(e.getMessage());
+            throw new AzkabanException(e.getMessage(), e);
         }
     }
 
@@ -554,16 +691,45 @@ public class AzkabanAdapter {
      * @param flowName    flow 名称
      * @return 执行 ID
      */
-    public String startFlow(String projectName, String flowName) throws IOException {
+    @AzkabanOperation(value = AzkabanOperationType.EXECUTE, endpoint = AzkabanEndpoint.EXECUTOR)
+    public String startFlow(String projectName, String flowName) {
+        return startFlow(projectName, flowName, null);
+    }
+
+    /**
+     * 带参数执行 flow
+     *
+     * @param projectName 项目名称
+     * @param flowName    flow 名称
+     * @param flowParams  执行参数，如 flowOverride[key]、concurrentOption 等，可为 null
+     * @return 执行 ID
+     */
+    @AzkabanOperation(value = AzkabanOperationType.EXECUTE, endpoint = AzkabanEndpoint.EXECUTOR)
+    public String startFlow(String projectName, String flowName, Map<String, Object> flowParams) {
+        String sessionId = sessionManager.getSessionId();
         LinkedMultiValueMap<String, Object> linkedMultiValueMap = new LinkedMultiValueMap<String, Object>();
-        linkedMultiValueMap.add("session.id", SESSION_ID);
-        linkedMultiValueMap.add("ajax", "executeFlow");
-        linkedMultiValueMap.add("project", projectName);
-        linkedMultiValueMap.add("flow", flowName);
-        String res = restTemplate.postForObject(config.getUrl() + "/executor", linkedMultiValueMap, String.class);
-        log.info("azkaban start flow:{}", res);
-        JsonNode objectNode = objectMapper.readTree(res);
-        return objectNode.get("execid").asText();
+        if (flowParams != null) {
+            flowParams.forEach((key, value) -> linkedMultiValueMap.add(key, String.valueOf(value)));
+        }
+        linkedMultiValueMap.set("session.id", sessionId);
+        linkedMultiValueMap.set("ajax", "executeFlow");
+        linkedMultiValueMap.set("project", projectName);
+        linkedMultiValueMap.set("flow", flowName);
+        String res = restTemplate.postForObject(baseUrl() + "/executor", linkedMultiValueMap, String.class);
+        checkSession(res, sessionId);
+        log.debug("azkaban start flow:{}", res);
+        try {
+            JsonNode objectNode = objectMapper.readTree(res);
+            if (objectNode.hasNonNull("error")) {
+                String errorMessage = objectNode.get("error").asText();
+                log.error("Azkaban start Flow {} failure: {}", flowName, errorMessage);
+                throw new AzkabanException(errorMessage);
+            }
+            return objectNode.get("execid").asText();
+        } catch (IOException e) {
+            log.error(String.format("Azkaban start Flow %s failure: %s", flowName, e.getMessage()), e);
+            throw new AzkabanException(e.getMessage(), e);
+        }
     }
 
     /**
@@ -572,32 +738,39 @@ public class AzkabanAdapter {
      * @param execId 执行ID
      * @return 结果
      */
-    public String executionInfo(String execId) {
-        LinkedMultiValueMap<String, Object> linkedMultiValueMap = new LinkedMultiValueMap<>();
-        linkedMultiValueMap.add("session.id", SESSION_ID);
-        linkedMultiValueMap.add("ajax", "fetchexecflow");
-        linkedMultiValueMap.add("execid", execId);
-        String res = restTemplate.postForObject(config.getUrl() + "/executor", linkedMultiValueMap, String.class);
-        log.info("azkaban execution info:{}", res);
-        return res;
+    @AzkabanOperation(value = AzkabanOperationType.FETCH, endpoint = AzkabanEndpoint.EXECUTOR)
+    public Execution executionInfo(String execId) {
+        return loadExecution(execId);
     }
 
-
-
     /**
      * 查询 flow 执行情况
      *
      * @param execId 执行ID
-     * @return 结果
+     * @return 结果，包含各 job 的状态
      */
-    public String fetchFlowExecution(String execId) {
-        String res = restTemplate
-                .getForObject(config.getUrl() + "/executor?ajax=fetchexecflow&session.id={1}&execid={2}"
-                        , String.class, SESSION_ID, execId
-                );
-        log.info("azkban execution flow:{}", res);
+    @AzkabanOperation(value = AzkabanOperationType.FETCH, endpoint = AzkabanEndpoint.EXECUTOR)
+    public Execution fetchFlowExecution(String execId) {
+        return loadExecution(execId);
+    }
+
+    /**
+     * Azkaban 对 ajax 请求的 GET 与 POST 使用同一处理逻辑，这里用 GET 以便直接从响应流绑定
+     */
+    private Execution loadExecution(String execId) {
+        String sessionId = sessionManager.getSessionId();
+        Map<String, String> map = new HashMap<>();
+        map.put("id", sessionId);
+        map.put("execid", execId);
 
-        return res;
+        Execution execution = getForResponse(baseUrl() + "/executor?ajax=fetchexecflow&session.id={id}&execid={execid}",
+                Execution.class, sessionId, map);
+        if (execution.getError() != null) {
+            log.error("Azkaban fetch Execution {} failure: {}", execId, execution.getError());
+            throw new AzkabanException(execution.getError());
+        }
+        log.debug("Azkaban fetch Execution {}: {}", execId, execution.getStatus());
+        return execution;
     }
 
     /**
@@ -609,19 +782,151 @@ public class AzkabanAdapter {
      * @param length 长度
      * @return 结果
      */
-    public String fetchExecutionJobLogs(String execId, String jobId, int offset, int length) {
-        String res = restTemplate
-                .getForObject(config.getUrl() + "/executor?ajax=fetchExecJobLogs&session.id={1}&execid={2}&jobId={3}&offset={4}&length={5}"
-                        , String.class, SESSION_ID, execId, jobId, offset, length
-                );
-        log.info("azkban execution job logs:{}", res);
-        return res;
+    @AzkabanOperation(value = AzkabanOperationType.FETCH, endpoint = AzkabanEndpoint.EXECUTOR)
+    public JobLog fetchExecutionJobLogs(String execId, String jobId, int offset, int length) {
+        String sessionId = sessionManager.getSessionId();
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", sessionId);
+        map.put("execid", execId);
+        map.put("jobId", jobId);
+        map.put("offset", offset);
+        map.put("length", length);
+
+        JobLog jobLog = getForResponse(baseUrl() + "/executor?ajax=fetchExecJobLogs&session.id={id}&execid={execid}&jobId={jobId}&offset={offset}&length={length}",
+                JobLog.class, sessionId, map);
+        if (jobLog.getError() != null) {
+            log.error("Azkaban fetch logs of Job {} in Execution {} failure: {}", jobId, execId, jobLog.getError());
+            throw new AzkabanException(jobLog.getError());
+        }
+        log.debug("Azkaban fetch logs of Job {} in Execution {}: offset {}, length {}", jobId, execId, jobLog.getOffset(), jobLog.getLength());
+        return jobLog;
+    }
+
+    /**
+     * 获取一段 job 日志并直接写入 out，不在内存中拼接完整的响应字符串
+     *
+     * @param execId 执行ID
+     * @param jobId  job ID
+     * @param offset 起始字节位置
+     * @param length 最多读取的字节数
+     * @param out    日志内容的输出
+     * @return 本次读取的日志片段位置
+     */
+    @AzkabanOperation(value = AzkabanOperationType.FETCH, endpoint = AzkabanEndpoint.EXECUTOR, retryable = false, coalesce = false)
+    public JobLogChunk fetchExecutionJobLogs(String execId, String jobId, long offset, int length, Writer out) {
+        String sessionId = sessionManager.getSessionId();
+        JobLogChunk chunk = restTemplate.execute(baseUrl() + "/executor?ajax=fetchExecJobLogs&session.id={1}&execid={2}&jobId={3}&offset={4}&length={5}",
+                HttpMethod.GET, null, response -> readJobLogs(response.getBody(), sessionId, execId, jobId, offset, out),
+                sessionId, execId, jobId, offset, length);
+        log.debug("Azkaban fetch logs of Job {} in Execution {}: offset {}, length {}", jobId, execId, chunk.getOffset(), chunk.getLength());
+        return chunk;
+    }
+
+    private JobLogChunk readJobLogs(InputStream in, String sessionId, String execId, String jobId, long offset, Writer out) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new AzkabanException("Unexpected job log response.");
+            }
+            long chunkOffset = offset;
+            int chunkLength = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case "data":
+                        parser.getText(out);
+                        break;
+                    case "offset":
+                        chunkOffset = parser.getLongValue();
+                        break;
+                    case "length":
+                        chunkLength = parser.getIntValue();
+                        break;
+                    case "error":
+                        String errorMessage = parser.getText();
+                        if (isSessionError(errorMessage)) {
+                            throw new AzkabanSessionExpiredException(sessionId);
+                        }
+                        log.error("Azkaban fetch logs of Job {} in Execution {} failure: {}", jobId, execId, errorMessage);
+                        throw new AzkabanException(errorMessage);
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            out.flush();
+            return new JobLogChunk(chunkOffset, chunkLength);
+        }
+    }
+
+    /**
+     * Azkaban 对失效会话的 ajax 请求统一返回 {"error": "session"}
+     *
+     * @param respResult 响应内容
+     * @param sessionId  请求所使用的 session.id
+     */
+    private void checkSession(String respResult, String sessionId) {
+        if (respResult != null && SESSION_ERROR.matcher(respResult).find()) {
+            log.warn("Azkaban session {} is no longer valid", sessionId);
+            throw new AzkabanSessionExpiredException(sessionId);
+        }
     }
 
-    private HttpHeaders getAzkabanHeaders() {
+    private static boolean isSessionError(String errorMessage) {
+        return "session".equalsIgnoreCase(errorMessage) || "invalid session".equalsIgnoreCase(errorMessage);
+    }
+
+    /**
+     * GET 请求并把响应流直接绑定为 responseType，不经过 String 或 JsonNode
+     *
+     * @param url          请求地址模板
+     * @param responseType 响应类型
+     * @param sessionId    请求所使用的 session.id
+     * @param uriVariables 地址模板参数
+     * @return 响应，Azkaban 返回的业务错误在 error 中，由调用方处理
+     */
+    private <T extends AzkabanResponse> T getForResponse(String url, Class<T> responseType, String sessionId, Map<String, ?> uriVariables) {
+        T response = restTemplate.execute(url, HttpMethod.GET, null,
+                clientResponse -> objectMapper.readValue(clientResponse.getBody(), responseType), uriVariables);
+        if (response == null) {
+            throw new AzkabanException("Empty response from Azkaban.");
+        }
+        if (isSessionError(response.getError())) {
+            log.warn("Azkaban session {} is no longer valid", sessionId);
+            throw new AzkabanSessionExpiredException(sessionId);
+        }
+        return response;
+    }
+
+    static String joinQuery(Map<String, Object> params) {
+        return params.keySet().stream()
+                .map(key -> key + "=" + params.get(key))
+                .collect(Collectors.joining("&"));
+    }
+
+    static HttpHeaders getAzkabanHeaders() {
         HttpHeaders httpHeaders = new HttpHeaders();
         httpHeaders.add(HttpHeaders.CONTENT_TYPE, "application/x-www-form-urlencoded; charset=utf-8");
         httpHeaders.add("X-Requested-With", "XMLHttpRequest");
         return httpHeaders;
     }
+
+    /**
+     * getRunning 的响应，没有运行中的执行时 execIds 不存在
+     */
+    @Getter
+    @Setter
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private static class RunningExecutions extends AzkabanResponse {
+        private List<Long> execIds = Collections.emptyList();
+    }
+
+    /**
+     * fetchSchedule 的响应，flow 未被调度时 schedule 不存在
+     */
+    @Getter
+    @Setter
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private static class ScheduleResponse extends AzkabanResponse {
+        private Schedule schedule;
+    }
 }
@@ -0,0 +1,27 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+/**
+ * 一个 Azkaban 集群及其专用的连接池与适配器
+ *
+ * @author Yorke
+ */
+@Getter
+@AllArgsConstructor
+public class AzkabanCluster {
+    private final String name;
+    private final AzkabanAdapter adapter;
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    /**
+     * @return 当前在途请求数，即连接池中已租用与等待中的连接数
+     */
+    public int getLoad() {
+        PoolStats stats = connectionManager.getTotalStats();
+        return stats.getLeased() + stats.getPending();
+    }
+}
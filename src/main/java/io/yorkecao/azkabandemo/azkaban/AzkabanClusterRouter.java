@@ -0,0 +1,240 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.config.AzkabanHttpPoolMetrics;
+import io.yorkecao.azkabandemo.exception.AzkabanException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * 按项目把调用路由到所在的 Azkaban 集群
+ * <p>
+ * 默认集群（azkaban-demo.url）使用容器中的 {@link AzkabanAdapter}；azkaban-demo.clusters 中的每个集群
+ * 各有独立的连接池、会话与元数据缓存，适配器同样经过全部切面，连接池与缓存指标按 cluster 打标签。
+ * 项目所在集群依次由路由规则、已记录的放置、逐个集群查询项目决定；新项目按放置策略选择集群并记录。
+ * 查询时单个集群出错只跳过该集群；所有集群都确认没有的项目在 azkaban-demo.routing.miss-ttl 内不再查询，
+ * 有集群出错时不记录，也不为其放置新项目，以免在不可用的集群上已有同名项目。
+ * 只配置了默认集群时所有调用都直接使用默认适配器。
+ *
+ * @author Yorke
+ */
+@Slf4j
+@Component
+public class AzkabanClusterRouter implements DisposableBean {
+
+    @Autowired
+    private AzkabanDemoConfiguration config;
+    @Autowired
+    private AzkabanAdapter azkabanAdapter;
+    @Autowired
+    private PoolingHttpClientConnectionManager azkabanConnectionManager;
+    @Autowired
+    private AzkabanPlacementStore placementStore;
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+    @Autowired
+    private MeterRegistry registry;
+
+    private final Map<String, AzkabanCluster> clusters = new LinkedHashMap<>();
+    private final Map<Pattern, String> rules = new LinkedHashMap<>();
+    private final List<CloseableHttpClient> httpClients = new ArrayList<>();
+    private final AtomicInteger nextCluster = new AtomicInteger();
+    private Cache<String, Boolean> misses;
+
+    @PostConstruct
+    public void init() {
+        misses = Caffeine.newBuilder()
+                .expireAfterWrite(config.getRouting().getMissTtl())
+                .maximumSize(10000)
+                .build();
+        String defaultName = AzkabanDemoConfiguration.Cluster.DEFAULT;
+        clusters.put(defaultName, new AzkabanCluster(defaultName, azkabanAdapter, azkabanConnectionManager));
+        for (AzkabanDemoConfiguration.Cluster cluster : config.getClusters()) {
+            if (clusters.containsKey(cluster.getName())) {
+                throw new IllegalStateException("Duplicate Azkaban cluster " + cluster.getName());
+            }
+            clusters.put(cluster.getName(), createCluster(cluster));
+        }
+        for (AzkabanDemoConfiguration.Routing.Rule rule : config.getRouting().getRules()) {
+            if (!clusters.containsKey(rule.getCluster())) {
+                throw new IllegalStateException("Routing rule " + rule.getPattern() + " refers to unknown cluster " + rule.getCluster());
+            }
+            rules.put(Pattern.compile(rule.getPattern()), rule.getCluster());
+        }
+        log.info("Azkaban clusters {}, placement {}", clusters.keySet(), config.getRouting().getPlacement());
+    }
+
+    private AzkabanCluster createCluster(AzkabanDemoConfiguration.Cluster cluster) {
+        PoolingHttpClientConnectionManager connectionManager = config.createConnectionManager();
+        CloseableHttpClient httpClient = config.createHttpClient(connectionManager);
+        httpClients.add(httpClient);
+        RestTemplate restTemplate = config.createRestTemplate(httpClient);
+
+        AzkabanSessionManager sessionManager = beanFactory.createBean(AzkabanSessionManager.class);
+        sessionManager.bind(cluster, restTemplate);
+        AzkabanMetadataCache metadataCache = beanFactory.createBean(AzkabanMetadataCache.class);
+        AzkabanHttpPoolMetrics.bind(registry, connectionManager, cluster.getName());
+        metadataCache.bindTo(registry, cluster.getName());
+
+        AzkabanAdapter target = new AzkabanAdapter();
+        beanFactory.autowireBean(target);
+        target.bind(sessionManager, restTemplate, config.createUploadRestTemplate(httpClient), metadataCache);
+        // 经过 BeanPostProcessor，与默认适配器一样织入会话续期、指标、重试、熔断与限流切面
+        AzkabanAdapter adapter = (AzkabanAdapter) beanFactory.initializeBean(target, "azkabanAdapter-" + cluster.getName());
+        return new AzkabanCluster(cluster.getName(), adapter, connectionManager);
+    }
+
+    /**
+     * @param projectName 项目名称
+     * @return 项目所在集群的适配器，任何集群上都没有该项目时为默认集群
+     */
+    public AzkabanAdapter forProject(String projectName) {
+        if (clusters.size() == 1) {
+            return azkabanAdapter;
+        }
+        AzkabanCluster cluster = find(projectName, false);
+        return cluster != null ? cluster.getAdapter() : azkabanAdapter;
+    }
+
+    /**
+     * 为即将创建的项目选择集群，已有项目返回其所在集群
+     *
+     * @param projectName 项目名称
+     * @return 选定的集群，已记录为该项目的集群
+     * @throws AzkabanException 有集群无法确认是否已有该项目
+     */
+    public AzkabanCluster place(String projectName) {
+        if (clusters.size() == 1) {
+            return clusters.values().iterator().next();
+        }
+        AzkabanCluster cluster = find(projectName, true);
+        if (cluster == null) {
+            cluster = choose();
+            placementStore.put(projectName, cluster.getName());
+            log.info("Azkaban Project {} placed on cluster {}", projectName, cluster.getName());
+        }
+        return cluster;
+    }
+
+    /**
+     * 在按路由规则或放置策略选定的集群上创建项目，创建失败时清除放置记录
+     *
+     * @param projectName 项目名称
+     * @param description 项目描述
+     * @return 项目所在的集群
+     */
+    public AzkabanCluster createProject(String projectName, String description) {
+        AzkabanCluster cluster = place(projectName);
+        try {
+            cluster.getAdapter().createProject(projectName, description);
+        } catch (RuntimeException e) {
+            release(projectName);
+            throw e;
+        }
+        return cluster;
+    }
+
+    /**
+     * 删除项目并清除其放置记录
+     *
+     * @param projectName 项目名称
+     */
+    public void deleteProject(String projectName) {
+        forProject(projectName).deleteProject(projectName);
+        release(projectName);
+    }
+
+    /**
+     * 项目已删除或创建失败时清除其放置记录
+     *
+     * @param projectName 项目名称
+     */
+    public void release(String projectName) {
+        placementStore.remove(projectName);
+    }
+
+    public AzkabanCluster getCluster(String name) {
+        return clusters.get(name);
+    }
+
+    public Collection<AzkabanCluster> getClusters() {
+        return Collections.unmodifiableCollection(clusters.values());
+    }
+
+    /**
+     * @param strict 为 true 时有集群查询失败且其他集群都没有该项目则抛出异常，否则视为没有找到
+     */
+    private AzkabanCluster find(String projectName, boolean strict) {
+        for (Map.Entry<Pattern, String> rule : rules.entrySet()) {
+            if (rule.getKey().matcher(projectName).matches()) {
+                return clusters.get(rule.getValue());
+            }
+        }
+        String placed = placementStore.get(projectName);
+        if (placed != null && clusters.containsKey(placed)) {
+            return clusters.get(placed);
+        }
+        if (misses.getIfPresent(projectName) != null) {
+            return null;
+        }
+        // 本服务之外创建的项目，找到后记录下来，之后不再逐个查询
+        List<String> failed = new ArrayList<>();
+        for (AzkabanCluster cluster : clusters.values()) {
+            try {
+                if (cluster.getAdapter().fetchProjectFlows(projectName) != null) {
+                    placementStore.put(projectName, cluster.getName());
+                    log.info("Azkaban Project {} found on cluster {}", projectName, cluster.getName());
+                    return cluster;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Azkaban cluster {} lookup of Project {} failure: {}", cluster.getName(), projectName, e.getMessage());
+                failed.add(cluster.getName());
+            }
+        }
+        if (failed.isEmpty()) {
+            misses.put(projectName, Boolean.TRUE);
+        } else if (strict) {
+            throw new AzkabanException(String.format("Cannot place Project %s, clusters %s are unavailable.", projectName, failed));
+        }
+        return null;
+    }
+
+    private AzkabanCluster choose() {
+        List<AzkabanCluster> candidates = new ArrayList<>(clusters.values());
+        switch (config.getRouting().getPlacement()) {
+            case LEAST_LOADED:
+                return candidates.stream().min(Comparator.comparingInt(AzkabanCluster::getLoad)).orElse(candidates.get(0));
+            case ROUND_ROBIN:
+            default:
+                return candidates.get(Math.floorMod(nextCluster.getAndIncrement(), candidates.size()));
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        for (CloseableHttpClient httpClient : httpClients) {
+            httpClient.close();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+/**
+ * Azkaban AJAX 接口分组，按组限流
+ *
+ * @author Yorke
+ */
+public enum AzkabanEndpoint {
+    /**
+     * /manager：项目、上传、flow 元数据
+     */
+    MANAGER,
+    /**
+     * /executor：执行、取消、执行状态与日志
+     */
+    EXECUTOR,
+    /**
+     * /schedule：调度与 SLA
+     */
+    SCHEDULE;
+
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
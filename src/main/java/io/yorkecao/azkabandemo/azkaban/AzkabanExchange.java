@@ -0,0 +1,114 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 一次 Azkaban 操作期间收到的响应：状态码、字节数以及有界的响应体前缀
+ * <p>
+ * 与当前线程绑定，由 {@link AzkabanExchangeInterceptor} 在读取响应时填充；操作内的多次请求（如重试）累计在一起，
+ * 重新登录的响应含 session.id，由 {@link AzkabanSessionManager} 单独记录，不计入所在操作。
+ *
+ * @author Yorke
+ */
+public class AzkabanExchange {
+
+    private static final ThreadLocal<AzkabanExchange> CURRENT = new ThreadLocal<>();
+
+    private final AzkabanExchange previous;
+    private final int maxCapture;
+    private final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    private int status;
+    private long bytes;
+    private boolean truncated;
+
+    private AzkabanExchange(AzkabanExchange previous, int maxCapture) {
+        this.previous = previous;
+        this.maxCapture = Math.max(0, maxCapture);
+    }
+
+    /**
+     * 在当前线程上开始记录，必须在 finally 中调用 {@link #end()}
+     *
+     * @param maxCapture 保留的响应体最大字节数
+     */
+    public static AzkabanExchange begin(int maxCapture) {
+        AzkabanExchange exchange = new AzkabanExchange(CURRENT.get(), maxCapture);
+        CURRENT.set(exchange);
+        return exchange;
+    }
+
+    /**
+     * @return 当前线程上正在记录的操作，没有时为 null
+     */
+    static AzkabanExchange current() {
+        return CURRENT.get();
+    }
+
+    public void end() {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    void received(int status) {
+        this.status = status;
+    }
+
+    void read(byte[] buffer, int offset, int length) {
+        bytes += length;
+        int capture = Math.min(length, maxCapture - payload.size());
+        if (capture > 0) {
+            payload.write(buffer, offset, capture);
+        }
+        truncated |= capture < length;
+    }
+
+    /**
+     * @return 最后一个响应的 HTTP 状态码，没有收到响应时为 0
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * @return 收到的响应体字节数
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return 保留的响应体前缀，截断处不完整的 UTF-8 字符被舍去
+     */
+    public String getPayload() {
+        byte[] bytes = payload.toByteArray();
+        return new String(bytes, 0, completeLength(bytes), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return 去掉末尾不完整的多字节字符后的长度
+     */
+    private static int completeLength(byte[] bytes) {
+        int start = bytes.length - 1;
+        // 向前跳过最多 3 个后续字节（10xxxxxx），找到最后一个字符的首字节
+        while (start >= 0 && bytes.length - start < 4 && (bytes[start] & 0xC0) == 0x80) {
+            start--;
+        }
+        if (start < 0) {
+            return bytes.length;
+        }
+        int lead = bytes[start] & 0xFF;
+        int charLength = lead < 0x80 ? 1 : lead >= 0xF0 ? 4 : lead >= 0xE0 ? 3 : lead >= 0xC0 ? 2 : 1;
+        return start + charLength > bytes.length ? start : bytes.length;
+    }
+
+    /**
+     * @return 响应体是否超出保留长度被截断
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+}
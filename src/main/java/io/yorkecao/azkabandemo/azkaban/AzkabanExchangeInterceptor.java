@@ -0,0 +1,66 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 把响应的状态码与读取的字节记录到当前线程的 {@link AzkabanExchange}，不在操作内的请求不做处理
+ * <p>
+ * 响应体仍以流的方式交给调用方，只在读取时统计字节数并按需保留前缀，不会额外缓冲整个响应。
+ *
+ * @author Yorke
+ */
+public class AzkabanExchangeInterceptor implements HttpResponseInterceptor {
+
+    @Override
+    public void process(HttpResponse response, HttpContext context) {
+        AzkabanExchange exchange = AzkabanExchange.current();
+        if (exchange == null) {
+            return;
+        }
+        exchange.received(response.getStatusLine().getStatusCode());
+        HttpEntity entity = response.getEntity();
+        if (entity != null) {
+            response.setEntity(new HttpEntityWrapper(entity) {
+                @Override
+                public InputStream getContent() throws IOException {
+                    return new RecordingInputStream(super.getContent(), exchange);
+                }
+            });
+        }
+    }
+
+    private static class RecordingInputStream extends FilterInputStream {
+        private final AzkabanExchange exchange;
+
+        private RecordingInputStream(InputStream in, AzkabanExchange exchange) {
+            super(in);
+            this.exchange = exchange;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                exchange.read(new byte[]{(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                exchange.read(buffer, offset, n);
+            }
+            return n;
+        }
+    }
+}
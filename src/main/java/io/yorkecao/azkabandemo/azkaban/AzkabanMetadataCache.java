@@ -0,0 +1,137 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.model.Flow;
+import io.yorkecao.azkabandemo.model.ProjectFlows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 项目元数据缓存
+ * <p>
+ * 缓存 fetchprojectflows 与 fetchflowgraph 的结果，按 TTL 过期、按容量淘汰；
+ * 上传 Zip、创建或删除项目时由 {@link AzkabanAdapter} 主动失效对应项目，
+ * 每个项目记录失效的代数，失效前开始、失效后才结束的加载结果不留在缓存中。
+ * 缓存的对象为共享实例，调用方不应修改。
+ *
+ * @author Yorke
+ */
+@Slf4j
+@Component
+public class AzkabanMetadataCache implements MeterBinder {
+
+    @Autowired
+    private AzkabanDemoConfiguration config;
+
+    private Cache<String, ProjectFlows> projectFlows;
+    private Cache<List<String>, Flow> flowJobs;
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        projectFlows = newCache();
+        flowJobs = newCache();
+    }
+
+    /**
+     * @param projectName 项目名称
+     * @param loader      未命中时的加载方法，返回 null 时不缓存
+     * @return 项目的 flow 列表
+     */
+    public ProjectFlows getProjectFlows(String projectName, Function<String, ProjectFlows> loader) {
+        return load(projectFlows, projectName, projectName, () -> loader.apply(projectName));
+    }
+
+    /**
+     * @param projectName 项目名称
+     * @param flowId      flow ID
+     * @param loader      未命中时的加载方法，返回 null 时不缓存
+     * @return flow 图
+     */
+    public Flow getFlowJobs(String projectName, String flowId, Supplier<Flow> loader) {
+        return load(flowJobs, Arrays.asList(projectName, flowId), projectName, loader);
+    }
+
+    /**
+     * 失效一个项目的全部元数据
+     *
+     * @param projectName 项目名称
+     */
+    public void invalidateProject(String projectName) {
+        // 先增加代数再失效，之后才结束的加载都能发现自己已过期
+        generation(projectName).incrementAndGet();
+        projectFlows.invalidate(projectName);
+        flowJobs.asMap().keySet().removeIf(key -> projectName.equals(key.get(0)));
+        log.debug("Azkaban metadata of Project {} invalidated", projectName);
+    }
+
+    public void invalidateAll() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        projectFlows.invalidateAll();
+        flowJobs.invalidateAll();
+    }
+
+    private <K, V> V load(Cache<K, V> cache, K key, String projectName, Supplier<V> loader) {
+        AtomicLong generation = generation(projectName);
+        long started = generation.get();
+        V value = cache.get(key, k -> loader.get());
+        if (value != null && generation.get() != started) {
+            // 加载期间项目被失效，结果可能是失效前的数据，只返回给本次调用
+            cache.asMap().remove(key, value);
+        }
+        return value;
+    }
+
+    private AtomicLong generation(String projectName) {
+        return generations.computeIfAbsent(projectName, name -> new AtomicLong());
+    }
+
+    public CacheStats projectFlowsStats() {
+        return projectFlows.stats();
+    }
+
+    public CacheStats flowJobsStats() {
+        return flowJobs.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindTo(registry, AzkabanDemoConfiguration.Cluster.DEFAULT);
+    }
+
+    /**
+     * 按集群打标签绑定命中、未命中与淘汰指标，其他集群的缓存由 {@link AzkabanClusterRouter} 创建时绑定
+     *
+     * @param registry 指标注册表
+     * @param cluster  集群名
+     */
+    public void bindTo(MeterRegistry registry, String cluster) {
+        CaffeineCacheMetrics.monitor(registry, projectFlows, "azkaban.projectFlows", "cluster", cluster);
+        CaffeineCacheMetrics.monitor(registry, flowJobs, "azkaban.flowJobs", "cluster", cluster);
+    }
+
+    private <K, V> Cache<K, V> newCache() {
+        return Caffeine.newBuilder()
+                .expireAfterWrite(config.getCache().getTtl().toMillis(), TimeUnit.MILLISECONDS)
+                .maximumSize(config.getCache().getMaximumSize())
+                .recordStats()
+                .build();
+    }
+}
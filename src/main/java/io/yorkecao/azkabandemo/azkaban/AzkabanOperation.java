@@ -0,0 +1,38 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记 {@link AzkabanAdapter} 中访问 Azkaban 的方法
+ *
+ * @author Yorke
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AzkabanOperation {
+
+    /**
+     * @return 操作分类
+     */
+    AzkabanOperationType value();
+
+    /**
+     * @return 访问的接口分组
+     */
+    AzkabanEndpoint endpoint();
+
+    /**
+     * @return 幂等操作失败后是否允许重试，已向调用方输出部分结果的操作应为 false
+     */
+    boolean retryable() default true;
+
+    /**
+     * @return 只读操作是否允许与相同的在途调用合并、共享结果，结果写入调用方自己的输出的操作应为 false
+     */
+    boolean coalesce() default true;
+}
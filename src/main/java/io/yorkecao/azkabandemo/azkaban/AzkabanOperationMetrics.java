@@ -0,0 +1,138 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.yorkecao.azkabandemo.exception.AzkabanException;
+import io.yorkecao.azkabandemo.exception.AzkabanRejectedException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Azkaban 操作指标
+ * <p>
+ * 每个操作记录耗时 {@value #TIMER}（按 operation、type、outcome 打标签，count 即各结果的调用次数）
+ * 以及在途请求数 {@value #IN_FLIGHT}。
+ *
+ * @author Yorke
+ */
+@Component
+public class AzkabanOperationMetrics {
+
+    public static final String TIMER = "azkaban.operation";
+    public static final String IN_FLIGHT = "azkaban.operation.in.flight";
+
+    public static final String SUCCESS = "success";
+    public static final String AZKABAN_ERROR = "azkaban_error";
+    public static final String IO_ERROR = "io_error";
+    public static final String TIMEOUT = "timeout";
+    public static final String SERVER_ERROR = "server_error";
+    public static final String CLIENT_ERROR = "client_error";
+    public static final String PARSE_ERROR = "parse_error";
+    public static final String REJECTED = "rejected";
+    public static final String ERROR = "error";
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private final ConcurrentMap<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 开始记录一次操作，调用方必须在结束时调用 {@link Sample#success()} 或 {@link Sample#failure(Throwable)}
+     *
+     * @param operation 操作名，即 adapter 方法名
+     * @param type      操作分类
+     */
+    public Sample start(String operation, AzkabanOperationType type) {
+        AtomicInteger counter = inFlight.computeIfAbsent(operation, key ->
+                registry.gauge(IN_FLIGHT, Tags.of("operation", key), new AtomicInteger()));
+        counter.incrementAndGet();
+        return new Sample(operation, type, counter, registry.config().clock().monotonicTime());
+    }
+
+    /**
+     * 按异常类型归类调用结果
+     * <p>
+     * 只有超时、连接层面的 IO 错误与 5xx 说明 Azkaban 不可用；4xx、响应无法解析与程序错误分别归类，
+     * 不参与熔断与重试。
+     *
+     * @param e 调用抛出的异常，成功时为 null
+     * @return outcome 标签值
+     */
+    public static String outcome(Throwable e) {
+        if (e == null) {
+            return SUCCESS;
+        }
+        if (e instanceof AzkabanRejectedException) {
+            return REJECTED;
+        }
+        boolean io = false;
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SocketTimeoutException
+                    || cause instanceof ConnectTimeoutException
+                    || cause instanceof ConnectionPoolTimeoutException) {
+                return TIMEOUT;
+            }
+            // JsonProcessingException 也是 IOException，须先于 IO 错误判断
+            if (cause instanceof JsonProcessingException || cause instanceof HttpMessageNotReadableException) {
+                return PARSE_ERROR;
+            }
+            if (cause instanceof HttpClientErrorException) {
+                return CLIENT_ERROR;
+            }
+            if (cause instanceof HttpServerErrorException) {
+                return SERVER_ERROR;
+            }
+            io |= cause instanceof IOException || cause instanceof ResourceAccessException;
+        }
+        return io ? IO_ERROR : e instanceof AzkabanException ? AZKABAN_ERROR : ERROR;
+    }
+
+    /**
+     * 一次进行中的操作
+     */
+    public class Sample {
+        private final String operation;
+        private final AzkabanOperationType type;
+        private final AtomicInteger counter;
+        private final long startTime;
+
+        private Sample(String operation, AzkabanOperationType type, AtomicInteger counter, long startTime) {
+            this.operation = operation;
+            this.type = type;
+            this.counter = counter;
+            this.startTime = startTime;
+        }
+
+        public void success() {
+            stop(SUCCESS);
+        }
+
+        public void failure(Throwable e) {
+            stop(outcome(e));
+        }
+
+        private void stop(String outcome) {
+            counter.decrementAndGet();
+            Timer.builder(TIMER)
+                    .description("Azkaban operation latency")
+                    .tags("operation", operation, "type", type.tag(), "outcome", outcome)
+                    .register(registry)
+                    .record(registry.config().clock().monotonicTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+    }
+}
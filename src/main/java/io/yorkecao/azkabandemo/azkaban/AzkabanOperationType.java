@@ -0,0 +1,54 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+/**
+ * Azkaban 操作分类，用于指标标签、并发隔离与重试
+ *
+ * @author Yorke
+ */
+public enum AzkabanOperationType {
+    /**
+     * 登录
+     */
+    LOGIN(false),
+    /**
+     * 创建、删除项目
+     */
+    PROJECT(false),
+    /**
+     * 上传 Zip
+     */
+    UPLOAD(false),
+    /**
+     * 执行、暂停、恢复 flow
+     */
+    EXECUTE(false),
+    /**
+     * 设置、取消调度与 SLA
+     */
+    SCHEDULE(false),
+    /**
+     * 只读查询
+     */
+    FETCH(true),
+    /**
+     * 取消执行
+     */
+    CANCEL(false);
+
+    private final boolean idempotent;
+
+    AzkabanOperationType(boolean idempotent) {
+        this.idempotent = idempotent;
+    }
+
+    /**
+     * @return 重复调用是否安全，只有幂等操作才会在瞬时故障后重试
+     */
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,47 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.utils.PropertiesFile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * 记录每个项目所在的集群，持久化到本地文件，重启后项目仍路由到原集群
+ *
+ * @author Yorke
+ */
+@Slf4j
+@Component
+public class AzkabanPlacementStore {
+
+    @Autowired
+    private AzkabanDemoConfiguration config;
+
+    private PropertiesFile placements;
+
+    @PostConstruct
+    public void load() throws IOException {
+        placements = new PropertiesFile(Paths.get(config.getRouting().getPlacementStore()), "Azkaban cluster per project");
+        int loaded = placements.load();
+        if (loaded > 0) {
+            log.info("Loaded {} cluster placements from {}", loaded, placements.getFile());
+        }
+    }
+
+    public String get(String projectName) {
+        return placements.get(projectName);
+    }
+
+    public void put(String projectName, String cluster) {
+        placements.put(projectName, cluster);
+    }
+
+    public void remove(String projectName) {
+        placements.remove(projectName);
+    }
+}
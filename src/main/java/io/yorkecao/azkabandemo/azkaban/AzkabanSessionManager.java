@@ -0,0 +1,155 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.exception.AzkabanException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Azkaban 会话管理
+ * <p>
+ * 登录一次后复用 session.id；会话失效时只重新登录一次，并发的调用方共享同一次登录结果。
+ *
+ * @author Yorke
+ */
+@Slf4j
+@Component
+public class AzkabanSessionManager {
+
+    @Autowired
+    private AzkabanDemoConfiguration config;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private RestTemplate restTemplate;
+    @Autowired
+    private AzkabanOperationMetrics metrics;
+
+    /**
+     * session.id 整体替换，读线程不会看到更新到一半的会话
+     */
+    private final AtomicReference<String> session = new AtomicReference<>();
+    private final Object loginLock = new Object();
+    /**
+     * 会话所属的集群，未绑定时首次使用时取默认集群
+     */
+    private volatile AzkabanDemoConfiguration.Cluster cluster;
+
+    /**
+     * 改为管理另一个集群的会话，须在首次使用前调用
+     *
+     * @param cluster      集群
+     * @param restTemplate 该集群的连接池
+     */
+    void bind(AzkabanDemoConfiguration.Cluster cluster, RestTemplate restTemplate) {
+        this.cluster = cluster;
+        this.restTemplate = restTemplate;
+    }
+
+    /**
+     * @return 会话所属的集群
+     */
+    public AzkabanDemoConfiguration.Cluster getCluster() {
+        if (cluster == null) {
+            cluster = config.defaultCluster();
+        }
+        return cluster;
+    }
+
+    /**
+     * 获取当前 session.id，尚未登录时先登录
+     *
+     * @return session.id
+     */
+    public String getSessionId() {
+        String current = session.get();
+        if (current != null) {
+            return current;
+        }
+        return renew(null);
+    }
+
+    /**
+     * 强制重新登录
+     *
+     * @return 新的 session.id
+     */
+    public String login() {
+        return renew(session.get());
+    }
+
+    /**
+     * 替换已失效的会话
+     * <p>
+     * 若其他线程已经替换过 staleSessionId，则直接返回新的会话而不再登录。
+     *
+     * @param staleSessionId 已失效的 session.id，尚未登录时为 null
+     * @return 可用的 session.id
+     */
+    public String renew(String staleSessionId) {
+        synchronized (loginLock) {
+            String current = session.get();
+            if (current != null && !current.equals(staleSessionId)) {
+                return current;
+            }
+            String renewed = doLogin();
+            session.set(renewed);
+            return renewed;
+        }
+    }
+
+    private String doLogin() {
+        AzkabanOperationMetrics.Sample sample = metrics.start("login", AzkabanOperationType.LOGIN);
+        try {
+            String sessionId = requestSession();
+            sample.success();
+            return sessionId;
+        } catch (RuntimeException e) {
+            sample.failure(e);
+            throw e;
+        }
+    }
+
+    private String requestSession() {
+        AzkabanDemoConfiguration.Cluster cluster = getCluster();
+        LinkedMultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add("action", "login");
+        params.add("username", cluster.getUsername());
+        params.add("password", cluster.getPassword());
+
+        HttpEntity<LinkedMultiValueMap<String, String>> httpEntity = new HttpEntity<>(params, AzkabanAdapter.getAzkabanHeaders());
+
+        // 登录响应含 session.id，在不保留响应体的单独记录中读取，不会出现在所在操作输出的响应体中
+        AzkabanExchange exchange = AzkabanExchange.begin(0);
+        String respResult;
+        try {
+            respResult = restTemplate.postForObject(cluster.getUrl(), httpEntity, String.class);
+        } finally {
+            exchange.end();
+        }
+
+        try {
+            JsonNode respRoot = objectMapper.readTree(respResult);
+            if (respRoot.hasNonNull("status") && "success".equals(respRoot.get("status").asText())) {
+                log.info("Azkaban login success as {} on cluster {}", cluster.getUsername(), cluster.getName());
+                return respRoot.get("session.id").asText();
+            } else {
+                String errorMessage = respRoot.hasNonNull("error") ? respRoot.get("error").asText() : "No message.";
+                log.warn("Azkaban login failure: {}", errorMessage);
+                throw new AzkabanException(401, errorMessage);
+            }
+        } catch (IOException e) {
+            log.error(String.format("Azkaban login failure: %s !", e.getMessage()), e);
+            throw new AzkabanException(e.getMessage(), e);
+        }
+    }
+}
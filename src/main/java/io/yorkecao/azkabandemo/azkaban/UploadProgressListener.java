@@ -0,0 +1,16 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+/**
+ * 上传进度回调
+ *
+ * @author Yorke
+ */
+@FunctionalInterface
+public interface UploadProgressListener {
+
+    /**
+     * @param bytesSent  已发送的字节数
+     * @param totalBytes 总字节数，边打包边上传时为 -1
+     */
+    void onProgress(long bytesSent, long totalBytes);
+}
@@ -0,0 +1,138 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import io.yorkecao.azkabandemo.utils.FileUtils;
+import io.yorkecao.azkabandemo.utils.ZipOptions;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 上传给 Azkaban 的 Zip 内容
+ * <p>
+ * 内容在写请求体时才产生并直接写入连接，不在堆上缓存：
+ * {@link #ofFile} 逐块复制已有的 Zip 文件，{@link #ofSources} 边打包边上传，不落临时文件。
+ *
+ * @author Yorke
+ */
+public class ZipUpload {
+
+    private static final long PROGRESS_STEP = 1024 * 1024;
+
+    private final String fileName;
+    private final long contentLength;
+    private final ZipWriter writer;
+    private UploadProgressListener listener;
+    private volatile long bytesWritten;
+    private volatile String contentDigest;
+
+    private ZipUpload(String fileName, long contentLength, ZipWriter writer) {
+        this.fileName = fileName;
+        this.contentLength = contentLength;
+        this.writer = writer;
+    }
+
+    /**
+     * @param zipFile 已打好的 Zip 文件
+     */
+    public static ZipUpload ofFile(Path zipFile) throws IOException {
+        return new ZipUpload(zipFile.getFileName().toString(), Files.size(zipFile), out -> {
+            Files.copy(zipFile, out);
+            return null;
+        });
+    }
+
+    /**
+     * @param fileName 上传的文件名，需以 .zip 结尾
+     * @param options  打包参数
+     * @param sources  待打包的文件或目录
+     */
+    public static ZipUpload ofSources(String fileName, ZipOptions options, Path... sources) {
+        return new ZipUpload(fileName, -1, out -> FileUtils.zipFilesWithDigest(out, options, sources));
+    }
+
+    public ZipUpload withListener(UploadProgressListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * @return 内容长度，边打包边上传时为 -1
+     */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * @return 最近一次写出的字节数
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * @return 最近一次写出的内容的 {@link FileUtils#digest} 摘要，由写入 Zip 的字节计算；{@link #ofFile} 时为 null
+     */
+    public String getContentDigest() {
+        return contentDigest;
+    }
+
+    /**
+     * 把内容写入请求体，每次调用都重新产生内容，因此可在重新登录后重试
+     */
+    void writeTo(OutputStream body) throws IOException {
+        bytesWritten = 0;
+        contentDigest = null;
+        CountingOutputStream out = new CountingOutputStream(body);
+        contentDigest = writer.write(out);
+        out.flush();
+        bytesWritten = out.count;
+        if (listener != null) {
+            listener.onProgress(out.count, contentLength);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ZipWriter {
+        /**
+         * @return 写出内容的摘要，无法计算时为 null
+         */
+        String write(OutputStream out) throws IOException;
+    }
+
+    private class CountingOutputStream extends FilterOutputStream {
+        private long count;
+        private long reported;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            advance(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            advance(len);
+        }
+
+        private void advance(int len) {
+            count += len;
+            bytesWritten = count;
+            if (listener != null && count - reported >= PROGRESS_STEP) {
+                reported = count;
+                listener.onProgress(count, contentLength);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.FormHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.support.AllEncompassingFormHttpMessageConverter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 将 {@link ZipUpload} 作为 multipart 的文件部分直接写入请求体
+ *
+ * @author Yorke
+ */
+public class ZipUploadHttpMessageConverter implements HttpMessageConverter<ZipUpload> {
+
+    private static final MediaType APPLICATION_ZIP = MediaType.parseMediaType("application/zip");
+
+    /**
+     * 支持 {@link ZipUpload} 文件部分的表单转换器
+     */
+    public static FormHttpMessageConverter formConverter() {
+        AllEncompassingFormHttpMessageConverter formConverter = new AllEncompassingFormHttpMessageConverter() {
+            @Override
+            protected String getFilename(Object part) {
+                return part instanceof ZipUpload ? ((ZipUpload) part).getFileName() : super.getFilename(part);
+            }
+        };
+        formConverter.addPartConverter(new ZipUploadHttpMessageConverter());
+        return formConverter;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return ZipUpload.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes() {
+        return Collections.singletonList(APPLICATION_ZIP);
+    }
+
+    @Override
+    public ZipUpload read(Class<? extends ZipUpload> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("ZipUpload is write-only");
+    }
+
+    @Override
+    public void write(ZipUpload zipUpload, MediaType contentType, HttpOutputMessage outputMessage) throws IOException {
+        outputMessage.getHeaders().setContentType(APPLICATION_ZIP);
+        if (zipUpload.getContentLength() >= 0) {
+            outputMessage.getHeaders().setContentLength(zipUpload.getContentLength());
+        }
+        zipUpload.writeTo(outputMessage.getBody());
+    }
+}
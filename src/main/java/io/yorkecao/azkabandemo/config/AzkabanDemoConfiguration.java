@@ -1,21 +1,40 @@
 package io.yorkecao.azkabandemo.config;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.yorkecao.azkabandemo.azkaban.AzkabanExchangeInterceptor;
+import io.yorkecao.azkabandemo.azkaban.ZipUploadHttpMessageConverter;
 import lombok.Getter;
 import lombok.Setter;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.converter.FormHttpMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.client.RestTemplate;
 
+import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Yorke
  */
 @Getter
 @Setter
+@Validated
 @Configuration
 @ConfigurationProperties(prefix = "azkaban-demo")
 public class AzkabanDemoConfiguration {
@@ -23,16 +42,501 @@ public class AzkabanDemoConfiguration {
     @NotBlank private String username;
     @NotBlank private String password;
 
+    private Http http = new Http();
+    private Async async = new Async();
+    private Batch batch = new Batch();
+    private Cache cache = new Cache();
+    private Upload upload = new Upload();
+    private Watcher watcher = new Watcher();
+    private LogTail logTail = new LogTail();
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private Bulkhead bulkhead = new Bulkhead();
+    private Retry retry = new Retry();
+    private RateLimit rateLimit = new RateLimit();
+    private Coalescing coalescing = new Coalescing();
+    private Logging logging = new Logging();
+    private History history = new History();
+    /**
+     * 除 url 指定的默认集群外的其他 Azkaban 集群
+     */
+    @Valid private List<Cluster> clusters = new ArrayList<>();
+    @Valid private Routing routing = new Routing();
+
+    /**
+     * @return url、username、password 指定的默认集群
+     */
+    public Cluster defaultCluster() {
+        Cluster cluster = new Cluster();
+        cluster.setName(Cluster.DEFAULT);
+        cluster.setUrl(url);
+        cluster.setUsername(username);
+        cluster.setPassword(password);
+        return cluster;
+    }
+
+    /**
+     * Azkaban 新版本可能增加执行状态，本地不认识的枚举值绑定为 null 而不是整个响应解析失败
+     */
     @Bean
     public ObjectMapper objectMapper() {
-        return new ObjectMapper();
+        return new ObjectMapper().enable(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL);
+    }
+
+    @Bean
+    public PoolingHttpClientConnectionManager azkabanConnectionManager() {
+        return createConnectionManager();
+    }
+
+    @Bean
+    public CloseableHttpClient azkabanHttpClient(PoolingHttpClientConnectionManager azkabanConnectionManager) {
+        return createHttpClient(azkabanConnectionManager);
+    }
+
+    @Bean
+    @Primary
+    public RestTemplate restTemplate(CloseableHttpClient azkabanHttpClient) {
+        return createRestTemplate(azkabanHttpClient);
     }
 
+    /**
+     * 上传 Zip 使用的 RestTemplate，与 {@link #restTemplate} 共享连接池
+     * <p>
+     * 请求体不缓冲，以分块方式直接写入连接，上传任意大小的文件都只占用固定的堆内存。
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
-        requestFactory.setConnectTimeout(2000);
-        requestFactory.setReadTimeout(2000);
-        return new RestTemplate(requestFactory);
+    public RestTemplate uploadRestTemplate(CloseableHttpClient azkabanHttpClient) {
+        return createUploadRestTemplate(azkabanHttpClient);
+    }
+
+    /**
+     * 异步调用 Azkaban 的有界线程池，队列满时拒绝而不是无限堆积
+     */
+    @Bean
+    public ThreadPoolTaskExecutor azkabanExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(async.getCorePoolSize());
+        executor.setMaxPoolSize(async.getMaxPoolSize());
+        executor.setQueueCapacity(async.getQueueCapacity());
+        executor.setKeepAliveSeconds((int) async.getKeepAlive().getSeconds());
+        executor.setThreadNamePrefix("azkaban-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * 以下方法不是 Bean，每次调用都创建新的实例，供其他集群建立各自的连接池
+     */
+    public PoolingHttpClientConnectionManager createConnectionManager() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(http.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(http.getMaxPerRoute());
+        connectionManager.setValidateAfterInactivity((int) http.getValidateAfterInactivity().toMillis());
+        return connectionManager;
+    }
+
+    public CloseableHttpClient createHttpClient(PoolingHttpClientConnectionManager connectionManager) {
+        long maxKeepAlive = http.getKeepAlive().toMillis();
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy((response, context) -> {
+                    // 服务端未声明 Keep-Alive 时按配置的时长保活
+                    long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return keepAlive > 0 ? Math.min(keepAlive, maxKeepAlive) : maxKeepAlive;
+                })
+                .addInterceptorLast(new AzkabanExchangeInterceptor())
+                .evictExpiredConnections()
+                .evictIdleConnections(http.getIdleTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public RestTemplate createRestTemplate(CloseableHttpClient httpClient) {
+        return new RestTemplate(requestFactory(httpClient, http.getReadTimeout()));
+    }
+
+    public RestTemplate createUploadRestTemplate(CloseableHttpClient httpClient) {
+        HttpComponentsClientHttpRequestFactory requestFactory = requestFactory(httpClient, http.getUploadReadTimeout());
+        requestFactory.setBufferRequestBody(false);
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getMessageConverters().replaceAll(converter -> converter instanceof FormHttpMessageConverter
+                ? ZipUploadHttpMessageConverter.formConverter()
+                : converter);
+        return restTemplate;
+    }
+
+    private HttpComponentsClientHttpRequestFactory requestFactory(CloseableHttpClient httpClient, Duration readTimeout) {
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        requestFactory.setConnectTimeout((int) http.getConnectTimeout().toMillis());
+        requestFactory.setConnectionRequestTimeout((int) http.getConnectionRequestTimeout().toMillis());
+        requestFactory.setReadTimeout((int) readTimeout.toMillis());
+        return requestFactory;
+    }
+
+    /**
+     * 访问 Azkaban 的 HTTP 连接池配置
+     */
+    @Getter
+    @Setter
+    public static class Http {
+        /**
+         * 连接池最大连接数
+         */
+        private int maxTotal = 200;
+        /**
+         * 单个路由（Azkaban 地址）的最大连接数
+         */
+        private int maxPerRoute = 100;
+        /**
+         * 建立连接超时
+         */
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        /**
+         * 从连接池获取连接的超时
+         */
+        private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+        /**
+         * 普通请求的读超时
+         */
+        private Duration readTimeout = Duration.ofSeconds(2);
+        /**
+         * 上传 Zip 的读超时
+         */
+        private Duration uploadReadTimeout = Duration.ofMinutes(5);
+        /**
+         * 服务端未声明 Keep-Alive 时的最长保活时间
+         */
+        private Duration keepAlive = Duration.ofSeconds(30);
+        /**
+         * 空闲超过该时长的连接会被后台线程回收
+         */
+        private Duration idleTimeout = Duration.ofSeconds(30);
+        /**
+         * 空闲超过该时长的连接在复用前重新校验
+         */
+        private Duration validateAfterInactivity = Duration.ofSeconds(2);
+    }
+
+    /**
+     * 异步调用线程池配置
+     */
+    @Getter
+    @Setter
+    public static class Async {
+        /**
+         * 核心线程数
+         */
+        private int corePoolSize = 16;
+        /**
+         * 最大线程数，不应超过连接池的单路由连接数
+         */
+        private int maxPoolSize = 64;
+        /**
+         * 等待队列长度
+         */
+        private int queueCapacity = 1000;
+        /**
+         * 超出核心数的空闲线程存活时间
+         */
+        private Duration keepAlive = Duration.ofSeconds(60);
+    }
+
+    /**
+     * 批量操作配置
+     */
+    @Getter
+    @Setter
+    public static class Batch {
+        /**
+         * 批量执行 flow 时同时在途的请求数
+         */
+        private int concurrency = 16;
+    }
+
+    /**
+     * 项目元数据（flow 列表、projectId、flow 图）缓存配置
+     */
+    @Getter
+    @Setter
+    public static class Cache {
+        /**
+         * 写入后的过期时间
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+        /**
+         * 每类元数据最多缓存的条目数，超出后由 Caffeine 按访问频率与时间（W-TinyLFU）淘汰
+         */
+        private long maximumSize = 1000;
+    }
+
+    /**
+     * 上传配置
+     */
+    @Getter
+    @Setter
+    public static class Upload {
+        /**
+         * 各项目最近一次上传内容摘要的存放文件
+         */
+        private String digestStore = System.getProperty("user.home") + "/.azkaban-demo/upload-digests.properties";
+    }
+
+    /**
+     * 执行状态轮询配置
+     */
+    @Getter
+    @Setter
+    public static class Watcher {
+        /**
+         * 状态变化后的轮询间隔
+         */
+        private Duration minInterval = Duration.ofSeconds(1);
+        /**
+         * 状态长时间不变时轮询间隔的上限
+         */
+        private Duration maxInterval = Duration.ofSeconds(30);
+        /**
+         * 状态不变时每次轮询间隔的放大倍数
+         */
+        private double multiplier = 2.0;
+        /**
+         * 连续查询失败超过该次数后放弃监听
+         */
+        private int maxFailures = 5;
+    }
+
+    /**
+     * job 日志跟踪配置
+     */
+    @Getter
+    @Setter
+    public static class LogTail {
+        /**
+         * 每次读取的最大字节数
+         */
+        private int chunkSize = 64 * 1024;
+        /**
+         * 暂无新日志时的轮询间隔
+         */
+        private Duration pollInterval = Duration.ofSeconds(2);
+        /**
+         * 连续查询执行状态或 job 结束后读取日志失败超过该次数后停止跟踪
+         */
+        private int maxFailures = 5;
+    }
+
+    /**
+     * Azkaban web server 熔断配置
+     */
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+        private boolean enabled = true;
+        /**
+         * 失败率阈值（百分比），达到后熔断
+         */
+        private int failureRateThreshold = 50;
+        /**
+         * 统计失败率的最近调用次数
+         */
+        private int slidingWindowSize = 20;
+        /**
+         * 窗口内至少有多少次调用才计算失败率
+         */
+        private int minimumCalls = 10;
+        /**
+         * 熔断持续时间，之后放行探测调用
+         */
+        private Duration openDuration = Duration.ofSeconds(10);
+        /**
+         * 半开状态放行的探测调用数，全部成功后恢复
+         */
+        private int halfOpenCalls = 3;
+    }
+
+    /**
+     * 按操作分类的并发隔离配置
+     */
+    @Getter
+    @Setter
+    public static class Bulkhead {
+        /**
+         * 各类操作（project、upload、execute、schedule、fetch、cancel）的最大并发数，未配置的不限制
+         */
+        private Map<String, Integer> maxConcurrent = new HashMap<>();
+        /**
+         * 并发已满时的最长等待时间，为 0 时直接拒绝
+         */
+        private Duration maxWait = Duration.ofMillis(500);
+    }
+
+    /**
+     * 幂等操作的重试配置
+     */
+    @Getter
+    @Setter
+    public static class Retry {
+        private boolean enabled = true;
+        /**
+         * 最多调用次数（含首次）
+         */
+        private int maxAttempts = 3;
+        /**
+         * 首次重试的退避上限，实际等待时间在 0 与上限之间随机
+         */
+        private Duration initialInterval = Duration.ofMillis(200);
+        /**
+         * 单次退避上限
+         */
+        private Duration maxInterval = Duration.ofSeconds(2);
+        /**
+         * 每次重试退避上限的放大倍数
+         */
+        private double multiplier = 2.0;
+        /**
+         * 从首次调用开始的总时间预算，超出后不再重试
+         */
+        private Duration maxElapsed = Duration.ofSeconds(5);
+    }
+
+    /**
+     * 按接口分组（manager、executor、schedule）的令牌桶限流配置
+     */
+    @Getter
+    @Setter
+    public static class RateLimit {
+        private boolean enabled = true;
+        /**
+         * 超出限额时排队等待（QUEUE）还是直接拒绝（REJECT）
+         */
+        private Mode mode = Mode.QUEUE;
+        /**
+         * QUEUE 模式下的最长等待时间，预计等待更久时拒绝
+         */
+        private Duration maxWait = Duration.ofSeconds(1);
+        /**
+         * 各接口分组的限额，未配置的不限流
+         */
+        private Map<String, Limit> limits = new HashMap<>();
+
+        public enum Mode {
+            QUEUE, REJECT
+        }
+
+        @Getter
+        @Setter
+        public static class Limit {
+            /**
+             * 每秒允许的请求数
+             */
+            private double permitsPerSecond = 20;
+            /**
+             * 允许的瞬时突发请求数
+             */
+            private int burst = 40;
+        }
+    }
+
+    /**
+     * 相同只读请求的在途合并配置
+     */
+    @Getter
+    @Setter
+    public static class Coalescing {
+        private boolean enabled = true;
+    }
+
+    /**
+     * Azkaban 操作日志配置
+     */
+    @Getter
+    @Setter
+    public static class Logging {
+        /**
+         * 是否为每次操作输出一行摘要（操作、耗时、结果、状态码、字节数）
+         */
+        private boolean enabled = true;
+        /**
+         * 抽样或失败时输出的响应体最大字节数
+         */
+        private int maxPayloadSize = 1024;
+        /**
+         * DEBUG 级别下输出的响应体最大字节数，流式读取的大响应也不会被完整缓冲
+         */
+        private int maxDebugPayloadSize = 64 * 1024;
+        /**
+         * 成功操作输出响应体的抽样比例，0 到 1 之间
+         */
+        private double payloadSampleRate = 0.01;
+    }
+
+    /**
+     * 执行历史遍历与本地存储配置
+     */
+    @Getter
+    @Setter
+    public static class History {
+        /**
+         * 每次拉取的执行条数
+         */
+        private int pageSize = 100;
+        /**
+         * 本地执行历史的存放目录
+         */
+        private String storeDir = System.getProperty("user.home") + "/.azkaban-demo/history";
+    }
+
+    /**
+     * 一个 Azkaban 集群，连接池参数与默认集群相同
+     */
+    @Getter
+    @Setter
+    public static class Cluster {
+        public static final String DEFAULT = "default";
+
+        @NotBlank private String name;
+        @NotBlank private String url;
+        @NotBlank private String username;
+        @NotBlank private String password;
+    }
+
+    /**
+     * 项目到集群的路由配置
+     */
+    @Getter
+    @Setter
+    public static class Routing {
+        /**
+         * 按顺序匹配的规则，项目名匹配 pattern（正则）时固定路由到 cluster
+         */
+        @Valid private List<Rule> rules = new ArrayList<>();
+        /**
+         * 不匹配任何规则的新项目的放置策略
+         */
+        private Placement placement = Placement.ROUND_ROBIN;
+        /**
+         * 项目所在集群的记录文件
+         */
+        private String placementStore = System.getProperty("user.home") + "/.azkaban-demo/cluster-placements.properties";
+        /**
+         * 逐个集群查询后仍未找到的项目在这段时间内不再查询
+         */
+        private Duration missTtl = Duration.ofMinutes(1);
+
+        public enum Placement {
+            /**
+             * 依次轮流
+             */
+            ROUND_ROBIN,
+            /**
+             * 在途请求（连接池中已租用与等待中的连接）最少的集群
+             */
+            LEAST_LOADED
+        }
+
+        @Getter
+        @Setter
+        public static class Rule {
+            @NotBlank private String pattern;
+            @NotBlank private String cluster;
+        }
     }
 }
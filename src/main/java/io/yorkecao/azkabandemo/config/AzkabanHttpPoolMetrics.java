@@ -0,0 +1,51 @@
+package io.yorkecao.azkabandemo.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Azkaban HTTP 连接池指标：已借出、空闲、等待连接的请求数，按 cluster 打标签
+ * <p>
+ * 这里绑定默认集群的连接池，其他集群的连接池由 {@link io.yorkecao.azkabandemo.azkaban.AzkabanClusterRouter} 创建时绑定。
+ *
+ * @author Yorke
+ */
+@Component
+public class AzkabanHttpPoolMetrics implements MeterBinder {
+
+    @Autowired
+    private PoolingHttpClientConnectionManager azkabanConnectionManager;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bind(registry, azkabanConnectionManager, AzkabanDemoConfiguration.Cluster.DEFAULT);
+    }
+
+    /**
+     * @param registry          指标注册表
+     * @param connectionManager 集群的连接池
+     * @param cluster           集群名
+     */
+    public static void bind(MeterRegistry registry, PoolingHttpClientConnectionManager connectionManager, String cluster) {
+        Gauge.builder("azkaban.http.pool.leased", connectionManager, cm -> cm.getTotalStats().getLeased())
+                .description("Connections currently leased to requests")
+                .tag("cluster", cluster)
+                .register(registry);
+        Gauge.builder("azkaban.http.pool.idle", connectionManager, cm -> cm.getTotalStats().getAvailable())
+                .description("Idle connections kept alive in the pool")
+                .tag("cluster", cluster)
+                .register(registry);
+        Gauge.builder("azkaban.http.pool.pending", connectionManager, cm -> cm.getTotalStats().getPending())
+                .description("Requests waiting for a connection")
+                .tag("cluster", cluster)
+                .register(registry);
+        Gauge.builder("azkaban.http.pool.max", connectionManager, cm -> cm.getTotalStats().getMax())
+                .description("Maximum number of pooled connections")
+                .tag("cluster", cluster)
+                .register(registry);
+    }
+}
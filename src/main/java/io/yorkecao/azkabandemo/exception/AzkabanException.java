@@ -15,4 +15,17 @@ public class AzkabanException extends RuntimeException {
         super(message);
         this.code = code;
     }
+
+    public AzkabanException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public AzkabanException(int code, String message, Throwable cause) {
+        super(message, cause);
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
 }
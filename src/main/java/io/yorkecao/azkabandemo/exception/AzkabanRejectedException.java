@@ -0,0 +1,13 @@
+package io.yorkecao.azkabandemo.exception;
+
+/**
+ * 请求未发往 Azkaban 就被本地拒绝，例如熔断器打开或并发隔离已满
+ *
+ * @author Yorke
+ */
+public class AzkabanRejectedException extends AzkabanException {
+
+    public AzkabanRejectedException(String message) {
+        super(503, message);
+    }
+}
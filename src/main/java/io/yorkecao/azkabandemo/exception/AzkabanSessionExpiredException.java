@@ -0,0 +1,23 @@
+package io.yorkecao.azkabandemo.exception;
+
+/**
+ * Azkaban 拒绝了请求所携带的 session.id
+ *
+ * @author Yorke
+ */
+public class AzkabanSessionExpiredException extends AzkabanException {
+
+    private final String sessionId;
+
+    public AzkabanSessionExpiredException(String sessionId) {
+        super(401, "Azkaban session expired.");
+        this.sessionId = sessionId;
+    }
+
+    /**
+     * @return 被拒绝的 session.id
+     */
+    public String getSessionId() {
+        return sessionId;
+    }
+}
@@ -0,0 +1,18 @@
+package io.yorkecao.azkabandemo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Azkaban ajax 响应的公共字段，失败时 error 或 message 不为空
+ *
+ * @author Yorke
+ */
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class AzkabanResponse {
+    private String error;
+    private String message;
+}
@@ -0,0 +1,67 @@
+package io.yorkecao.azkabandemo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * flow 关键路径分析结果，时间单位均为毫秒，以 flow 开始为 0
+ *
+ * @author Yorke
+ */
+@Getter
+@AllArgsConstructor
+public class CriticalPathAnalysis {
+    /**
+     * 不限并发时 flow 的最短总时长，即关键路径长度
+     */
+    private final long makespan;
+    /**
+     * 关键路径上的 job，按执行顺序
+     */
+    private final List<String> criticalPath;
+    /**
+     * 各 job 的时间窗口，按拓扑序
+     */
+    private final Map<String, JobTiming> jobs;
+    /**
+     * 所有 job 尽早开始时同时运行的最大 job 数
+     */
+    private final int maxParallelism;
+    /**
+     * 所有 job 运行时长之和
+     */
+    private final long totalWork;
+
+    /**
+     * @return 平均并行度，即总工作量与关键路径长度之比
+     */
+    public double getAverageParallelism() {
+        return makespan == 0 ? 0 : (double) totalWork / makespan;
+    }
+
+    /**
+     * 一个 job 的最早、最晚开始时间
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class JobTiming {
+        private final String jobId;
+        private final long duration;
+        private final long earliestStart;
+        private final long latestStart;
+
+        public long getEarliestFinish() {
+            return earliestStart + duration;
+        }
+
+        /**
+         * @return 不推迟 flow 结束时间的前提下该 job 可以推迟的时长，关键路径上的 job 为 0
+         */
+        public long getSlack() {
+            return latestStart - earliestStart;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package io.yorkecao.azkabandemo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * 期望的 flow 调度
+ *
+ * @author Yorke
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DesiredSchedule {
+    private String project;
+    private String flow;
+    private String cronExpression;
+    private List<String> slaEmails;
+    /**
+     * 为 null 时不管理该调度的 SLA，为空列表时期望没有 SLA 规则
+     */
+    private List<SlaSetting> slaSettings;
+
+    public DesiredSchedule(String project, String flow, String cronExpression) {
+        this(project, flow, cronExpression, null, null);
+    }
+}
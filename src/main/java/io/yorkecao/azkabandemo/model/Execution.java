@@ -0,0 +1,41 @@
+package io.yorkecao.azkabandemo.model;
+
+import azkaban.executor.Status;
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一次 flow 执行
+ * <p>
+ * fetchFlowExecutions 中的条目只有概要字段；fetchexecflow 的响应还包含各 job 的 nodes。
+ * 尚未开始或结束的时间为 -1。
+ *
+ * @author Yorke
+ */
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class Execution extends AzkabanResponse {
+    @JsonAlias("execid")
+    private long execId;
+    private String project;
+    private long projectId;
+    private String flowId;
+    private Status status;
+    private String submitUser;
+    private long submitTime = -1;
+    private long startTime = -1;
+    private long endTime = -1;
+    private long updateTime = -1;
+    private int attempt;
+    private List<ExecutionNode> nodes = Collections.emptyList();
+
+    public boolean isFinished() {
+        return status != null && Status.isStatusFinished(status);
+    }
+}
@@ -0,0 +1,44 @@
+package io.yorkecao.azkabandemo.model;
+
+import azkaban.executor.Status;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 执行中的一个 job，内嵌 flow 的子 job 在 nodes 中
+ *
+ * @author Yorke
+ */
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ExecutionNode {
+    private String id;
+    /**
+     * 内嵌 flow 中 job 的完整路径，如 embedded:job
+     */
+    private String nestedId;
+    private String type;
+    private Status status;
+    private long startTime = -1;
+    private long endTime = -1;
+    private long updateTime = -1;
+    private int attempt;
+    private List<String> in = Collections.emptyList();
+    private List<ExecutionNode> nodes = Collections.emptyList();
+
+    /**
+     * @return 查询日志时使用的 jobId
+     */
+    public String getJobId() {
+        return nestedId != null ? nestedId : id;
+    }
+
+    public boolean isFinished() {
+        return status != null && Status.isStatusFinished(status);
+    }
+}
@@ -0,0 +1,29 @@
+package io.yorkecao.azkabandemo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * fetchFlowExecutions 的一页结果，按执行时间倒序
+ *
+ * @author Yorke
+ */
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ExecutionPage extends AzkabanResponse {
+    private String project;
+    private long projectId;
+    private String flow;
+    private int from;
+    private int length;
+    /**
+     * 该 flow 的执行总数
+     */
+    private int total;
+    private List<Execution> executions = Collections.emptyList();
+}
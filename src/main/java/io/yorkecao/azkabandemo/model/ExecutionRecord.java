@@ -0,0 +1,70 @@
+package io.yorkecao.azkabandemo.model;
+
+import azkaban.executor.Status;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 本地执行历史中的一条记录，只保留统计需要的字段
+ *
+ * @author Yorke
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ExecutionRecord {
+    private long execId;
+    private Status status;
+    private long submitTime = -1;
+    private long startTime = -1;
+    private long endTime = -1;
+
+    public static ExecutionRecord of(Execution execution) {
+        ExecutionRecord record = new ExecutionRecord();
+        record.execId = execution.getExecId();
+        record.status = execution.getStatus();
+        record.submitTime = execution.getSubmitTime();
+        record.startTime = execution.getStartTime();
+        record.endTime = execution.getEndTime();
+        return record;
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status != null && Status.isStatusFinished(status);
+    }
+
+    @JsonIgnore
+    public boolean isFailed() {
+        return status == Status.FAILED || status == Status.KILLED;
+    }
+
+    /**
+     * @return 运行时长（毫秒），尚未开始或结束时为 -1
+     */
+    @JsonIgnore
+    public long getDuration() {
+        return startTime > 0 && endTime >= startTime ? endTime - startTime : -1;
+    }
+
+    /**
+     * @return 与另一条记录的所有字段是否相同，相同时同步不再写入
+     */
+    public boolean sameAs(ExecutionRecord other) {
+        return other != null
+                && execId == other.execId
+                && status == other.status
+                && submitTime == other.submitTime
+                && startTime == other.startTime
+                && endTime == other.endTime;
+    }
+
+    @Override
+    public String toString() {
+        return execId + ":" + status;
+    }
+}
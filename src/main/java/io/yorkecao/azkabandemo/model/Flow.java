@@ -0,0 +1,25 @@
+package io.yorkecao.azkabandemo.model;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * flow 及其 job 依赖，即 fetchflowgraph 的响应
+ *
+ * @author Yorke
+ */
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class Flow extends AzkabanResponse {
+    private String project;
+    private long projectId;
+    @JsonAlias("flow")
+    private String flowId;
+    private List<FlowNode> nodes = Collections.emptyList();
+}
@@ -0,0 +1,198 @@
+package io.yorkecao.azkabandemo.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * flow 中 job 的依赖图
+ * <p>
+ * 由 fetchflowgraph 的结果构建，job 按拓扑序保存；结合各 job 的运行时长可计算关键路径、
+ * 每个 job 的松弛时间以及不限并发时能达到的并行度。
+ *
+ * @author Yorke
+ */
+public class FlowDag {
+
+    private final Map<String, List<String>> upstream;
+    private final Map<String, List<String>> downstream;
+    private final List<String> order;
+
+    private FlowDag(Map<String, List<String>> upstream, Map<String, List<String>> downstream, List<String> order) {
+        this.upstream = upstream;
+        this.downstream = downstream;
+        this.order = order;
+    }
+
+    /**
+     * @param flow fetchflowgraph 的结果
+     * @return 依赖图
+     * @throws IllegalArgumentException 依赖中存在环或引用了不存在的 job
+     */
+    public static FlowDag of(Flow flow) {
+        Map<String, List<String>> upstream = new LinkedHashMap<>();
+        Map<String, List<String>> downstream = new LinkedHashMap<>();
+        for (FlowNode node : flow.getNodes()) {
+            upstream.put(node.getId(), node.getIn() == null ? Collections.<String>emptyList() : node.getIn());
+            downstream.put(node.getId(), new ArrayList<>());
+        }
+        for (Map.Entry<String, List<String>> entry : upstream.entrySet()) {
+            for (String in : entry.getValue()) {
+                List<String> successors = downstream.get(in);
+                if (successors == null) {
+                    throw new IllegalArgumentException("Job " + entry.getKey() + " depends on unknown job " + in);
+                }
+                successors.add(entry.getKey());
+            }
+        }
+
+        // Kahn 算法，同时检查环
+        Map<String, Integer> inDegree = new HashMap<>();
+        Deque<String> ready = new ArrayDeque<>();
+        for (Map.Entry<String, List<String>> entry : upstream.entrySet()) {
+            inDegree.put(entry.getKey(), entry.getValue().size());
+            if (entry.getValue().isEmpty()) {
+                ready.add(entry.getKey());
+            }
+        }
+        List<String> order = new ArrayList<>(upstream.size());
+        while (!ready.isEmpty()) {
+            String jobId = ready.poll();
+            order.add(jobId);
+            for (String successor : downstream.get(jobId)) {
+                if (inDegree.merge(successor, -1, Integer::sum) == 0) {
+                    ready.add(successor);
+                }
+            }
+        }
+        if (order.size() != upstream.size()) {
+            throw new IllegalArgumentException("Flow " + flow.getFlowId() + " has a dependency cycle");
+        }
+        return new FlowDag(upstream, downstream, Collections.unmodifiableList(order));
+    }
+
+    /**
+     * @return 按拓扑序排列的 jobId
+     */
+    public List<String> getJobIds() {
+        return order;
+    }
+
+    public List<String> getUpstream(String jobId) {
+        return upstream.getOrDefault(jobId, Collections.<String>emptyList());
+    }
+
+    public List<String> getDownstream(String jobId) {
+        return downstream.getOrDefault(jobId, Collections.<String>emptyList());
+    }
+
+    /**
+     * 按各 job 的运行时长计算关键路径
+     *
+     * @param durations jobId 到运行时长（毫秒），缺失的按 0 计
+     * @return 分析结果
+     */
+    public CriticalPathAnalysis analyze(Map<String, Long> durations) {
+        Map<String, Long> earliestStart = new HashMap<>();
+        Map<String, Long> earliestFinish = new HashMap<>();
+        long makespan = 0;
+        for (String jobId : order) {
+            long start = 0;
+            for (String in : upstream.get(jobId)) {
+                start = Math.max(start, earliestFinish.get(in));
+            }
+            long finish = start + durationOf(durations, jobId);
+            earliestStart.put(jobId, start);
+            earliestFinish.put(jobId, finish);
+            makespan = Math.max(makespan, finish);
+        }
+
+        Map<String, Long> latestFinish = new HashMap<>();
+        Map<String, CriticalPathAnalysis.JobTiming> timings = new LinkedHashMap<>();
+        for (int i = order.size() - 1; i >= 0; i--) {
+            String jobId = order.get(i);
+            long finish = makespan;
+            for (String out : downstream.get(jobId)) {
+                finish = Math.min(finish, latestFinish.get(out) - durationOf(durations, out));
+            }
+            latestFinish.put(jobId, finish);
+        }
+        for (String jobId : order) {
+            long duration = durationOf(durations, jobId);
+            timings.put(jobId, new CriticalPathAnalysis.JobTiming(jobId, duration, earliestStart.get(jobId),
+                    latestFinish.get(jobId) - duration));
+        }
+
+        return new CriticalPathAnalysis(makespan, criticalPath(timings), timings, maxParallelism(timings.values()),
+                totalWork(timings.values()));
+    }
+
+    /**
+     * 从没有松弛的起点沿没有松弛的下游走到终点
+     */
+    private List<String> criticalPath(Map<String, CriticalPathAnalysis.JobTiming> timings) {
+        List<String> path = new ArrayList<>();
+        String current = null;
+        for (String jobId : order) {
+            CriticalPathAnalysis.JobTiming timing = timings.get(jobId);
+            if (upstream.get(jobId).isEmpty() && timing.getSlack() == 0) {
+                current = jobId;
+                break;
+            }
+        }
+        while (current != null) {
+            path.add(current);
+            long finish = timings.get(current).getEarliestFinish();
+            String next = null;
+            for (String out : downstream.get(current)) {
+                CriticalPathAnalysis.JobTiming timing = timings.get(out);
+                if (timing.getSlack() == 0 && timing.getEarliestStart() == finish) {
+                    next = out;
+                    break;
+                }
+            }
+            current = next;
+        }
+        return path;
+    }
+
+    /**
+     * 所有 job 都在最早开始时间运行时，同一时刻最多有多少个 job 在运行
+     */
+    private static int maxParallelism(Iterable<CriticalPathAnalysis.JobTiming> timings) {
+        List<long[]> events = new ArrayList<>();
+        for (CriticalPathAnalysis.JobTiming timing : timings) {
+            if (timing.getDuration() > 0) {
+                events.add(new long[]{timing.getEarliestStart(), 1});
+                events.add(new long[]{timing.getEarliestFinish(), -1});
+            }
+        }
+        // 同一时刻先结束后开始，首尾相接的 job 不算并行
+        events.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        int running = 0;
+        int max = 0;
+        for (long[] event : events) {
+            running += event[1];
+            max = Math.max(max, running);
+        }
+        return max;
+    }
+
+    private static long totalWork(Iterable<CriticalPathAnalysis.JobTiming> timings) {
+        long total = 0;
+        for (CriticalPathAnalysis.JobTiming timing : timings) {
+            total += timing.getDuration();
+        }
+        return total;
+    }
+
+    private static long durationOf(Map<String, Long> durations, String jobId) {
+        Long duration = durations.get(jobId);
+        return duration == null || duration < 0 ? 0 : duration;
+    }
+}
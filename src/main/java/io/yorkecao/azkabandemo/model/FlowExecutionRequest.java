@@ -0,0 +1,30 @@
+package io.yorkecao.azkabandemo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Map;
+
+/**
+ * 批量执行中的一个 flow
+ *
+ * @author Yorke
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlowExecutionRequest {
+    private String project;
+    private String flow;
+    /**
+     * 执行参数，如 flowOverride[key]、concurrentOption 等，可为 null
+     */
+    private Map<String, Object> params;
+
+    public FlowExecutionRequest(String project, String flow) {
+        this(project, flow, null);
+    }
+}
@@ -0,0 +1,33 @@
+package io.yorkecao.azkabandemo.model;
+
+import lombok.Getter;
+
+/**
+ * 批量执行中单个 flow 的结果，execId 与 error 二者有且仅有一个
+ *
+ * @author Yorke
+ */
+@Getter
+public class FlowExecutionResult {
+    private final FlowExecutionRequest request;
+    private final String execId;
+    private final Throwable error;
+
+    private FlowExecutionResult(FlowExecutionRequest request, String execId, Throwable error) {
+        this.request = request;
+        this.execId = execId;
+        this.error = error;
+    }
+
+    public static FlowExecutionResult success(FlowExecutionRequest request, String execId) {
+        return new FlowExecutionResult(request, execId, null);
+    }
+
+    public static FlowExecutionResult failure(FlowExecutionRequest request, Throwable error) {
+        return new FlowExecutionResult(request, null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -0,0 +1,25 @@
+package io.yorkecao.azkabandemo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * flow 图中的一个 job
+ *
+ * @author Yorke
+ */
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class FlowNode {
+    private String id;
+    private String type;
+    /**
+     * 上游 job 的 ID
+     */
+    private List<String> in = Collections.emptyList();
+}
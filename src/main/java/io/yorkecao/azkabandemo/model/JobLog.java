@@ -0,0 +1,19 @@
+package io.yorkecao.azkabandemo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * fetchExecJobLogs 返回的一段 job 日志
+ *
+ * @author Yorke
+ */
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class JobLog extends AzkabanResponse {
+    private String data;
+    private long offset;
+    private int length;
+}
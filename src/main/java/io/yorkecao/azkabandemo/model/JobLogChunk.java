@@ -0,0 +1,22 @@
+package io.yorkecao.azkabandemo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 一次 fetchExecJobLogs 返回的日志片段位置，日志内容已直接写入调用方提供的输出
+ *
+ * @author Yorke
+ */
+@Getter
+@AllArgsConstructor
+public class JobLogChunk {
+    /**
+     * 片段在日志文件中的起始字节位置
+     */
+    private final long offset;
+    /**
+     * 片段的字节长度，为 0 表示暂无新日志
+     */
+    private final int length;
+}
@@ -0,0 +1,25 @@
+package io.yorkecao.azkabandemo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * fetchprojectflows 的响应
+ *
+ * @author Yorke
+ */
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProjectFlows extends AzkabanResponse {
+    private String project;
+    private long projectId;
+    /**
+     * 项目中的 flow，只有 flowId
+     */
+    private List<Flow> flows = Collections.emptyList();
+}
@@ -0,0 +1,25 @@
+package io.yorkecao.azkabandemo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Map;
+
+/**
+ * fetchSchedule 返回的调度
+ *
+ * @author Yorke
+ */
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class Schedule {
+    private String scheduleId;
+    private String cronExpression;
+    private String period;
+    private String submitUser;
+    private String firstSchedTime;
+    private String nextExecTime;
+    private Map<String, Object> executionOptions;
+}
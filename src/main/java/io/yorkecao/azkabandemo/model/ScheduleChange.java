@@ -0,0 +1,35 @@
+package io.yorkecao.azkabandemo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 调度对账得出的一项变更
+ *
+ * @author Yorke
+ */
+@Getter
+@AllArgsConstructor
+public class ScheduleChange {
+    private final Action action;
+    private final String project;
+    private final long projectId;
+    private final String flow;
+    /**
+     * 现有调度的 ID，CREATE 时为 null
+     */
+    private final String scheduleId;
+    /**
+     * 期望的调度，REMOVE 时为 null
+     */
+    private final DesiredSchedule desired;
+
+    public enum Action {
+        CREATE, UPDATE, UPDATE_SLA, REMOVE
+    }
+
+    @Override
+    public String toString() {
+        return action + " " + project + "/" + flow + (desired == null ? "" : " [" + desired.getCronExpression() + "]");
+    }
+}
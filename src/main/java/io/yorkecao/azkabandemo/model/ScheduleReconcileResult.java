@@ -0,0 +1,33 @@
+package io.yorkecao.azkabandemo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一次调度对账的结果
+ *
+ * @author Yorke
+ */
+@Getter
+@AllArgsConstructor
+public class ScheduleReconcileResult {
+    /**
+     * 成功应用的变更
+     */
+    private final List<ScheduleChange> applied;
+    /**
+     * 应用失败的变更及原因，单项失败不影响其他变更
+     */
+    private final Map<ScheduleChange, Throwable> failures;
+    /**
+     * 已与期望一致、无需变更的调度数
+     */
+    private final int unchanged;
+
+    public boolean isSuccess() {
+        return failures.isEmpty();
+    }
+}
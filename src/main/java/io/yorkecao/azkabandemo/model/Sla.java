@@ -0,0 +1,21 @@
+package io.yorkecao.azkabandemo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * slaInfo 的响应，调度没有 SLA 时各列表为空
+ *
+ * @author Yorke
+ */
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class Sla extends AzkabanResponse {
+    private List<String> slaEmails = Collections.emptyList();
+    private List<SlaSetting> settings = Collections.emptyList();
+}
@@ -0,0 +1,106 @@
+package io.yorkecao.azkabandemo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 一条 SLA 规则，slaInfo 返回的 settings 元素，也用于 setSla
+ *
+ * @author Yorke
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SlaSetting {
+    public static final String EMAIL = "EMAIL";
+    public static final String KILL = "KILL";
+
+    private static final Pattern PERIOD = Pattern.compile("(\\d+)([dhm])");
+
+    /**
+     * job ID，为空时作用于整个 flow
+     */
+    private String id = "";
+    /**
+     * SUCCESS 或 FINISH
+     */
+    private String rule;
+    /**
+     * setSla 使用 h:mm，slaInfo 返回 1h30m 这样的周期串，比较时统一换算为分钟
+     */
+    private String duration;
+    private List<String> actions = Collections.emptyList();
+
+    public static SlaSetting of(String jobId, String rule, String duration, boolean emailAction, boolean killAction) {
+        List<String> actions = new ArrayList<>();
+        if (emailAction) {
+            actions.add(EMAIL);
+        }
+        if (killAction) {
+            actions.add(KILL);
+        }
+        return new SlaSetting(jobId == null ? "" : jobId, rule, duration, actions);
+    }
+
+    /**
+     * @return setSla 的 settings[i] 参数：id,rule,duration,emailAction,killAction
+     */
+    public String toParam() {
+        long minutes = minutes(duration);
+        return String.join(",", jobId(), rule, String.format("%d:%02d", minutes / 60, minutes % 60),
+                String.valueOf(actions.contains(EMAIL)), String.valueOf(actions.contains(KILL)));
+    }
+
+    public boolean sameAs(SlaSetting other) {
+        return jobId().equals(other.jobId())
+                && String.valueOf(rule).equalsIgnoreCase(String.valueOf(other.rule))
+                && minutes(duration) == minutes(other.duration)
+                && new HashSet<>(actions).equals(new HashSet<>(other.actions));
+    }
+
+    private String jobId() {
+        return id == null ? "" : id;
+    }
+
+    /**
+     * @param duration h:mm 或 2d3h30m 形式
+     * @return 分钟数
+     */
+    static long minutes(String duration) {
+        if (duration == null || duration.isEmpty()) {
+            return 0;
+        }
+        int colon = duration.indexOf(':');
+        if (colon >= 0) {
+            return Long.parseLong(duration.substring(0, colon).trim()) * 60 + Long.parseLong(duration.substring(colon + 1).trim());
+        }
+        long minutes = 0;
+        Matcher matcher = PERIOD.matcher(duration.toLowerCase());
+        while (matcher.find()) {
+            long value = Long.parseLong(matcher.group(1));
+            switch (matcher.group(2)) {
+                case "d":
+                    minutes += value * 24 * 60;
+                    break;
+                case "h":
+                    minutes += value * 60;
+                    break;
+                default:
+                    minutes += value;
+            }
+        }
+        return minutes;
+    }
+}
@@ -0,0 +1,143 @@
+package io.yorkecao.azkabandemo.resilience;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.yorkecao.azkabandemo.azkaban.AzkabanEndpoint;
+import io.yorkecao.azkabandemo.azkaban.AzkabanOperationType;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Azkaban web server 的熔断器、各类操作的并发隔离与各接口分组的限流
+ * <p>
+ * 每个集群各有一套，按同样的配置在首次调用时创建；一个集群不可用时只有该集群的熔断器打开。
+ *
+ * @author Yorke
+ */
+@Component
+public class AzkabanResilience implements MeterBinder {
+
+    @Autowired
+    private AzkabanDemoConfiguration config;
+
+    private final ConcurrentMap<String, Guards> clusters = new ConcurrentHashMap<>();
+    private volatile MeterRegistry registry;
+
+    @PostConstruct
+    public void init() {
+        guards(AzkabanDemoConfiguration.Cluster.DEFAULT);
+    }
+
+    /**
+     * @param cluster 集群名
+     * @return 该集群的熔断器，未启用时为 null
+     */
+    public CircuitBreaker getCircuitBreaker(String cluster) {
+        return guards(cluster).circuitBreaker;
+    }
+
+    /**
+     * @param cluster 集群名
+     * @param type    操作分类
+     * @return 该集群上这类操作的并发隔离，未配置时为 null
+     */
+    public Bulkhead getBulkhead(String cluster, AzkabanOperationType type) {
+        return guards(cluster).bulkheads.get(type);
+    }
+
+    /**
+     * @param cluster  集群名
+     * @param endpoint 接口分组
+     * @return 该集群上这个分组的令牌桶，未配置时为 null
+     */
+    public TokenBucket getRateLimiter(String cluster, AzkabanEndpoint endpoint) {
+        return guards(cluster).rateLimiters.get(endpoint);
+    }
+
+    private Guards guards(String cluster) {
+        Guards guards = clusters.get(cluster);
+        if (guards == null) {
+            Guards created = new Guards(cluster);
+            guards = clusters.putIfAbsent(cluster, created);
+            if (guards == null) {
+                guards = created;
+                MeterRegistry current = registry;
+                if (current != null) {
+                    bind(cluster, created, current);
+                }
+            }
+        }
+        return guards;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        clusters.forEach((cluster, guards) -> bind(cluster, guards, registry));
+    }
+
+    private static void bind(String cluster, Guards guards, MeterRegistry registry) {
+        if (guards.circuitBreaker != null) {
+            Gauge.builder("azkaban.circuit.breaker.state", guards.circuitBreaker, breaker -> breaker.getState().ordinal())
+                    .description("0 closed, 1 open, 2 half-open")
+                    .tag("cluster", cluster)
+                    .register(registry);
+        }
+        guards.bulkheads.forEach((type, bulkhead) -> {
+            Gauge.builder("azkaban.bulkhead.available", bulkhead, Bulkhead::getAvailable)
+                    .tag("cluster", cluster)
+                    .tag("type", type.tag())
+                    .register(registry);
+            Gauge.builder("azkaban.bulkhead.max", bulkhead, Bulkhead::getMaxConcurrent)
+                    .tag("cluster", cluster)
+                    .tag("type", type.tag())
+                    .register(registry);
+        });
+        guards.rateLimiters.forEach((endpoint, rateLimiter) -> Gauge.builder("azkaban.rate.limiter.waiting", rateLimiter, TokenBucket::getWaiting)
+                .description("Calls queued for a rate limiter token")
+                .tag("cluster", cluster)
+                .tag("endpoint", endpoint.tag())
+                .register(registry));
+    }
+
+    /**
+     * 一个集群的熔断器、并发隔离与限流
+     */
+    private class Guards {
+        private final CircuitBreaker circuitBreaker;
+        private final Map<AzkabanOperationType, Bulkhead> bulkheads = new EnumMap<>(AzkabanOperationType.class);
+        private final Map<AzkabanEndpoint, TokenBucket> rateLimiters = new EnumMap<>(AzkabanEndpoint.class);
+
+        private Guards(String cluster) {
+            AzkabanDemoConfiguration.CircuitBreaker breakerConfig = config.getCircuitBreaker();
+            circuitBreaker = breakerConfig.isEnabled()
+                    ? new CircuitBreaker("azkaban-" + cluster, breakerConfig.getFailureRateThreshold(), breakerConfig.getSlidingWindowSize(),
+                    breakerConfig.getMinimumCalls(), breakerConfig.getOpenDuration(), breakerConfig.getHalfOpenCalls())
+                    : null;
+            AzkabanDemoConfiguration.Bulkhead bulkheadConfig = config.getBulkhead();
+            for (AzkabanOperationType type : AzkabanOperationType.values()) {
+                Integer maxConcurrent = bulkheadConfig.getMaxConcurrent().get(type.tag());
+                if (maxConcurrent != null && maxConcurrent > 0) {
+                    bulkheads.put(type, new Bulkhead(maxConcurrent, bulkheadConfig.getMaxWait()));
+                }
+            }
+            AzkabanDemoConfiguration.RateLimit rateLimitConfig = config.getRateLimit();
+            if (rateLimitConfig.isEnabled()) {
+                for (AzkabanEndpoint endpoint : AzkabanEndpoint.values()) {
+                    AzkabanDemoConfiguration.RateLimit.Limit limit = rateLimitConfig.getLimits().get(endpoint.tag());
+                    if (limit != null && limit.getPermitsPerSecond() > 0) {
+                        rateLimiters.put(endpoint, new TokenBucket(limit.getPermitsPerSecond(), limit.getBurst()));
+                    }
+                }
+            }
+        }
+    }
+}
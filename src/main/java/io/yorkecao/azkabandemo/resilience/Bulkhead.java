@@ -0,0 +1,48 @@
+package io.yorkecao.azkabandemo.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 并发隔离，限制一类操作同时在途的调用数
+ *
+ * @author Yorke
+ */
+public class Bulkhead {
+
+    private final int maxConcurrent;
+    private final long maxWaitNanos;
+    private final Semaphore semaphore;
+
+    /**
+     * @param maxConcurrent 最大并发数
+     * @param maxWait       并发已满时的最长等待时间，为 0 时直接拒绝
+     */
+    public Bulkhead(int maxConcurrent, Duration maxWait) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.semaphore = new Semaphore(maxConcurrent, true);
+    }
+
+    /**
+     * @return 是否在等待时间内获得许可，获得后必须调用 {@link #release()}
+     */
+    public boolean tryAcquire() throws InterruptedException {
+        return maxWaitNanos > 0
+                ? semaphore.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)
+                : semaphore.tryAcquire();
+    }
+
+    public void release() {
+        semaphore.release();
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getAvailable() {
+        return semaphore.availablePermits();
+    }
+}
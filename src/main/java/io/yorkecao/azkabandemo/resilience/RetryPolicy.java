@@ -0,0 +1,56 @@
+package io.yorkecao.azkabandemo.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 带随机抖动的指数退避重试策略
+ * <p>
+ * 第 n 次重试前等待 [0, min(maxInterval, initialInterval * multiplier^(n-1))) 内的随机时长，
+ * 避免大量调用方在同一时刻重试；总耗时超过 maxElapsed 后不再重试。
+ *
+ * @author Yorke
+ */
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long initialIntervalNanos;
+    private final long maxIntervalNanos;
+    private final double multiplier;
+    private final long maxElapsedNanos;
+
+    /**
+     * @param maxAttempts     最多调用次数（含首次）
+     * @param initialInterval 首次重试的退避上限
+     * @param maxInterval     单次退避上限
+     * @param multiplier      退避上限的放大倍数
+     * @param maxElapsed      从首次调用开始的总时间预算
+     */
+    public RetryPolicy(int maxAttempts, Duration initialInterval, Duration maxInterval, double multiplier, Duration maxElapsed) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialIntervalNanos = initialInterval.toNanos();
+        this.maxIntervalNanos = maxInterval.toNanos();
+        this.multiplier = multiplier;
+        this.maxElapsedNanos = maxElapsed.toNanos();
+    }
+
+    /**
+     * 计算下一次重试前的等待时间
+     *
+     * @param attempt 已完成的调用次数
+     * @param elapsed 从首次调用开始已经过的纳秒数
+     * @return 等待的纳秒数，不再重试时为 -1
+     */
+    public long backoffNanos(int attempt, long elapsed) {
+        if (attempt >= maxAttempts) {
+            return -1;
+        }
+        double ceiling = Math.min(maxIntervalNanos, initialIntervalNanos * Math.pow(multiplier, attempt - 1));
+        long backoff = (long) (ThreadLocalRandom.current().nextDouble() * ceiling);
+        return elapsed + backoff > maxElapsedNanos ? -1 : backoff;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+}
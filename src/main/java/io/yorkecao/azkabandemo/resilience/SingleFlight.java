@@ -0,0 +1,59 @@
+package io.yorkecao.azkabandemo.resilience;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 合并相同 key 的并发调用：第一个调用方执行，其余调用方等待并共享它的结果或异常
+ * <p>
+ * 只合并在途的调用，调用完成后立即移除，之后到达的调用重新执行，不会读到旧结果。
+ *
+ * @author Yorke
+ */
+public class SingleFlight<K> {
+
+    private final ConcurrentMap<K, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param key  调用的标识，equals 相同的调用会被合并
+     * @param call 实际的调用
+     * @return 本次或同 key 在途调用的结果
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(K key, Call<T> call) throws Throwable {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            try {
+                return (T) leader.get();
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            }
+        }
+        T result;
+        try {
+            result = call.call();
+        } catch (Throwable e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        inFlight.remove(key, flight);
+        flight.complete(result);
+        return result;
+    }
+
+    /**
+     * @return 当前在途的调用数
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    @FunctionalInterface
+    public interface Call<T> {
+        T call() throws Throwable;
+    }
+}
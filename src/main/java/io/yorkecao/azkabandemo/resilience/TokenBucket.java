@@ -0,0 +1,98 @@
+package io.yorkecao.azkabandemo.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * 令牌桶限流
+ * <p>
+ * 令牌按固定速率补充，最多积攒 burst 个。令牌不足时预留下一个令牌并在锁外等待，
+ * 等待的调用方按到达顺序依次获得令牌；预计等待超过上限时直接拒绝。
+ *
+ * @author Yorke
+ */
+public class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double capacity;
+    private final LongSupplier clock;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param permitsPerSecond 每秒补充的令牌数
+     * @param burst            桶容量，允许的瞬时突发
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    TokenBucket(double permitsPerSecond, int burst, LongSupplier clock) {
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(1, burst);
+        this.clock = clock;
+        this.tokens = capacity;
+        this.lastRefill = clock.getAsLong();
+    }
+
+    /**
+     * 获取一个令牌
+     *
+     * @param maxWaitNanos 最长等待时间，为 0 时只在有现成令牌时成功
+     * @return 是否获得令牌
+     */
+    public boolean tryAcquire(long maxWaitNanos) throws InterruptedException {
+        long wait = reserve(maxWaitNanos);
+        if (wait < 0) {
+            return false;
+        }
+        if (wait > 0) {
+            waiting.incrementAndGet();
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                // 被中断的调用方不再使用预留的令牌，归还给后来者
+                unreserve();
+                throw e;
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 预留一个令牌
+     *
+     * @return 令牌可用前需要等待的纳秒数，超过 maxWaitNanos 时不预留并返回 -1
+     */
+    synchronized long reserve(long maxWaitNanos) {
+        long now = clock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        long wait = (long) Math.ceil((1 - tokens) / permitsPerNano);
+        if (wait > maxWaitNanos) {
+            return -1;
+        }
+        tokens -= 1;
+        return wait;
+    }
+
+    private synchronized void unreserve() {
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    /**
+     * @return 正在等待令牌的调用数
+     */
+    public int getWaiting() {
+        return waiting.get();
+    }
+}
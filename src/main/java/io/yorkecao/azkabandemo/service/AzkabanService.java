@@ -1,21 +1,137 @@
 package io.yorkecao.azkabandemo.service;
 
+import io.yorkecao.azkabandemo.azkaban.AsyncAzkabanAdapter;
 import io.yorkecao.azkabandemo.azkaban.AzkabanAdapter;
+import io.yorkecao.azkabandemo.azkaban.AzkabanClusterRouter;
+import io.yorkecao.azkabandemo.azkaban.ZipUpload;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.model.FlowExecutionRequest;
+import io.yorkecao.azkabandemo.model.FlowExecutionResult;
+import io.yorkecao.azkabandemo.utils.FileUtils;
+import io.yorkecao.azkabandemo.utils.ZipOptions;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
 
 /**
+ * 项目级操作都经由 {@link AzkabanClusterRouter} 路由到项目所在的集群
+ *
  * @author Yorke
  */
+@Slf4j
 @Service
 public class AzkabanService {
 
     @Autowired
-    private AzkabanAdapter azkabanAdapter;
+    private AzkabanClusterRouter clusterRouter;
+    @Autowired
+    private AsyncAzkabanAdapter asyncAzkabanAdapter;
+    @Autowired
+    private AzkabanDemoConfiguration config;
+    @Autowired
+    private UploadDigestStore uploadDigestStore;
 
     public void scheduleFlow(String projectName, String flowName, String cronExpression) throws IOException {
-        azkabanAdapter.scheduleFlow(projectName, flowName, cronExpression);
+        clusterRouter.forProject(projectName).scheduleFlow(projectName, flowName, cronExpression);
+    }
+
+    /**
+     * 在按路由规则或放置策略选定的集群上创建项目
+     *
+     * @param projectName 项目名称
+     * @param description 项目描述
+     * @return 项目所在的集群
+     */
+    public String createProject(String projectName, String description) {
+        return clusterRouter.createProject(projectName, description).getName();
+    }
+
+    /**
+     * 打包并上传项目，内容与上次上传相同时跳过
+     * <p>
+     * 摘要只取决于条目名与文件内容，与文件顺序和修改时间无关；上传成功后才记录摘要，
+     * 记录的是由实际写入 Zip 的字节计算的摘要，打包期间文件被修改时下次会重新上传。
+     *
+     * @param projectName 项目名称
+     * @param options     打包参数
+     * @param sources     待打包的文件或目录
+     * @return 是否实际上传
+     */
+    public boolean uploadIfChanged(String projectName, ZipOptions options, Path... sources) throws IOException {
+        String digest = FileUtils.digest(sources);
+        if (digest.equals(uploadDigestStore.get(projectName))) {
+            log.info("Azkaban Project {} unchanged ({}), skip upload", projectName, digest);
+            return false;
+        }
+        ZipUpload zipUpload = ZipUpload.ofSources(projectName + ".zip", options, sources);
+        clusterRouter.forProject(projectName).uploadZip(projectName, zipUpload);
+        uploadDigestStore.put(projectName, zipUpload.getContentDigest());
+        return true;
+    }
+
+    /**
+     * 删除项目，同时清除其上传摘要，重建同名项目时会重新上传
+     *
+     * @param projectName 项目名称
+     */
+    public void deleteProject(String projectName) {
+        clusterRouter.deleteProject(projectName);
+        uploadDigestStore.remove(projectName);
+    }
+
+    /**
+     * 批量执行 flow，并发数取 azkaban-demo.batch.concurrency
+     *
+     * @param requests 待执行的 flow
+     * @return 与 requests 一一对应的执行结果
+     */
+    public List<FlowExecutionResult> executeFlows(List<FlowExecutionRequest> requests) {
+        return executeFlows(requests, config.getBatch().getConcurrency());
+    }
+
+    /**
+     * 批量执行 flow
+     * <p>
+     * 同一集群上的请求共享会话与连接池，同时在途的请求不超过 concurrency；
+     * 单个 flow 失败不影响其他 flow，错误记录在对应的结果中。
+     *
+     * @param requests    待执行的 flow
+     * @param concurrency 最大并发数
+     * @return 与 requests 一一对应的执行结果
+     */
+    public List<FlowExecutionResult> executeFlows(List<FlowExecutionRequest> requests, int concurrency) {
+        if (requests == null || requests.isEmpty()) {
+            return Collections.emptyList();
+        }
+        long start = System.currentTimeMillis();
+        Semaphore permits = new Semaphore(Math.max(1, concurrency));
+        List<CompletableFuture<FlowExecutionResult>> futures = new ArrayList<>(requests.size());
+        for (FlowExecutionRequest request : requests) {
+            permits.acquireUninterruptibly();
+            futures.add(asyncAzkabanAdapter.startFlow(request.getProject(), request.getFlow(), request.getParams())
+                    .handle((execId, e) -> {
+                        permits.release();
+                        return e == null
+                                ? FlowExecutionResult.success(request, execId)
+                                : FlowExecutionResult.failure(request, e instanceof CompletionException ? e.getCause() : e);
+                    }));
+        }
+
+        List<FlowExecutionResult> results = futures.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
+        long failures = results.stream().filter(result -> !result.isSuccess()).count();
+        log.info("Azkaban executed {} Flows in {} ms, {} failed", results.size(), System.currentTimeMillis() - start, failures);
+        return results;
     }
 }
@@ -0,0 +1,176 @@
+package io.yorkecao.azkabandemo.service;
+
+import io.yorkecao.azkabandemo.azkaban.AsyncAzkabanAdapter;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.exception.AzkabanException;
+import io.yorkecao.azkabandemo.model.Execution;
+import io.yorkecao.azkabandemo.model.ExecutionPage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * flow 执行历史的惰性遍历
+ * <p>
+ * 按 fetchFlowExecutions 的顺序（最新在前）逐页拉取，第一页在开始消费时才请求，处理当前页时后台预取下一页，
+ * 内存中最多同时保留两页。Stream 的 limit、findFirst 等短路操作或 until 条件不满足时停止拉取。
+ * <p>
+ * 返回的 Stream 应在 try-with-resources 中使用：短路操作不会关闭 Stream，关闭时才会放弃尚未取回的预取页，
+ * 已经发出的那一个请求仍会在后台完成，其结果被丢弃。
+ *
+ * @author Yorke
+ */
+@Slf4j
+@Service
+public class ExecutionHistory {
+
+    @Autowired
+    private AsyncAzkabanAdapter asyncAzkabanAdapter;
+    @Autowired
+    private AzkabanDemoConfiguration config;
+
+    /**
+     * @param projectName 项目名称
+     * @param flowId      flow ID
+     * @return flow 的全部执行历史，最新在前，使用后须关闭
+     */
+    public Stream<Execution> stream(String projectName, String flowId) {
+        return stream(projectName, flowId, config.getHistory().getPageSize(), execution -> true);
+    }
+
+    /**
+     * @param projectName 项目名称
+     * @param flowId      flow ID
+     * @param since       只遍历提交时间不早于该时间（毫秒）的执行
+     * @return 执行历史，最新在前，使用后须关闭
+     */
+    public Stream<Execution> streamSince(String projectName, String flowId, long since) {
+        return stream(projectName, flowId, config.getHistory().getPageSize(), execution -> execution.getSubmitTime() >= since);
+    }
+
+    /**
+     * @param projectName 项目名称
+     * @param flowId      flow ID
+     * @param pageSize    每页条数
+     * @param until       遍历条件，遇到第一个不满足的执行即停止
+     * @return 执行历史，最新在前，使用后须关闭
+     */
+    public Stream<Execution> stream(String projectName, String flowId, int pageSize, Predicate<Execution> until) {
+        PageIterator iterator = new PageIterator(projectName, flowId, Math.max(1, pageSize), until);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * 逐页遍历并预取下一页，只在消费线程上推进
+     */
+    private class PageIterator implements Iterator<Execution> {
+        private final String projectName;
+        private final String flowId;
+        private final int pageSize;
+        private final Predicate<Execution> until;
+
+        private List<Execution> page = Collections.emptyList();
+        private int index;
+        private int nextStart;
+        private CompletableFuture<ExecutionPage> prefetch;
+        private Execution next;
+        private long lastExecId = Long.MAX_VALUE;
+        private boolean started;
+        private boolean done;
+
+        private PageIterator(String projectName, String flowId, int pageSize, Predicate<Execution> until) {
+            this.projectName = projectName;
+            this.flowId = flowId;
+            this.pageSize = pageSize;
+            this.until = until;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !done) {
+                if (index < page.size()) {
+                    Execution execution = page.get(index++);
+                    // 遍历期间有新的执行时旧记录会后移，跳过已经返回过的
+                    if (execution.getExecId() >= lastExecId) {
+                        continue;
+                    }
+                    if (!until.test(execution)) {
+                        close();
+                        break;
+                    }
+                    lastExecId = execution.getExecId();
+                    next = execution;
+                } else if (!started) {
+                    started = true;
+                    prefetch = fetch(0);
+                } else if (prefetch == null) {
+                    done = true;
+                } else {
+                    advance();
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Execution next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Execution execution = next;
+            next = null;
+            return execution;
+        }
+
+        private void advance() {
+            ExecutionPage current = await(prefetch);
+            prefetch = null;
+            if (current == null || current.getExecutions().isEmpty()) {
+                done = true;
+                return;
+            }
+            page = current.getExecutions();
+            index = 0;
+            nextStart += page.size();
+            if (page.size() >= pageSize && nextStart < current.getTotal()) {
+                prefetch = fetch(nextStart);
+            }
+            log.debug("Azkaban history of Flow {}: {} of {} executions", flowId, nextStart, current.getTotal());
+        }
+
+        private CompletableFuture<ExecutionPage> fetch(int start) {
+            return asyncAzkabanAdapter.fetchFlowExecutions(projectName, flowId, start, pageSize);
+        }
+
+        private void close() {
+            done = true;
+            page = Collections.emptyList();
+            if (prefetch != null) {
+                prefetch.cancel(false);
+                prefetch = null;
+            }
+        }
+
+        private ExecutionPage await(CompletableFuture<ExecutionPage> future) {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                close();
+                throw e.getCause() instanceof AzkabanException ? (AzkabanException) e.getCause() : new AzkabanException(e.getMessage(), e);
+            }
+        }
+    }
+}
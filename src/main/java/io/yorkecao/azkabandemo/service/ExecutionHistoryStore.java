@@ -0,0 +1,257 @@
+package io.yorkecao.azkabandemo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.model.Execution;
+import io.yorkecao.azkabandemo.model.ExecutionRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 本地执行历史
+ * <p>
+ * 每个 flow 一个追加写的 JSON Lines 文件，同一 execid 以最后一行为准，加载后全部保存在内存中，统计查询不访问 Azkaban。
+ * 同步时只拉取水位线之后的执行：水位线是最早一个未结束执行之前的 execid，
+ * 已结束的执行不会再变化，因此只有未结束的和新的执行需要重新拉取。
+ * 文件中被覆盖的行超过有效记录数时整体重写。
+ * 拉取期间不持有读锁，统计查询只在合并与写文件时短暂等待；同一 flow 的同步串行进行。
+ *
+ * @author Yorke
+ */
+@Slf4j
+@Component
+public class ExecutionHistoryStore {
+
+    @Autowired
+    private ExecutionHistory executionHistory;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private AzkabanDemoConfiguration config;
+
+    private final Map<List<String>, FlowHistory> flows = new ConcurrentHashMap<>();
+
+    /**
+     * 从 Azkaban 同步一个 flow 的新执行与状态有变化的执行
+     *
+     * @param projectName 项目名称
+     * @param flowId      flow ID
+     * @return 新增或更新的记录数
+     */
+    public int sync(String projectName, String flowId) {
+        FlowHistory history = history(projectName, flowId);
+        synchronized (history.syncLock) {
+            long watermark;
+            synchronized (history) {
+                watermark = history.watermark();
+            }
+            List<ExecutionRecord> fetched;
+            try (Stream<Execution> executions = executionHistory.stream(projectName, flowId, config.getHistory().getPageSize(),
+                    execution -> execution.getExecId() > watermark)) {
+                fetched = executions.map(ExecutionRecord::of).collect(Collectors.toList());
+            }
+            List<ExecutionRecord> changed;
+            int stored;
+            synchronized (history) {
+                changed = fetched.stream()
+                        .filter(record -> !record.sameAs(history.records.get(record.getExecId())))
+                        .collect(Collectors.toList());
+                if (!changed.isEmpty()) {
+                    history.append(changed);
+                }
+                stored = history.records.size();
+            }
+            log.info("Azkaban history of Flow {} synced after execution {}: {} changed, {} stored",
+                    flowId, watermark, changed.size(), stored);
+            return changed.size();
+        }
+    }
+
+    /**
+     * @return 最近 n 次执行，最新在前
+     */
+    public List<ExecutionRecord> lastRuns(String projectName, String flowId, int n) {
+        FlowHistory history = history(projectName, flowId);
+        synchronized (history) {
+            return history.records.descendingMap().values().stream().limit(n).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * @param window 统计最近多长时间内提交的执行
+     * @return 已结束的执行中 FAILED、KILLED 的比例，没有已结束的执行时为 0
+     */
+    public double failureRate(String projectName, String flowId, Duration window) {
+        List<ExecutionRecord> finished = finishedSince(projectName, flowId, window);
+        if (finished.isEmpty()) {
+            return 0;
+        }
+        return (double) finished.stream().filter(ExecutionRecord::isFailed).count() / finished.size();
+    }
+
+    /**
+     * @param window     统计最近多长时间内提交的执行
+     * @param percentile 百分位，如 0.95
+     * @return 已结束执行运行时长的百分位（毫秒，最近秩法），没有已结束的执行时为 -1
+     */
+    public long durationPercentile(String projectName, String flowId, Duration window, double percentile) {
+        long[] durations = finishedSince(projectName, flowId, window).stream()
+                .mapToLong(ExecutionRecord::getDuration)
+                .filter(duration -> duration >= 0)
+                .toArray();
+        if (durations.length == 0) {
+            return -1;
+        }
+        Arrays.sort(durations);
+        int rank = (int) Math.ceil(percentile * durations.length);
+        return durations[Math.min(durations.length, Math.max(1, rank)) - 1];
+    }
+
+    private List<ExecutionRecord> finishedSince(String projectName, String flowId, Duration window) {
+        long since = System.currentTimeMillis() - window.toMillis();
+        FlowHistory history = history(projectName, flowId);
+        synchronized (history) {
+            return history.records.values().stream()
+                    .filter(record -> record.isFinished() && record.getSubmitTime() >= since)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private FlowHistory history(String projectName, String flowId) {
+        return flows.computeIfAbsent(Arrays.asList(projectName, flowId), key -> {
+            FlowHistory history = new FlowHistory(Paths.get(config.getHistory().getStoreDir(), encode(projectName), encode(flowId) + ".jsonl"));
+            history.load();
+            return history;
+        });
+    }
+
+    private static String encode(String name) {
+        try {
+            return URLEncoder.encode(name, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 一个 flow 的历史，访问记录时以自身为锁，同步过程以 syncLock 串行
+     */
+    private class FlowHistory {
+        private final Object syncLock = new Object();
+        private final Path file;
+        private final NavigableMap<Long, ExecutionRecord> records = new TreeMap<>();
+        private int lines;
+
+        private FlowHistory(Path file) {
+            this.file = file;
+        }
+
+        /**
+         * @return 该 execid 及之前的执行都已结束；状态缺失或无法识别的记录不会再变化，按已结束处理，否则水位线永远停在它之前
+         */
+        private long watermark() {
+            for (ExecutionRecord record : records.values()) {
+                if (record.getStatus() != null && !record.isFinished()) {
+                    return record.getExecId() - 1;
+                }
+            }
+            return records.isEmpty() ? 0 : records.lastKey();
+        }
+
+        private void load() {
+            if (!Files.exists(file)) {
+                return;
+            }
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    lines++;
+                    try {
+                        ExecutionRecord record = objectMapper.readValue(line, ExecutionRecord.class);
+                        records.put(record.getExecId(), record);
+                    } catch (IOException e) {
+                        // 进程中断时最后一行可能不完整
+                        log.warn("Skip corrupt execution history line in {}: {}", file, e.getMessage());
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            log.info("Loaded {} executions from {}", records.size(), file);
+        }
+
+        /**
+         * 先写文件再更新内存，写入失败时内存不变，下次同步会重新拉取这些执行
+         */
+        private void append(List<ExecutionRecord> changed) {
+            NavigableMap<Long, ExecutionRecord> merged = new TreeMap<>(records);
+            for (ExecutionRecord record : changed) {
+                merged.put(record.getExecId(), record);
+            }
+            try {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                if (lines + changed.size() > merged.size() * 2) {
+                    rewrite(merged.values());
+                } else {
+                    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                        write(writer, changed);
+                    }
+                    lines += changed.size();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            for (ExecutionRecord record : changed) {
+                records.put(record.getExecId(), record);
+            }
+        }
+
+        /**
+         * 只保留每个 execid 的最新记录，先写临时文件再原子替换
+         */
+        private void rewrite(Collection<ExecutionRecord> latest) throws IOException {
+            Path tempFile = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                write(writer, latest);
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            lines = latest.size();
+            log.info("Compacted execution history {} to {} lines", file, lines);
+        }
+
+        private void write(BufferedWriter writer, Collection<ExecutionRecord> batch) throws IOException {
+            for (ExecutionRecord record : batch) {
+                writer.write(objectMapper.writeValueAsString(record));
+                writer.newLine();
+            }
+        }
+    }
+}
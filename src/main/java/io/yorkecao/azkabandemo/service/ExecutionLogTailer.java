@@ -0,0 +1,269 @@
+package io.yorkecao.azkabandemo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.yorkecao.azkabandemo.azkaban.AsyncAzkabanAdapter;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.model.Execution;
+import io.yorkecao.azkabandemo.model.ExecutionNode;
+import io.yorkecao.azkabandemo.model.JobLogChunk;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * job 日志增量跟踪
+ * <p>
+ * 按 (项目, execid, jobId) 记录已读取的字节位置，每次只拉取新增的日志，整段读取成功后才写入调用方的输出，
+ * 中途失败的读取不会留下重复的内容；暂无新日志时查询 job 状态，job 结束且日志读完后自动停止。
+ * 日志读取与状态查询分别计数，任一连续失败超过 maxFailures 次时以失败结束。
+ *
+ * @author Yorke
+ */
+@Slf4j
+@Service
+public class ExecutionLogTailer {
+
+    @Autowired
+    private AsyncAzkabanAdapter asyncAzkabanAdapter;
+    @Autowired
+    private AzkabanDemoConfiguration config;
+
+    private final Cache<String, Long> offsets = Caffeine.newBuilder()
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .maximumSize(10000)
+            .build();
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "azkaban-log-tailer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * @return 该 job 已读取到的字节位置，再次跟踪时从这里继续
+     */
+    public long offset(String projectName, String execId, String jobId) {
+        Long offset = offsets.getIfPresent(key(projectName, execId, jobId));
+        return offset == null ? 0 : offset;
+    }
+
+    /**
+     * 跟踪一个 job 的日志直到 job 结束
+     *
+     * @param projectName 执行所属的项目名
+     * @param execId      执行 ID
+     * @param jobId       job ID
+     * @param out         日志输出，按 UTF-8 编码，每个片段写完后 flush
+     * @return 以本次跟踪读取的字节数完成的 Future
+     */
+    public CompletableFuture<Long> tail(String projectName, String execId, String jobId, OutputStream out) {
+        return tail(projectName, execId, jobId, new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 跟踪一个 job 的日志直到 job 结束
+     *
+     * @param projectName 执行所属的项目名
+     * @param execId      执行 ID
+     * @param jobId       job ID
+     * @param out         日志输出，每个片段写完后 flush
+     * @return 以本次跟踪读取的字节数完成的 Future
+     */
+    public CompletableFuture<Long> tail(String projectName, String execId, String jobId, Writer out) {
+        TailTask task = new TailTask(projectName, execId, jobId, out, offset(projectName, execId, jobId));
+        scheduler.execute(() -> fetch(task));
+        return task.future;
+    }
+
+    /**
+     * 并发跟踪一个执行中所有 job 的日志
+     *
+     * @param projectName 执行所属的项目名
+     * @param execId      执行 ID
+     * @param outputs     为每个 jobId 提供日志输出
+     * @return 所有 job 跟踪结束后完成的 Future
+     */
+    public CompletableFuture<Void> tailFlow(String projectName, String execId, Function<String, Writer> outputs) {
+        return asyncAzkabanAdapter.fetchFlowExecution(projectName, execId).thenCompose(execution -> {
+            List<String> jobIds = new ArrayList<>();
+            collectJobIds(execution.getNodes(), jobIds);
+            log.info("Azkaban tail logs of {} Jobs in Execution {}", jobIds.size(), execId);
+            return CompletableFuture.allOf(jobIds.stream()
+                    .map(jobId -> tail(projectName, execId, jobId, outputs.apply(jobId)))
+                    .toArray(CompletableFuture[]::new));
+        });
+    }
+
+    private void fetch(TailTask task) {
+        // 片段先读入缓冲，读取中途失败时重试不会把已写出的部分再写一遍；字符数不超过字节数，按 chunkSize 预留即可
+        int chunkSize = config.getLogTail().getChunkSize();
+        StringWriter buffer = new StringWriter(chunkSize);
+        asyncAzkabanAdapter.fetchExecutionJobLogs(task.projectName, task.execId, task.jobId, task.offset, chunkSize, buffer)
+                .whenComplete((chunk, e) -> {
+                    if (e != null) {
+                        if (++task.logFailures > config.getLogTail().getMaxFailures()) {
+                            task.future.completeExceptionally(unwrap(e));
+                        } else if (task.finishedSeen) {
+                            // 最后一次读取失败时日志尾部没有读到，不能当作正常结束
+                            scheduler.schedule(() -> fetch(task), config.getLogTail().getPollInterval().toMillis(), TimeUnit.MILLISECONDS);
+                        } else {
+                            log.debug("Azkaban Job {} in Execution {} has no log yet: {}", task.jobId, task.execId, unwrap(e).getMessage());
+                            checkFinished(task);
+                        }
+                        return;
+                    }
+                    task.logFailures = 0;
+                    if (chunk.getLength() > 0) {
+                        if (write(task, buffer)) {
+                            advance(task, chunk);
+                            scheduler.execute(() -> fetch(task));
+                        }
+                    } else if (task.finishedSeen) {
+                        // job 已结束且没有更多日志（或从未产生日志）
+                        complete(task);
+                    } else {
+                        checkFinished(task);
+                    }
+                });
+    }
+
+    private void checkFinished(TailTask task) {
+        asyncAzkabanAdapter.fetchFlowExecution(task.projectName, task.execId).whenComplete((execution, e) -> {
+            if (e != null) {
+                if (++task.statusFailures > config.getLogTail().getMaxFailures()) {
+                    task.future.completeExceptionally(unwrap(e));
+                } else {
+                    scheduler.schedule(() -> fetch(task), config.getLogTail().getPollInterval().toMillis(), TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+            task.statusFailures = 0;
+            if (isJobFinished(execution, task.jobId)) {
+                // 结束前可能又写入了日志，再读一次
+                task.finishedSeen = true;
+                scheduler.execute(() -> fetch(task));
+            } else {
+                scheduler.schedule(() -> fetch(task), config.getLogTail().getPollInterval().toMillis(), TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    private boolean write(TailTask task, StringWriter buffer) {
+        try {
+            task.out.write(buffer.toString());
+            task.out.flush();
+            return true;
+        } catch (IOException e) {
+            task.future.completeExceptionally(e);
+            return false;
+        }
+    }
+
+    private void advance(TailTask task, JobLogChunk chunk) {
+        task.offset = chunk.getOffset() + chunk.getLength();
+        task.bytes += chunk.getLength();
+        offsets.put(key(task.projectName, task.execId, task.jobId), task.offset);
+    }
+
+    private void complete(TailTask task) {
+        try {
+            task.out.flush();
+        } catch (IOException e) {
+            task.future.completeExceptionally(e);
+            return;
+        }
+        log.info("Azkaban tailed {} bytes of Job {} in Execution {}", task.bytes, task.jobId, task.execId);
+        task.future.complete(task.bytes);
+    }
+
+    private static boolean isJobFinished(Execution execution, String jobId) {
+        if (execution.isFinished()) {
+            return true;
+        }
+        ExecutionNode node = findNode(execution.getNodes(), jobId);
+        return node != null && node.isFinished();
+    }
+
+    private static ExecutionNode findNode(List<ExecutionNode> nodes, String jobId) {
+        for (ExecutionNode node : nodes) {
+            if (jobId.equals(node.getJobId())) {
+                return node;
+            }
+            ExecutionNode nested = findNode(node.getNodes(), jobId);
+            if (nested != null) {
+                return nested;
+            }
+        }
+        return null;
+    }
+
+    private static void collectJobIds(List<ExecutionNode> nodes, List<String> jobIds) {
+        for (ExecutionNode node : nodes) {
+            if (!node.getNodes().isEmpty()) {
+                // 内嵌 flow 本身没有日志，展开其中的 job
+                collectJobIds(node.getNodes(), jobIds);
+            } else {
+                jobIds.add(node.getJobId());
+            }
+        }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private static String key(String projectName, String execId, String jobId) {
+        return projectName + "/" + execId + "/" + jobId;
+    }
+
+    /**
+     * 一个 job 的跟踪过程，字段只在串行的回调链上修改
+     */
+    private static class TailTask {
+        private final String projectName;
+        private final String execId;
+        private final String jobId;
+        private final Writer out;
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+        private volatile long offset;
+        private volatile long bytes;
+        private volatile boolean finishedSeen;
+        private volatile int logFailures;
+        private volatile int statusFailures;
+
+        private TailTask(String projectName, String execId, String jobId, Writer out, long offset) {
+            this.projectName = projectName;
+            this.execId = execId;
+            this.jobId = jobId;
+            this.out = out;
+            this.offset = offset;
+        }
+    }
+}
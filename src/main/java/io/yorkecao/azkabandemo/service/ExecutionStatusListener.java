@@ -0,0 +1,19 @@
+package io.yorkecao.azkabandemo.service;
+
+import azkaban.executor.Status;
+
+/**
+ * 执行状态变化回调
+ *
+ * @author Yorke
+ */
+@FunctionalInterface
+public interface ExecutionStatusListener {
+
+    /**
+     * @param execId   执行 ID
+     * @param previous 上一次观察到的状态，首次观察时为 null
+     * @param current  当前状态
+     */
+    void onStatusChange(String execId, Status previous, Status current);
+}
@@ -0,0 +1,241 @@
+package io.yorkecao.azkabandemo.service;
+
+import azkaban.executor.Status;
+import io.yorkecao.azkabandemo.azkaban.AsyncAzkabanAdapter;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.exception.AzkabanException;
+import io.yorkecao.azkabandemo.exception.AzkabanRejectedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 执行状态监听
+ * <p>
+ * 所有被监听的 execid 共用一个调度线程，查询交给 {@link AsyncAzkabanAdapter} 执行，监听时需要带上项目名。
+ * 同一个 execid 无论有多少调用方等待都只轮询一次；状态变化后按最短间隔轮询，
+ * 状态不变时间隔逐次放大，轮询次数取决于状态变化而不是等待者数量。
+ * 同一执行的回调串行进行，每个回调都按状态变化的顺序收到且只收到一次。
+ *
+ * @author Yorke
+ */
+@Slf4j
+@Service
+public class ExecutionWatcher {
+
+    @Autowired
+    private AsyncAzkabanAdapter asyncAzkabanAdapter;
+    @Autowired
+    private AzkabanDemoConfiguration config;
+
+    private final ConcurrentMap<String, WatchedExecution> watched = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "azkaban-execution-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        watched.values().forEach(execution -> execution.done.cancel(false));
+        watched.clear();
+    }
+
+    /**
+     * 监听一个执行直到结束
+     *
+     * @param projectName 执行所属的项目名
+     * @param execId      执行 ID
+     * @return 以最终状态完成的 Future
+     */
+    public CompletableFuture<Status> watch(String projectName, String execId) {
+        return watch(projectName, execId, null);
+    }
+
+    /**
+     * 监听一个执行直到结束，并接收其间的每次状态变化
+     *
+     * @param projectName 执行所属的项目名
+     * @param execId      执行 ID
+     * @param listener    状态变化回调，可为 null；已观察到状态时立即回调一次当前状态
+     * @return 以最终状态完成的 Future；监听已停止时以 {@link AzkabanRejectedException} 失败
+     */
+    public CompletableFuture<Status> watch(String projectName, String execId, ExecutionStatusListener listener) {
+        WatchedExecution created = new WatchedExecution(projectName, execId, config.getWatcher().getMinInterval().toMillis());
+        WatchedExecution execution = watched.putIfAbsent(created.key, created);
+        if (execution == null) {
+            execution = created;
+            try {
+                scheduler.execute(() -> poll(created));
+            } catch (RejectedExecutionException e) {
+                watched.remove(created.key, created);
+                created.done.completeExceptionally(new AzkabanRejectedException("Execution watcher is stopped."));
+            }
+        }
+        if (listener != null) {
+            // 与 onStatus 的通知互斥，新回调要么在这里收到当前状态，要么在下一次通知中收到，不会重复或乱序
+            synchronized (execution) {
+                execution.listeners.add(listener);
+                Status current = execution.status;
+                if (current != null) {
+                    listener.onStatusChange(execId, null, current);
+                }
+            }
+        }
+        // 调用方取消自己的 Future 不影响其他等待者
+        CompletableFuture<Status> future = new CompletableFuture<>();
+        execution.done.whenComplete((status, e) -> {
+            if (e != null) {
+                future.completeExceptionally(e);
+            } else {
+                future.complete(status);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 停止监听，等待者收到 CancellationException
+     *
+     * @param projectName 执行所属的项目名
+     * @param execId      执行 ID
+     */
+    public void unwatch(String projectName, String execId) {
+        WatchedExecution execution = watched.remove(key(projectName, execId));
+        if (execution != null) {
+            execution.done.completeExceptionally(new CancellationException("Stopped watching execution " + execId));
+        }
+    }
+
+    /**
+     * @return 正在监听的执行数
+     */
+    public int size() {
+        return watched.size();
+    }
+
+    private void poll(WatchedExecution execution) {
+        if (execution.done.isDone()) {
+            return;
+        }
+        try {
+            asyncAzkabanAdapter.fetchFlowExecution(execution.projectName, execution.execId).whenComplete((response, e) -> {
+                // 回调中的异常会被 Future 吞掉，任何意外都要结束监听，否则轮询停止而等待者永远等不到结果
+                try {
+                    if (e != null) {
+                        onFailure(execution, e instanceof AzkabanException ? (AzkabanException) e
+                                : e.getCause() instanceof AzkabanException ? (AzkabanException) e.getCause()
+                                : new AzkabanException(e.getMessage(), e));
+                    } else {
+                        onStatus(execution, response.getStatus());
+                    }
+                } catch (RuntimeException ex) {
+                    abort(execution, ex);
+                }
+            });
+        } catch (RuntimeException e) {
+            abort(execution, e);
+        }
+    }
+
+    /**
+     * @param status 本次查询到的状态，Azkaban 返回本地不认识的状态时为 null，视为状态未变
+     */
+    private void onStatus(WatchedExecution execution, Status status) {
+        execution.failures = 0;
+        Status previous = execution.status;
+        if (status != null && status != previous) {
+            execution.delay = config.getWatcher().getMinInterval().toMillis();
+            synchronized (execution) {
+                execution.status = status;
+                for (ExecutionStatusListener listener : execution.listeners) {
+                    try {
+                        listener.onStatusChange(execution.execId, previous, status);
+                    } catch (RuntimeException e) {
+                        log.warn(String.format("Execution %s status listener failure", execution.execId), e);
+                    }
+                }
+            }
+        } else {
+            execution.delay = Math.min(config.getWatcher().getMaxInterval().toMillis(),
+                    (long) (execution.delay * config.getWatcher().getMultiplier()));
+        }
+
+        if (status != null && Status.isStatusFinished(status)) {
+            watched.remove(execution.key, execution);
+            execution.done.complete(status);
+            log.info("Azkaban Execution {} finished: {}", execution.execId, status);
+        } else {
+            reschedule(execution);
+        }
+    }
+
+    private void onFailure(WatchedExecution execution, AzkabanException e) {
+        execution.failures++;
+        if (execution.failures > config.getWatcher().getMaxFailures()) {
+            log.error("Azkaban Execution {} watch failure: {}", execution.execId, e.getMessage());
+            watched.remove(execution.key, execution);
+            execution.done.completeExceptionally(e);
+            return;
+        }
+        execution.delay = Math.min(config.getWatcher().getMaxInterval().toMillis(),
+                (long) (execution.delay * config.getWatcher().getMultiplier()));
+        reschedule(execution);
+    }
+
+    private void abort(WatchedExecution execution, RuntimeException e) {
+        log.error(String.format("Azkaban Execution %s watch aborted", execution.execId), e);
+        watched.remove(execution.key, execution);
+        execution.done.completeExceptionally(e);
+    }
+
+    private void reschedule(WatchedExecution execution) {
+        if (!scheduler.isShutdown()) {
+            scheduler.schedule(() -> poll(execution), execution.delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static String key(String projectName, String execId) {
+        return projectName + "/" + execId;
+    }
+
+    /**
+     * 一个被监听的执行，状态只在单个轮询链上修改
+     */
+    private static class WatchedExecution {
+        private final String projectName;
+        private final String execId;
+        private final String key;
+        private final CompletableFuture<Status> done = new CompletableFuture<>();
+        private final List<ExecutionStatusListener> listeners = new CopyOnWriteArrayList<>();
+        private volatile Status status;
+        private volatile long delay;
+        private volatile int failures;
+
+        private WatchedExecution(String projectName, String execId, long delay) {
+            this.projectName = projectName;
+            this.execId = execId;
+            this.key = key(projectName, execId);
+            this.delay = delay;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package io.yorkecao.azkabandemo.service;
+
+import io.yorkecao.azkabandemo.azkaban.AzkabanClusterRouter;
+import io.yorkecao.azkabandemo.exception.AzkabanException;
+import io.yorkecao.azkabandemo.model.CriticalPathAnalysis;
+import io.yorkecao.azkabandemo.model.Execution;
+import io.yorkecao.azkabandemo.model.ExecutionNode;
+import io.yorkecao.azkabandemo.model.Flow;
+import io.yorkecao.azkabandemo.model.FlowDag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按一次执行中各 job 的实际耗时分析 flow 的关键路径
+ * <p>
+ * 分析时需要带上项目名，flow 与执行都从项目所在的集群读取。
+ *
+ * @author Yorke
+ */
+@Slf4j
+@Service
+public class FlowAnalyzer {
+
+    @Autowired
+    private AzkabanClusterRouter clusterRouter;
+
+    /**
+     * @param projectName 项目名称
+     * @param flowId      flow ID
+     * @return flow 的依赖图
+     */
+    public FlowDag dag(String projectName, String flowId) {
+        Flow flow = clusterRouter.forProject(projectName).fetchFlowJobs(projectName, flowId);
+        try {
+            return FlowDag.of(flow);
+        } catch (IllegalArgumentException e) {
+            throw new AzkabanException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param projectName 项目名称
+     * @param flowId      flow ID
+     * @param execId      提供 job 耗时的执行，通常是最近一次成功的执行，必须是该 flow 的执行
+     * @return 关键路径分析结果
+     */
+    public CriticalPathAnalysis analyze(String projectName, String flowId, String execId) {
+        FlowDag dag = dag(projectName, flowId);
+        Execution execution = clusterRouter.forProject(projectName).fetchFlowExecution(execId);
+        if (!projectName.equals(execution.getProject()) || !flowId.equals(execution.getFlowId())) {
+            throw new AzkabanException(String.format("Execution %s belongs to %s/%s, not %s/%s.",
+                    execId, execution.getProject(), execution.getFlowId(), projectName, flowId));
+        }
+        CriticalPathAnalysis analysis = dag.analyze(durations(execution));
+        log.info("Azkaban Flow {} critical path in Execution {}: {} ms {}, max parallelism {}",
+                flowId, execId, analysis.getMakespan(), analysis.getCriticalPath(), analysis.getMaxParallelism());
+        return analysis;
+    }
+
+    /**
+     * 顶层 job 的运行时长，内嵌 flow 按整体耗时计；未运行的 job 不计
+     */
+    static Map<String, Long> durations(Execution execution) {
+        Map<String, Long> durations = new HashMap<>();
+        for (ExecutionNode node : execution.getNodes()) {
+            if (node.getStartTime() > 0 && node.getEndTime() >= node.getStartTime()) {
+                durations.put(node.getId(), node.getEndTime() - node.getStartTime());
+            }
+        }
+        return durations;
+    }
+}
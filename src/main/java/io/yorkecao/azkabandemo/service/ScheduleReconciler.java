@@ -0,0 +1,315 @@
+package io.yorkecao.azkabandemo.service;
+
+import io.yorkecao.azkabandemo.azkaban.AsyncAzkabanAdapter;
+import io.yorkecao.azkabandemo.azkaban.AzkabanAdapter;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.exception.AzkabanException;
+import io.yorkecao.azkabandemo.model.DesiredSchedule;
+import io.yorkecao.azkabandemo.model.Flow;
+import io.yorkecao.azkabandemo.model.ProjectFlows;
+import io.yorkecao.azkabandemo.model.Schedule;
+import io.yorkecao.azkabandemo.model.ScheduleChange;
+import io.yorkecao.azkabandemo.model.ScheduleReconcileResult;
+import io.yorkecao.azkabandemo.model.Sla;
+import io.yorkecao.azkabandemo.model.SlaSetting;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 声明式调度对账
+ * <p>
+ * 并行读取所管理 flow 的现有调度与 SLA，与期望的调度比较得出最小变更，只应用新建、修改与移除；
+ * 与期望一致时只有读请求。读写的并发数取 azkaban-demo.batch.concurrency。
+ * 移除需要显式指定独占管理的项目，只有这些项目中不在期望内的调度才会被移除，其他项目只新建与修改所列的 flow。
+ *
+ * @author Yorke
+ */
+@Slf4j
+@Service
+public class ScheduleReconciler {
+
+    @Autowired
+    private AsyncAzkabanAdapter asyncAzkabanAdapter;
+    @Autowired
+    private AzkabanDemoConfiguration config;
+
+    /**
+     * 对账期望的调度，只新建与修改所列 flow 的调度，不移除任何调度
+     *
+     * @param desired 期望的调度
+     * @return 对账结果
+     */
+    public ScheduleReconcileResult reconcile(List<DesiredSchedule> desired) {
+        return reconcile(Collections.<String>emptyList(), desired);
+    }
+
+    /**
+     * 对账期望的调度，并移除独占管理的项目中其余 flow 的调度
+     *
+     * @param projects 独占管理的项目，其中不在 desired 中的调度都会被移除
+     * @param desired  期望的调度
+     * @return 对账结果
+     */
+    public ScheduleReconcileResult reconcile(Collection<String> projects, List<DesiredSchedule> desired) {
+        long start = System.currentTimeMillis();
+        Plan plan = plan(projects, desired);
+
+        Map<ScheduleChange, Throwable> failures = new LinkedHashMap<>();
+        List<ScheduleChange> applied = new ArrayList<>();
+        List<Throwable> errors = forEachBounded(plan.changes, this::apply, true);
+        for (int i = 0; i < plan.changes.size(); i++) {
+            ScheduleChange change = plan.changes.get(i);
+            if (errors.get(i) == null) {
+                applied.add(change);
+            } else {
+                log.error("Azkaban apply schedule change {} failure: {}", change, errors.get(i).getMessage());
+                failures.put(change, errors.get(i));
+            }
+        }
+        log.info("Azkaban schedules reconciled in {} ms: {} changes applied, {} failed, {} unchanged",
+                System.currentTimeMillis() - start, applied.size(), failures.size(), plan.unchanged);
+        return new ScheduleReconcileResult(applied, failures, plan.unchanged);
+    }
+
+    /**
+     * 只计算变更，不应用
+     *
+     * @param projects 独占管理的项目，其中不在 desired 中的调度计为移除
+     * @param desired  期望的调度
+     * @return 需要应用的变更
+     */
+    public List<ScheduleChange> diff(Collection<String> projects, List<DesiredSchedule> desired) {
+        return plan(projects, desired).changes;
+    }
+
+    private Plan plan(Collection<String> projects, List<DesiredSchedule> desired) {
+        Map<List<String>, DesiredSchedule> desiredByFlow = new LinkedHashMap<>();
+        Set<String> exclusive = new HashSet<>(projects);
+        Set<String> managed = new LinkedHashSet<>(projects);
+        for (DesiredSchedule schedule : desired) {
+            if (desiredByFlow.put(key(schedule.getProject(), schedule.getFlow()), schedule) != null) {
+                throw new IllegalArgumentException("Duplicate desired schedule for " + schedule.getProject() + "/" + schedule.getFlow());
+            }
+            managed.add(schedule.getProject());
+        }
+
+        // 项目与 flow 列表，fetchProjectFlows 有缓存
+        List<String> projectNames = new ArrayList<>(managed);
+        List<ProjectFlows> projectFlows = forEachBounded(projectNames,
+                project -> asyncAzkabanAdapter.onProject(project, adapter -> adapter.fetchProjectFlows(project)), false);
+        List<Target> targets = new ArrayList<>();
+        for (int i = 0; i < projectNames.size(); i++) {
+            String project = projectNames.get(i);
+            ProjectFlows flows = projectFlows.get(i);
+            if (flows == null) {
+                throw new AzkabanException("Project " + project + " doesn't exist.");
+            }
+            Set<String> flowIds = flows.getFlows().stream().map(Flow::getFlowId).collect(Collectors.toCollection(LinkedHashSet::new));
+            for (String flowId : flowIds) {
+                DesiredSchedule schedule = desiredByFlow.get(key(project, flowId));
+                if (schedule != null || exclusive.contains(project)) {
+                    targets.add(new Target(project, flows.getProjectId(), flowId, schedule));
+                }
+            }
+            for (DesiredSchedule schedule : desiredByFlow.values()) {
+                if (project.equals(schedule.getProject()) && !flowIds.contains(schedule.getFlow())) {
+                    throw new AzkabanException("Flow " + schedule.getFlow() + " doesn't exist in Project " + project + ".");
+                }
+            }
+        }
+
+        List<Schedule> schedules = forEachBounded(targets, target -> asyncAzkabanAdapter.onProject(target.project,
+                adapter -> adapter.fetchSchedule(String.valueOf(target.projectId), target.flow)), false);
+
+        // 只在 cron 一致且管理 SLA 时才需要比较 SLA
+        List<Target> slaTargets = new ArrayList<>();
+        List<ScheduleChange> changes = new ArrayList<>();
+        int unchanged = 0;
+        for (int i = 0; i < targets.size(); i++) {
+            Target target = targets.get(i);
+            target.current = schedules.get(i);
+            ScheduleChange.Action action = compareSchedule(target.current, target.desired);
+            if (action != null) {
+                changes.add(target.change(action));
+            } else if (target.desired != null && target.desired.getSlaSettings() != null) {
+                slaTargets.add(target);
+            } else if (target.desired != null) {
+                unchanged++;
+            }
+        }
+
+        List<Sla> slas = forEachBounded(slaTargets, target -> asyncAzkabanAdapter.onProject(target.project,
+                adapter -> adapter.fetchSla(target.current.getScheduleId())), false);
+        for (int i = 0; i < slaTargets.size(); i++) {
+            Target target = slaTargets.get(i);
+            if (sameSla(slas.get(i), target.desired)) {
+                unchanged++;
+            } else {
+                changes.add(target.change(ScheduleChange.Action.UPDATE_SLA));
+            }
+        }
+        return new Plan(changes, unchanged);
+    }
+
+    /**
+     * @return 调度本身需要的变更，无需变更或只可能需要更新 SLA 时为 null
+     */
+    private static ScheduleChange.Action compareSchedule(Schedule current, DesiredSchedule desired) {
+        if (desired == null) {
+            return current == null ? null : ScheduleChange.Action.REMOVE;
+        }
+        if (current == null) {
+            return ScheduleChange.Action.CREATE;
+        }
+        return normalizeCron(current.getCronExpression()).equals(normalizeCron(desired.getCronExpression()))
+                ? null
+                : ScheduleChange.Action.UPDATE;
+    }
+
+    static boolean sameSla(Sla current, DesiredSchedule desired) {
+        List<String> desiredEmails = desired.getSlaEmails() == null ? Collections.<String>emptyList() : desired.getSlaEmails();
+        if (!new HashSet<>(current.getSlaEmails()).equals(new HashSet<>(desiredEmails))
+                || current.getSettings().size() != desired.getSlaSettings().size()) {
+            return false;
+        }
+        for (SlaSetting setting : desired.getSlaSettings()) {
+            if (current.getSettings().stream().noneMatch(setting::sameAs)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String normalizeCron(String cronExpression) {
+        return cronExpression == null ? "" : cronExpression.trim().replaceAll("\\s+", " ");
+    }
+
+    private CompletableFuture<Void> apply(ScheduleChange change) {
+        return asyncAzkabanAdapter.onProject(change.getProject(), adapter -> {
+            DesiredSchedule desired = change.getDesired();
+            switch (change.getAction()) {
+                case CREATE:
+                case UPDATE:
+                    adapter.scheduleCronBasedFlow(change.getProject(), change.getFlow(), desired.getCronExpression());
+                    // 重新调度会生成新的调度，SLA 需要在新调度上设置
+                    if (desired.getSlaSettings() != null && !desired.getSlaSettings().isEmpty()) {
+                        Schedule schedule = adapter.fetchSchedule(String.valueOf(change.getProjectId()), change.getFlow());
+                        if (schedule == null) {
+                            throw new AzkabanException("Schedule of Flow " + change.getFlow() + " not found after scheduling.");
+                        }
+                        setSla(adapter, schedule.getScheduleId(), desired);
+                    }
+                    break;
+                case UPDATE_SLA:
+                    setSla(adapter, change.getScheduleId(), desired);
+                    break;
+                case REMOVE:
+                    adapter.unscheduleFlow(change.getScheduleId());
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown schedule change " + change.getAction());
+            }
+            return null;
+        });
+    }
+
+    private static void setSla(AzkabanAdapter adapter, String scheduleId, DesiredSchedule desired) {
+        String[] emails = desired.getSlaEmails() == null ? new String[0] : desired.getSlaEmails().toArray(new String[0]);
+        String[][] settings = desired.getSlaSettings().stream()
+                .map(setting -> new String[]{setting.toParam()})
+                .toArray(String[][]::new);
+        adapter.setSla(scheduleId, emails, settings);
+    }
+
+    /**
+     * 对每个元素发起异步调用，同时在途的调用不超过 azkaban-demo.batch.concurrency
+     *
+     * @param collectErrors 为 true 时返回与 items 对应的异常（成功为 null），否则返回结果，有失败时在全部调用结束后抛出首个失败
+     */
+    @SuppressWarnings("unchecked")
+    private <T, R> List<R> forEachBounded(List<T> items, Function<T, CompletableFuture<?>> call, boolean collectErrors) {
+        Semaphore permits = new Semaphore(Math.max(1, config.getBatch().getConcurrency()));
+        List<CompletableFuture<?>> futures = new ArrayList<>(items.size());
+        for (T item : items) {
+            permits.acquireUninterruptibly();
+            CompletableFuture<?> future;
+            try {
+                future = call.apply(item);
+            } catch (RuntimeException e) {
+                permits.release();
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).handle((result, ex) -> null).join();
+                throw e;
+            }
+            futures.add(future.whenComplete((result, e) -> permits.release()));
+        }
+
+        // 先等全部调用结束，失败时不留下仍在进行的调用
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).handle((result, e) -> null).join();
+        List<R> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<?> future : futures) {
+            if (collectErrors) {
+                results.add((R) future.handle((result, e) -> e instanceof CompletionException ? e.getCause() : e).join());
+            } else {
+                try {
+                    results.add((R) future.join());
+                } catch (CompletionException e) {
+                    throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                }
+            }
+        }
+        return results;
+    }
+
+    private static List<String> key(String project, String flow) {
+        return Arrays.asList(project, flow);
+    }
+
+    /**
+     * 一个被管理的 flow：现有调度与期望调度
+     */
+    private static class Target {
+        private final String project;
+        private final long projectId;
+        private final String flow;
+        private final DesiredSchedule desired;
+        private Schedule current;
+
+        Target(String project, long projectId, String flow, DesiredSchedule desired) {
+            this.project = project;
+            this.projectId = projectId;
+            this.flow = flow;
+            this.desired = desired;
+        }
+
+        ScheduleChange change(ScheduleChange.Action action) {
+            return new ScheduleChange(action, project, projectId, flow, current == null ? null : current.getScheduleId(), desired);
+        }
+    }
+
+    private static class Plan {
+        private final List<ScheduleChange> changes;
+        private final int unchanged;
+
+        Plan(List<ScheduleChange> changes, int unchanged) {
+            this.changes = changes;
+            this.unchanged = unchanged;
+        }
+    }
+}
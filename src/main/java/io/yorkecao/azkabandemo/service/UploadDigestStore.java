@@ -0,0 +1,47 @@
+package io.yorkecao.azkabandemo.service;
+
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.utils.PropertiesFile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * 记录每个项目最近一次上传内容的摘要，持久化到本地文件，重启后仍然有效
+ *
+ * @author Yorke
+ */
+@Slf4j
+@Component
+public class UploadDigestStore {
+
+    @Autowired
+    private AzkabanDemoConfiguration config;
+
+    private PropertiesFile digests;
+
+    @PostConstruct
+    public void load() throws IOException {
+        digests = new PropertiesFile(Paths.get(config.getUpload().getDigestStore()), "Last uploaded content digest per Azkaban project");
+        int loaded = digests.load();
+        if (loaded > 0) {
+            log.info("Loaded {} upload digests from {}", loaded, digests.getFile());
+        }
+    }
+
+    public String get(String projectName) {
+        return digests.get(projectName);
+    }
+
+    public void put(String projectName, String digest) {
+        digests.put(projectName, digest);
+    }
+
+    public void remove(String projectName) {
+        digests.remove(projectName);
+    }
+}
@@ -0,0 +1,70 @@
+package io.yorkecao.azkabandemo.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 打包内容的 SHA-256 摘要
+ * <p>
+ * 每个条目按条目名、实际读到的内容与字节数单独计算摘要，最后按条目名排序合并，
+ * 因此与文件的遍历顺序、修改时间无关，只多保存每个条目 32 字节的摘要。
+ *
+ * @author Yorke
+ */
+class BundleDigest {
+
+    private final Map<String, byte[]> entries = new TreeMap<>();
+
+    /**
+     * 读取条目内容计入摘要，out 不为 null 时同时把读到的字节写入 out
+     *
+     * @param entryName 条目名
+     * @param in        条目内容
+     * @param out       同时写入的输出流，可为 null
+     * @param buffer    复制使用的缓冲区
+     */
+    void add(String entryName, InputStream in, OutputStream out, byte[] buffer) throws IOException {
+        MessageDigest entryDigest = sha256();
+        entryDigest.update(entryName.getBytes(StandardCharsets.UTF_8));
+        entryDigest.update((byte) 0);
+        long size = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            if (out != null) {
+                out.write(buffer, 0, read);
+            }
+            entryDigest.update(buffer, 0, read);
+            size += read;
+        }
+        entryDigest.update(ByteBuffer.allocate(Long.BYTES).putLong(size).array());
+        entries.put(entryName, entryDigest.digest());
+    }
+
+    /**
+     * @return 十六进制摘要
+     */
+    String hex() {
+        MessageDigest digest = sha256();
+        entries.values().forEach(digest::update);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,15 +1,16 @@
 package io.yorkecao.azkabandemo.utils;
 
 import java.io.*;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
 import java.util.zip.CRC32;
-import java.util.zip.CheckedOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -23,33 +24,182 @@ public class FileUtils {
     }
 
     public static void zipFiles(String zipFile, String... files) throws IOException {
-        try (FileOutputStream fos = new FileOutputStream(zipFile);
-             CheckedOutputStream cos = new CheckedOutputStream(fos, new CRC32());
-             ZipOutputStream zos = new ZipOutputStream(cos)) {
+        zipFiles(zipFile, ZipOptions.defaults(), files);
+    }
 
-            Stream.of(files)
-                    .map(Paths::get)
-                    .filter(Files::exists)
-                    .forEach(filePath -> compress(filePath, zos, ""));
+    public static void zipFiles(String zipFile, ZipOptions options, String... files) throws IOException {
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(Paths.get(zipFile)), options.getBufferSize())) {
+            zipFiles(os, options, Stream.of(files).map(Paths::get).toArray(Path[]::new));
         }
     }
 
     /**
-     * 压缩目录或文件
+     * 将文件或目录流式压缩到输出流
+     * <p>
+     * 文件内容经固定大小的缓冲区复制，内存占用与文件大小无关；目录逐层遍历，
+     * 同一目录下的条目按名称排序，相同内容得到相同的条目顺序。
+     * 排序需要读入每个目录的完整列表，遍历占用的内存与单个目录的子项数成正比，而不是完全惰性的。
+     * 写完后 finish 但不关闭 out。
+     *
+     * @param out     输出流
+     * @param options 打包参数
+     * @param sources 待压缩的文件或目录，不存在的路径被忽略
      */
-    private static void compress(Path filePath, ZipOutputStream zos, String baseDir) {
+    public static void zipFiles(OutputStream out, ZipOptions options, Path... sources) throws IOException {
+        zipFiles(out, options, null, sources);
+    }
+
+    /**
+     * 与 {@link #zipFiles(OutputStream, ZipOptions, Path...)} 相同，同时由写入 Zip 的字节计算 {@link #digest} 摘要
+     * <p>
+     * 摘要反映的是实际打包的内容，打包期间文件被修改时与事先计算的摘要不同。
+     *
+     * @return 十六进制摘要
+     */
+    public static String zipFilesWithDigest(OutputStream out, ZipOptions options, Path... sources) throws IOException {
+        BundleDigest digest = new BundleDigest();
+        zipFiles(out, options, digest, sources);
+        return digest.hex();
+    }
+
+    private static void zipFiles(OutputStream out, ZipOptions options, BundleDigest digest, Path... sources) throws IOException {
+        ZipOutputStream zos = new ZipOutputStream(out);
+        zos.setLevel(options.getLevel());
+        byte[] buffer = new byte[options.getBufferSize()];
+        for (Path source : sources) {
+            if (Files.exists(source)) {
+                compress(source, zos, "", options, buffer, digest);
+            }
+        }
+        zos.finish();
+    }
+
+    /**
+     * 多线程压缩文件或目录，条目按与 {@link #zipFiles(OutputStream, ZipOptions, Path...)} 相同的顺序写入，
+     * 生成的是标准 Zip 文件
+     *
+     * @param zipFile 目标 Zip 路径
+     * @param options 打包参数，并行度取 {@link ZipOptions#getParallelism()}
+     * @param files   待压缩的文件或目录
+     */
+    public static void parallelZipFiles(String zipFile, ZipOptions options, String... files) throws IOException {
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(Paths.get(zipFile)), options.getBufferSize())) {
+            parallelZipFiles(os, options, Stream.of(files).map(Paths::get).toArray(Path[]::new));
+        }
+    }
+
+    public static void parallelZipFiles(OutputStream out, ZipOptions options, Path... sources) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(options.getParallelism());
         try {
-            if (Files.isDirectory(filePath)) {
-                // 压缩目录
-                Files.list(filePath).forEach(subFilePath -> compress(subFilePath, zos, baseDir + filePath.getFileName().toString() + "/"));
-            } else {
-                // 压缩文件
-                ZipEntry entry = new ZipEntry(baseDir + filePath.getFileName().toString());
-                zos.putNextEntry(entry);
-                zos.write(Files.readAllBytes(filePath));
+            new ParallelZipWriter(out, options, pool).write(sources);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 计算文件或目录内容的 SHA-256 摘要
+     * <p>
+     * 摘要覆盖条目名与文件内容，不含修改时间；各条目的摘要按条目名排序合并，
+     * 因此与文件系统的遍历顺序及入参顺序无关。
+     *
+     * @param sources 文件或目录，不存在的路径被忽略
+     * @return 十六进制摘要
+     */
+    public static String digest(Path... sources) throws IOException {
+        BundleDigest digest = new BundleDigest();
+        byte[] buffer = new byte[64 * 1024];
+        for (Path source : sources) {
+            if (!Files.exists(source)) {
+                continue;
             }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            walk(source, "", (file, entryName) -> {
+                try (InputStream in = Files.newInputStream(file)) {
+                    digest.add(entryName, in, null, buffer);
+                }
+            });
+        }
+        return digest.hex();
+    }
+
+    /**
+     * 压缩目录或文件
+     */
+    private static void compress(Path filePath, ZipOutputStream zos, String baseDir, ZipOptions options, byte[] buffer,
+                                 BundleDigest digest) throws IOException {
+        walk(filePath, baseDir, (file, entryName) -> {
+            ZipEntry entry = new ZipEntry(entryName);
+            entry.setTime(Files.getLastModifiedTime(file).toMillis());
+            if (options.isStored(entryName)) {
+                // STORED 条目需要预先写入大小与 CRC，多读一遍文件而不是缓存到内存
+                long size = Files.size(file);
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(size);
+                entry.setCompressedSize(size);
+                entry.setCrc(crc32(file, buffer));
+            }
+            zos.putNextEntry(entry);
+            try (InputStream in = Files.newInputStream(file)) {
+                if (digest == null) {
+                    copy(in, zos, buffer);
+                } else {
+                    digest.add(entryName, in, zos, buffer);
+                }
+            }
+            zos.closeEntry();
+        });
+    }
+
+    /**
+     * 按 Zip 条目顺序遍历文件，目录逐层展开，同一目录下按名称排序
+     *
+     * @param filePath 文件或目录
+     * @param baseDir  条目名前缀
+     * @param visitor  对每个文件及其条目名的处理
+     */
+    static void walk(Path filePath, String baseDir, EntryVisitor visitor) throws IOException {
+        String entryName = baseDir + filePath.getFileName().toString();
+        if (Files.isDirectory(filePath)) {
+            for (Path subFilePath : listSorted(filePath)) {
+                walk(subFilePath, entryName + "/", visitor);
+            }
+        } else {
+            visitor.visit(filePath, entryName);
+        }
+    }
+
+    @FunctionalInterface
+    interface EntryVisitor {
+        void visit(Path file, String entryName) throws IOException;
+    }
+
+    /**
+     * 读入目录的全部子项路径并按名称排序，只保存路径，不读文件内容
+     */
+    static List<Path> listSorted(Path dir) throws IOException {
+        List<Path> children = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            stream.forEach(children::add);
+        }
+        children.sort((a, b) -> a.getFileName().toString().compareTo(b.getFileName().toString()));
+        return children;
+    }
+
+    static long crc32(Path filePath, byte[] buffer) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = Files.newInputStream(filePath)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    static void copy(InputStream in, OutputStream out, byte[] buffer) throws IOException {
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
         }
     }
 }
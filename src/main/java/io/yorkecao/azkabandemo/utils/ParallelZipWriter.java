@@ -0,0 +1,364 @@
+package io.yorkecao.azkabandemo.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * 并行 Zip 写入器
+ * <p>
+ * 各条目在 ForkJoinPool 上独立压缩，调用线程按提交顺序把压缩结果写入输出流。
+ * {@link java.util.zip.ZipOutputStream} 不接受已压缩的数据，因此这里直接按 Zip 格式输出，
+ * 超出 4G 或 65535 个条目时使用 Zip64 扩展。同时在途的条目数为并行度的两倍，内存占用有上限。
+ *
+ * @author Yorke
+ */
+class ParallelZipWriter {
+
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_SHORT = 0xFFFF;
+    private static final int UTF8_FLAG = 0x0800;
+
+    private final OutputStream out;
+    private final ZipOptions options;
+    private final ForkJoinPool pool;
+    private final List<CentralEntry> centralEntries = new ArrayList<>();
+    private final byte[] scratch = new byte[8];
+    private long offset;
+    /**
+     * 写入失败后置位，尚未开始的压缩任务直接跳过
+     */
+    private volatile boolean aborted;
+
+    ParallelZipWriter(OutputStream out, ZipOptions options, ForkJoinPool pool) {
+        this.out = out;
+        this.options = options;
+        this.pool = pool;
+    }
+
+    void write(Path... sources) throws IOException {
+        int windowSize = Math.max(1, options.getParallelism() * 2);
+        Deque<ForkJoinTask<CompressedEntry>> window = new ArrayDeque<>();
+        try {
+            for (Path source : sources) {
+                if (!Files.exists(source)) {
+                    continue;
+                }
+                FileUtils.walk(source, "", (file, entryName) -> {
+                    window.addLast(pool.submit(() -> compress(file, entryName)));
+                    if (window.size() >= windowSize) {
+                        writeEntry(await(window.removeFirst()));
+                    }
+                });
+            }
+            while (!window.isEmpty()) {
+                writeEntry(await(window.removeFirst()));
+            }
+        } catch (IOException | RuntimeException e) {
+            aborted = true;
+            discard(window);
+            throw e;
+        }
+        writeCentralDirectory();
+        out.flush();
+    }
+
+    private CompressedEntry compress(Path file, String entryName) {
+        if (aborted) {
+            return null;
+        }
+        CompressedEntry entry = null;
+        try {
+            boolean stored = options.isStored(entryName);
+            entry = new CompressedEntry(entryName, stored ? ZipEntry.STORED : ZipEntry.DEFLATED,
+                    dosTime(Files.getLastModifiedTime(file).toMillis()));
+            OutputStream sink;
+            if (Files.size(file) <= options.getInMemoryThreshold()) {
+                entry.memory = new ByteArrayOutputStream();
+                sink = entry.memory;
+            } else {
+                entry.tempFile = Files.createTempFile("azkaban-zip-", ".part");
+                sink = Files.newOutputStream(entry.tempFile);
+            }
+
+            byte[] buffer = new byte[options.getBufferSize()];
+            CRC32 crc = new CRC32();
+            Deflater deflater = stored ? null : new Deflater(options.getLevel(), true);
+            try (InputStream in = Files.newInputStream(file);
+                 OutputStream data = stored ? sink : new DeflaterOutputStream(sink, deflater, buffer.length)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    crc.update(buffer, 0, read);
+                    data.write(buffer, 0, read);
+                    entry.size += read;
+                }
+            } finally {
+                if (deflater != null) {
+                    deflater.end();
+                }
+            }
+            entry.crc = crc.getValue();
+            entry.compressedSize = entry.memory != null ? entry.memory.size() : Files.size(entry.tempFile);
+            return entry;
+        } catch (IOException | RuntimeException e) {
+            if (entry != null) {
+                entry.release();
+            }
+            throw e instanceof IOException ? new UncheckedIOException((IOException) e) : (RuntimeException) e;
+        }
+    }
+
+    private void writeEntry(CompressedEntry entry) throws IOException {
+        try {
+            long localHeaderOffset = offset;
+            boolean zip64 = entry.size >= ZIP64_MAGIC || entry.compressedSize >= ZIP64_MAGIC;
+
+            writeInt(0x04034b50);
+            writeShort(zip64 ? 45 : 20);
+            writeShort(UTF8_FLAG);
+            writeShort(entry.method);
+            writeInt(entry.dosTime);
+            writeInt(entry.crc);
+            writeInt(zip64 ? ZIP64_MAGIC : entry.compressedSize);
+            writeInt(zip64 ? ZIP64_MAGIC : entry.size);
+            writeShort(entry.name.length);
+            writeShort(zip64 ? 20 : 0);
+            writeBytes(entry.name);
+            if (zip64) {
+                writeShort(0x0001);
+                writeShort(16);
+                writeLong(entry.size);
+                writeLong(entry.compressedSize);
+            }
+
+            if (entry.memory != null) {
+                entry.memory.writeTo(out);
+            } else {
+                Files.copy(entry.tempFile, out);
+            }
+            offset += entry.compressedSize;
+
+            centralEntries.add(new CentralEntry(entry, localHeaderOffset));
+        } finally {
+            entry.release();
+        }
+    }
+
+    private void writeCentralDirectory() throws IOException {
+        long centralDirectoryOffset = offset;
+        for (CentralEntry entry : centralEntries) {
+            boolean sizeOverflow = entry.size >= ZIP64_MAGIC || entry.compressedSize >= ZIP64_MAGIC;
+            boolean offsetOverflow = entry.localHeaderOffset >= ZIP64_MAGIC;
+            int extraLength = (sizeOverflow || offsetOverflow ? 4 : 0) + (sizeOverflow ? 16 : 0) + (offsetOverflow ? 8 : 0);
+            int version = extraLength > 0 ? 45 : 20;
+
+            writeInt(0x02014b50);
+            writeShort(version);
+            writeShort(version);
+            writeShort(UTF8_FLAG);
+            writeShort(entry.method);
+            writeInt(entry.dosTime);
+            writeInt(entry.crc);
+            writeInt(sizeOverflow ? ZIP64_MAGIC : entry.compressedSize);
+            writeInt(sizeOverflow ? ZIP64_MAGIC : entry.size);
+            writeShort(entry.name.length);
+            writeShort(extraLength);
+            // comment length, disk number, internal and external attributes
+            writeShort(0);
+            writeShort(0);
+            writeShort(0);
+            writeInt(0);
+            writeInt(offsetOverflow ? ZIP64_MAGIC : entry.localHeaderOffset);
+            writeBytes(entry.name);
+            if (extraLength > 0) {
+                writeShort(0x0001);
+                writeShort(extraLength - 4);
+                if (sizeOverflow) {
+                    writeLong(entry.size);
+                    writeLong(entry.compressedSize);
+                }
+                if (offsetOverflow) {
+                    writeLong(entry.localHeaderOffset);
+                }
+            }
+        }
+
+        long centralDirectorySize = offset - centralDirectoryOffset;
+        int count = centralEntries.size();
+        boolean zip64 = count >= ZIP64_MAGIC_SHORT || centralDirectorySize >= ZIP64_MAGIC || centralDirectoryOffset >= ZIP64_MAGIC;
+        if (zip64) {
+            long zip64EndOffset = offset;
+            writeInt(0x06064b50);
+            writeLong(44);
+            writeShort(45);
+            writeShort(45);
+            writeInt(0);
+            writeInt(0);
+            writeLong(count);
+            writeLong(count);
+            writeLong(centralDirectorySize);
+            writeLong(centralDirectoryOffset);
+
+            writeInt(0x07064b50);
+            writeInt(0);
+            writeLong(zip64EndOffset);
+            writeInt(1);
+        }
+        writeInt(0x06054b50);
+        writeShort(0);
+        writeShort(0);
+        writeShort(zip64 ? ZIP64_MAGIC_SHORT : count);
+        writeShort(zip64 ? ZIP64_MAGIC_SHORT : count);
+        writeInt(zip64 ? ZIP64_MAGIC : centralDirectorySize);
+        writeInt(zip64 ? ZIP64_MAGIC : centralDirectoryOffset);
+        writeShort(0);
+    }
+
+    private static CompressedEntry await(ForkJoinTask<CompressedEntry> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing zip entries");
+        } catch (ExecutionException e) {
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * 等待窗口中的任务结束并释放其结果
+     * <p>
+     * 不取消任务：ForkJoinTask 的 cancel 不会中断正在执行的压缩，被标记为取消后其结果也无法再取得，临时文件会泄漏。
+     * 置位 aborted 后未开始的任务直接返回，等待时间最多为窗口内正在执行的条目的压缩时间。
+     */
+    private static void discard(Deque<ForkJoinTask<CompressedEntry>> window) {
+        for (ForkJoinTask<CompressedEntry> task : window) {
+            task.quietlyJoin();
+            CompressedEntry entry = task.isCompletedNormally() ? task.getRawResult() : null;
+            if (entry != null) {
+                entry.release();
+            }
+        }
+        window.clear();
+    }
+
+    private static int dosTime(long time) {
+        LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+        if (dateTime.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (dateTime.getYear() - 1980) << 25
+                | dateTime.getMonthValue() << 21
+                | dateTime.getDayOfMonth() << 16
+                | dateTime.getHour() << 11
+                | dateTime.getMinute() << 5
+                | dateTime.getSecond() >> 1;
+    }
+
+    private void writeShort(int value) throws IOException {
+        scratch[0] = (byte) value;
+        scratch[1] = (byte) (value >>> 8);
+        out.write(scratch, 0, 2);
+        offset += 2;
+    }
+
+    private void writeInt(long value) throws IOException {
+        for (int i = 0; i < 4; i++) {
+            scratch[i] = (byte) (value >>> (8 * i));
+        }
+        out.write(scratch, 0, 4);
+        offset += 4;
+    }
+
+    private void writeLong(long value) throws IOException {
+        for (int i = 0; i < 8; i++) {
+            scratch[i] = (byte) (value >>> (8 * i));
+        }
+        out.write(scratch, 0, 8);
+        offset += 8;
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        out.write(bytes);
+        offset += bytes.length;
+    }
+
+    /**
+     * 已压缩、等待写入的条目
+     */
+    private static class CompressedEntry {
+        private final byte[] name;
+        private final int method;
+        private final int dosTime;
+        private long crc;
+        private long size;
+        private long compressedSize;
+        private ByteArrayOutputStream memory;
+        private Path tempFile;
+
+        private CompressedEntry(String name, int method, int dosTime) {
+            this.name = name.getBytes(StandardCharsets.UTF_8);
+            this.method = method;
+            this.dosTime = dosTime;
+        }
+
+        private void release() {
+            memory = null;
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ignored) {
+                    tempFile.toFile().deleteOnExit();
+                }
+            }
+        }
+    }
+
+    /**
+     * 中央目录中的一条记录，压缩数据写出后只保留元信息
+     */
+    private static class CentralEntry {
+        private final byte[] name;
+        private final int method;
+        private final int dosTime;
+        private final long crc;
+        private final long size;
+        private final long compressedSize;
+        private final long localHeaderOffset;
+
+        private CentralEntry(CompressedEntry entry, long localHeaderOffset) {
+            this.name = entry.name;
+            this.method = entry.method;
+            this.dosTime = entry.dosTime;
+            this.crc = entry.crc;
+            this.size = entry.size;
+            this.compressedSize = entry.compressedSize;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package io.yorkecao.azkabandemo.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * 持久化到本地文件的键值表，每次修改后立即保存
+ * <p>
+ * 保存时先写同目录下的临时文件再原子替换，进程中断不会留下半个文件。
+ *
+ * @author Yorke
+ */
+public class PropertiesFile {
+
+    private final Path file;
+    private final String comment;
+    private final Properties properties = new Properties();
+
+    /**
+     * @param file    存储文件，不存在时在首次修改时创建
+     * @param comment 写在文件头部的说明
+     */
+    public PropertiesFile(Path file, String comment) {
+        this.file = file;
+        this.comment = comment;
+    }
+
+    /**
+     * @return 读取到的条目数，文件不存在时为 0
+     */
+    public synchronized int load() throws IOException {
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            }
+        }
+        return properties.size();
+    }
+
+    public synchronized String get(String key) {
+        return properties.getProperty(key);
+    }
+
+    public synchronized void put(String key, String value) {
+        if (!value.equals(properties.setProperty(key, value))) {
+            save();
+        }
+    }
+
+    public synchronized void remove(String key) {
+        if (properties.remove(key) != null) {
+            save();
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    private void save() {
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tempFile = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                properties.store(out, comment);
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.yorkecao.azkabandemo.utils;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+/**
+ * Zip 打包参数
+ *
+ * @author Yorke
+ */
+@Getter
+@Setter
+public class ZipOptions {
+    /**
+     * 压缩级别，0-9 或 {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    private int level = Deflater.DEFAULT_COMPRESSION;
+    /**
+     * 以 STORED 方式直接存放的文件后缀（不含点，小写），用于 jar 等已压缩过的文件
+     */
+    private Set<String> storedExtensions = new HashSet<>(Arrays.asList("jar", "zip", "gz", "tgz", "bz2", "xz", "snappy", "png", "jpg", "jpeg"));
+    /**
+     * 复制文件内容使用的缓冲区大小
+     */
+    private int bufferSize = 64 * 1024;
+    /**
+     * 并行压缩使用的线程数
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    /**
+     * 并行压缩时单个条目压缩结果在内存中保留的上限，超出后写入临时文件
+     */
+    private int inMemoryThreshold = 8 * 1024 * 1024;
+
+    public static ZipOptions defaults() {
+        return new ZipOptions();
+    }
+
+    public static ZipOptions level(int level) {
+        ZipOptions options = new ZipOptions();
+        options.setLevel(level);
+        return options;
+    }
+
+    /**
+     * @param entryName Zip 条目名
+     * @return 该条目是否不压缩直接存放
+     */
+    public boolean isStored(String entryName) {
+        int dot = entryName.lastIndexOf('.');
+        return dot >= 0 && storedExtensions.contains(entryName.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+}
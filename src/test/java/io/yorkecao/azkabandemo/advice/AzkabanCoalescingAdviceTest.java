@@ -0,0 +1,126 @@
+package io.yorkecao.azkabandemo.advice;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.yorkecao.azkabandemo.azkaban.AzkabanAdapter;
+import io.yorkecao.azkabandemo.azkaban.AzkabanOperation;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.Writer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class AzkabanCoalescingAdviceTest {
+
+    private AzkabanCoalescingAdvice advice;
+    private MeterRegistry registry;
+    private AzkabanOperation fetchProjectFlows;
+    private AzkabanOperation streamJobLogs;
+    private final Object target = new Object();
+
+    @Before
+    public void setUp() throws NoSuchMethodException {
+        registry = new SimpleMeterRegistry();
+        advice = new AzkabanCoalescingAdvice();
+        ReflectionTestUtils.setField(advice, "config", new AzkabanDemoConfiguration());
+        ReflectionTestUtils.setField(advice, "registry", registry);
+        advice.init();
+
+        fetchProjectFlows = AzkabanAdapter.class.getMethod("fetchProjectFlows", String.class)
+                .getAnnotation(AzkabanOperation.class);
+        streamJobLogs = AzkabanAdapter.class.getMethod("fetchExecutionJobLogs", String.class, String.class, long.class, int.class, Writer.class)
+                .getAnnotation(AzkabanOperation.class);
+    }
+
+    @Test
+    public void concurrentCallsWithSameArgumentsShareOneExecution() throws Throwable {
+        CountDownLatch release = new CountDownLatch(1);
+        ProceedingJoinPoint leader = joinPoint("fetchProjectFlows", "p");
+        when(leader.proceed()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return "flows";
+        });
+        CompletableFuture<Object> first = call(leader, fetchProjectFlows);
+        awaitInFlight(1);
+
+        ProceedingJoinPoint follower = joinPoint("fetchProjectFlows", "p");
+        Thread joiner = new Thread(() -> {
+            try {
+                assertEquals("flows", advice.coalesce(follower, fetchProjectFlows));
+            } catch (Throwable e) {
+                throw new AssertionError(e);
+            }
+        });
+        joiner.start();
+        while (joiner.getState() != Thread.State.WAITING && joiner.isAlive()) {
+            Thread.sleep(1);
+        }
+        // 参数不同的调用不等待在途调用
+        ProceedingJoinPoint other = joinPoint("fetchProjectFlows", "q");
+        when(other.proceed()).thenReturn("other flows");
+        assertEquals("other flows", advice.coalesce(other, fetchProjectFlows));
+
+        release.countDown();
+        joiner.join(5000);
+        assertEquals("flows", first.get(5, TimeUnit.SECONDS));
+        verify(follower, never()).proceed();
+        assertEquals(2, registry.get(AzkabanCoalescingAdvice.COUNTER).tag("result", "executed").counter().count(), 0);
+        assertEquals(1, registry.get(AzkabanCoalescingAdvice.COUNTER).tag("result", "joined").counter().count(), 0);
+        assertEquals(1.0 / 3, registry.get(AzkabanCoalescingAdvice.RATIO).tag("operation", "fetchProjectFlows").gauge().value(), 1e-9);
+    }
+
+    @Test
+    public void excludedOperationsAreNeverCoalesced() throws Throwable {
+        CountDownLatch release = new CountDownLatch(1);
+        ProceedingJoinPoint leader = joinPoint("fetchExecutionJobLogs", "1", "j", 0L, 100, null);
+        when(leader.proceed()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return "chunk";
+        });
+        CompletableFuture<Object> first = call(leader, streamJobLogs);
+
+        // 写入调用方输出的日志读取 coalesce = false，相同参数也各自执行
+        ProceedingJoinPoint second = joinPoint("fetchExecutionJobLogs", "1", "j", 0L, 100, null);
+        when(second.proceed()).thenReturn("own chunk");
+        assertEquals("own chunk", advice.coalesce(second, streamJobLogs));
+
+        release.countDown();
+        assertEquals("chunk", first.get(5, TimeUnit.SECONDS));
+        assertNull(registry.find(AzkabanCoalescingAdvice.COUNTER).counter());
+    }
+
+    private ProceedingJoinPoint joinPoint(String name, Object... args) {
+        Signature signature = mock(Signature.class);
+        when(signature.getName()).thenReturn(name);
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getTarget()).thenReturn(target);
+        when(joinPoint.getArgs()).thenReturn(args);
+        return joinPoint;
+    }
+
+    private CompletableFuture<Object> call(ProceedingJoinPoint joinPoint, AzkabanOperation operation) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return advice.coalesce(joinPoint, operation);
+            } catch (Throwable e) {
+                throw new AssertionError(e);
+            }
+        });
+    }
+
+    private void awaitInFlight(int expected) throws InterruptedException {
+        while (registry.get(AzkabanCoalescingAdvice.IN_FLIGHT).gauge().value() < expected) {
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package io.yorkecao.azkabandemo.advice;
+
+import io.yorkecao.azkabandemo.azkaban.AzkabanAdapter;
+import io.yorkecao.azkabandemo.azkaban.AzkabanOperation;
+import io.yorkecao.azkabandemo.azkaban.AzkabanSessionManager;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.exception.AzkabanRejectedException;
+import io.yorkecao.azkabandemo.resilience.AzkabanResilience;
+import io.yorkecao.azkabandemo.resilience.CircuitBreaker;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class AzkabanResilienceAdviceTest {
+
+    private AzkabanResilienceAdvice advice;
+    private CircuitBreaker breaker;
+    private AzkabanOperation operation;
+
+    @Before
+    public void setUp() throws NoSuchMethodException {
+        breaker = new CircuitBreaker("test", 50, 2, 2, Duration.ZERO, 1);
+        AzkabanResilience resilience = mock(AzkabanResilience.class);
+        when(resilience.getCircuitBreaker("default")).thenReturn(breaker);
+        operation = AzkabanAdapter.class.getMethod("fetchProjectFlows", String.class).getAnnotation(AzkabanOperation.class);
+
+        advice = new AzkabanResilienceAdvice();
+        ReflectionTestUtils.setField(advice, "resilience", resilience);
+    }
+
+    @Test
+    public void probeRejectedByRateLimiterLeavesBreakerHalfOpen() throws Throwable {
+        for (int i = 0; i < 2; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.proceed()).thenThrow(new AzkabanRejectedException("Azkaban fetch rate limit exceeded."));
+
+        try {
+            advice.guard(joinPoint, operation);
+            fail("expected rejection");
+        } catch (AzkabanRejectedException e) {
+            // 探测调用没有到达 Azkaban，熔断器既不关闭也不重新打开，探测许可归还
+            assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+            assertTrue(breaker.tryAcquire());
+        }
+    }
+
+    @Test
+    public void outageOfOneClusterDoesNotOpenOthers() throws Throwable {
+        AzkabanDemoConfiguration config = new AzkabanDemoConfiguration();
+        config.getCircuitBreaker().setMinimumCalls(2);
+        config.getCircuitBreaker().setSlidingWindowSize(2);
+        AzkabanResilience resilience = new AzkabanResilience();
+        ReflectionTestUtils.setField(resilience, "config", config);
+        resilience.init();
+        ReflectionTestUtils.setField(advice, "resilience", resilience);
+
+        ProceedingJoinPoint other = joinPointOn("other");
+        when(other.proceed()).thenThrow(new ResourceAccessException("I/O error", new SocketTimeoutException()));
+        for (int i = 0; i < 2; i++) {
+            try {
+                advice.guard(other, operation);
+                fail("expected timeout");
+            } catch (ResourceAccessException e) {
+                // 计为 other 集群的失败
+            }
+        }
+        ProceedingJoinPoint healthy = joinPointOn(AzkabanDemoConfiguration.Cluster.DEFAULT);
+        when(healthy.proceed()).thenReturn("ok");
+
+        assertEquals(CircuitBreaker.State.OPEN, resilience.getCircuitBreaker("other").getState());
+        assertEquals("ok", advice.guard(healthy, operation));
+        assertEquals(CircuitBreaker.State.CLOSED, resilience.getCircuitBreaker(AzkabanDemoConfiguration.Cluster.DEFAULT).getState());
+    }
+
+    private static ProceedingJoinPoint joinPointOn(String clusterName) {
+        AzkabanDemoConfiguration.Cluster cluster = new AzkabanDemoConfiguration.Cluster();
+        cluster.setName(clusterName);
+        AzkabanSessionManager sessionManager = mock(AzkabanSessionManager.class);
+        when(sessionManager.getCluster()).thenReturn(cluster);
+        AzkabanAdapter adapter = mock(AzkabanAdapter.class);
+        when(adapter.getSessionManager()).thenReturn(sessionManager);
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getTarget()).thenReturn(adapter);
+        return joinPoint;
+    }
+}
@@ -0,0 +1,33 @@
+package io.yorkecao.azkabandemo.advice;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import io.yorkecao.azkabandemo.exception.AzkabanException;
+import org.apache.http.NoHttpResponseException;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+
+import static org.junit.Assert.*;
+
+public class AzkabanRetryAdviceTest {
+
+    @Test
+    public void retriesOnlyTransportFailuresAndServerErrors() {
+        assertTrue(AzkabanRetryAdvice.isTransient(new ResourceAccessException("I/O error", new SocketTimeoutException())));
+        assertTrue(AzkabanRetryAdvice.isTransient(new ResourceAccessException("I/O error", new NoHttpResponseException("failed to respond"))));
+        assertTrue(AzkabanRetryAdvice.isTransient(new ResourceAccessException("I/O error", new SocketException("Connection reset"))));
+        assertTrue(AzkabanRetryAdvice.isTransient(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE)));
+
+        assertFalse(AzkabanRetryAdvice.isTransient(new HttpClientErrorException(HttpStatus.NOT_FOUND)));
+        assertFalse(AzkabanRetryAdvice.isTransient(new ResourceAccessException("I/O error", new JsonParseException(null, "Unexpected character"))));
+        assertFalse(AzkabanRetryAdvice.isTransient(new ResourceAccessException("I/O error", new IOException("Stream closed"))));
+        assertFalse(AzkabanRetryAdvice.isTransient(new AzkabanException("Project doesn't exist.")));
+        assertFalse(AzkabanRetryAdvice.isTransient(new NullPointerException()));
+    }
+}
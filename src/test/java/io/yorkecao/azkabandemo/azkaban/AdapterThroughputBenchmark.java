@@ -0,0 +1,69 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import io.yorkecao.azkabandemo.model.Execution;
+import io.yorkecao.azkabandemo.model.ExecutionPage;
+import io.yorkecao.azkabandemo.model.JobLogChunk;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 经由真实连接池与本地桩服务的端到端吞吐
+ * <p>
+ * 适配器由 {@link LocalAzkabanClient} 组装，测量的是请求构造、HTTP 往返与响应绑定本身。
+ *
+ * @author Yorke
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class AdapterThroughputBenchmark {
+
+    private AzkabanStubServer server;
+    private LocalAzkabanClient client;
+    private AzkabanAdapter adapter;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new AzkabanStubServer(32).start();
+        client = new LocalAzkabanClient(server.getUrl());
+        adapter = client.getAdapter();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public Execution executionInfo() {
+        return adapter.executionInfo("304");
+    }
+
+    @Benchmark
+    public ExecutionPage fetchFlowExecutions() {
+        return adapter.fetchFlowExecutions("p", "f", 0, 100);
+    }
+
+    @Benchmark
+    public JobLogChunk fetchExecutionJobLogs() {
+        return adapter.fetchExecutionJobLogs("304", "job-0", 0L, 64 * 1024, NullWriter.INSTANCE);
+    }
+}
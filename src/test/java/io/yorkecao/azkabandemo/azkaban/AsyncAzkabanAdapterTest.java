@@ -0,0 +1,109 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import io.yorkecao.azkabandemo.exception.AzkabanException;
+import io.yorkecao.azkabandemo.exception.AzkabanRejectedException;
+import io.yorkecao.azkabandemo.model.ProjectFlows;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class AsyncAzkabanAdapterTest {
+
+    private AsyncAzkabanAdapter asyncAdapter;
+    private AzkabanAdapter adapter;
+    private ThreadPoolTaskExecutor executor;
+
+    @Before
+    public void setUp() {
+        adapter = mock(AzkabanAdapter.class);
+        AzkabanClusterRouter clusterRouter = mock(AzkabanClusterRouter.class);
+        when(clusterRouter.forProject("p")).thenReturn(adapter);
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("azkaban-");
+        executor.initialize();
+
+        asyncAdapter = new AsyncAzkabanAdapter();
+        ReflectionTestUtils.setField(asyncAdapter, "azkabanAdapter", adapter);
+        ReflectionTestUtils.setField(asyncAdapter, "azkabanExecutor", executor);
+        ReflectionTestUtils.setField(asyncAdapter, "clusterRouter", clusterRouter);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void completesWithAdapterResultOnExecutorThread() throws Exception {
+        ProjectFlows flows = new ProjectFlows();
+        AtomicReference<String> thread = new AtomicReference<>();
+        when(adapter.fetchProjectFlows("p")).thenAnswer(invocation -> {
+            thread.set(Thread.currentThread().getName());
+            return flows;
+        });
+
+        assertSame(flows, asyncAdapter.fetchProjectFlows("p").get(5, TimeUnit.SECONDS));
+        assertTrue(thread.get().startsWith("azkaban-"));
+    }
+
+    @Test
+    public void failuresKeepAzkabanExceptionSemantics() throws Exception {
+        when(adapter.startFlow("p", "f", null)).thenThrow(new AzkabanException("Flow f not found."));
+        when(adapter.scheduleFlow("p", "f", "0 0 * ? * *")).thenThrow(new IOException("reset"));
+
+        assertEquals("Flow f not found.", cause(asyncAdapter.startFlow("p", "f", null)).getMessage());
+        // 受检的 IOException 与同步版本一样包装为 AzkabanException
+        Throwable wrapped = cause(asyncAdapter.scheduleFlow("p", "f", "0 0 * ? * *"));
+        assertTrue(wrapped instanceof AzkabanException);
+        assertTrue(wrapped.getCause() instanceof IOException);
+    }
+
+    @Test
+    public void saturatedExecutorFailsFast() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(adapter.fetchProjectFlows("p")).thenAnswer(invocation -> {
+            release.await();
+            return null;
+        });
+        // 一个在执行、一个在队列中，第三个被拒绝
+        CompletableFuture<ProjectFlows> running = asyncAdapter.fetchProjectFlows("p");
+        CompletableFuture<ProjectFlows> queued = asyncAdapter.fetchProjectFlows("p");
+        CompletableFuture<ProjectFlows> rejected = asyncAdapter.fetchProjectFlows("p");
+
+        assertTrue(rejected.isCompletedExceptionally());
+        Throwable e = cause(rejected);
+        assertTrue(e instanceof AzkabanRejectedException);
+        assertEquals(503, ((AzkabanException) e).getCode());
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+    }
+
+    private static Throwable cause(CompletableFuture<?> future) throws InterruptedException {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("expected failure");
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (TimeoutException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
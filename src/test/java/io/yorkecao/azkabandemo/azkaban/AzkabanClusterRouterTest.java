@@ -0,0 +1,165 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.exception.AzkabanException;
+import io.yorkecao.azkabandemo.model.ProjectFlows;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class AzkabanClusterRouterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private AzkabanDemoConfiguration config;
+    private AzkabanClusterRouter router;
+    private AzkabanAdapter defaultAdapter;
+    private AzkabanAdapter otherAdapter;
+    private PoolingHttpClientConnectionManager defaultPool;
+    private PoolingHttpClientConnectionManager otherPool;
+
+    @Before
+    public void setUp() throws IOException {
+        config = new AzkabanDemoConfiguration();
+        config.getRouting().setPlacementStore(folder.getRoot().toPath().resolve("placements.properties").toString());
+        AzkabanPlacementStore placementStore = new AzkabanPlacementStore();
+        ReflectionTestUtils.setField(placementStore, "config", config);
+        placementStore.load();
+
+        defaultAdapter = mock(AzkabanAdapter.class);
+        otherAdapter = mock(AzkabanAdapter.class);
+        defaultPool = mock(PoolingHttpClientConnectionManager.class);
+        otherPool = mock(PoolingHttpClientConnectionManager.class);
+        when(defaultPool.getTotalStats()).thenReturn(new PoolStats(0, 0, 0, 100));
+        when(otherPool.getTotalStats()).thenReturn(new PoolStats(0, 0, 0, 100));
+
+        router = new AzkabanClusterRouter();
+        ReflectionTestUtils.setField(router, "config", config);
+        ReflectionTestUtils.setField(router, "azkabanAdapter", defaultAdapter);
+        ReflectionTestUtils.setField(router, "azkabanConnectionManager", defaultPool);
+        ReflectionTestUtils.setField(router, "placementStore", placementStore);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addOtherCluster() {
+        // 跳过 init 中的连接池与会话创建，直接登记第二个集群
+        router.init();
+        Map<String, AzkabanCluster> clusters = (Map<String, AzkabanCluster>) ReflectionTestUtils.getField(router, "clusters");
+        clusters.put("other", new AzkabanCluster("other", otherAdapter, otherPool));
+    }
+
+    @Test
+    public void singleClusterUsesDefaultAdapterWithoutLookup() {
+        router.init();
+
+        assertSame(defaultAdapter, router.forProject("p"));
+        verify(defaultAdapter, never()).fetchProjectFlows(anyString());
+    }
+
+    @Test
+    public void ruleWinsOverLookup() {
+        addOtherCluster();
+        Map<Pattern, String> rules = rules();
+        rules.put(Pattern.compile("etl-.*"), "other");
+
+        assertSame(otherAdapter, router.forProject("etl-nightly"));
+        verify(defaultAdapter, never()).fetchProjectFlows(anyString());
+    }
+
+    @Test
+    public void existingProjectIsFoundOnceAndRemembered() {
+        addOtherCluster();
+        when(otherAdapter.fetchProjectFlows("p")).thenReturn(new ProjectFlows());
+
+        assertSame(otherAdapter, router.forProject("p"));
+        assertSame(otherAdapter, router.forProject("p"));
+        verify(defaultAdapter, times(1)).fetchProjectFlows("p");
+        verify(otherAdapter, times(1)).fetchProjectFlows("p");
+    }
+
+    @Test
+    public void missesAreNotLookedUpAgain() {
+        addOtherCluster();
+
+        assertSame(defaultAdapter, router.forProject("missing"));
+        assertSame(defaultAdapter, router.forProject("missing"));
+        verify(defaultAdapter, times(1)).fetchProjectFlows("missing");
+        verify(otherAdapter, times(1)).fetchProjectFlows("missing");
+    }
+
+    @Test
+    public void failingClusterIsSkippedAndMissIsNotCached() {
+        addOtherCluster();
+        when(defaultAdapter.fetchProjectFlows("p")).thenThrow(new AzkabanException("Connection refused"));
+        when(otherAdapter.fetchProjectFlows("p")).thenReturn(new ProjectFlows());
+        when(defaultAdapter.fetchProjectFlows("q")).thenThrow(new AzkabanException("Connection refused"));
+
+        assertSame(otherAdapter, router.forProject("p"));
+        assertSame(defaultAdapter, router.forProject("q"));
+        router.forProject("q");
+        // 默认集群恢复前无法确认 q 不存在，每次都重新查询
+        verify(otherAdapter, times(2)).fetchProjectFlows("q");
+    }
+
+    @Test(expected = AzkabanException.class)
+    public void placementIsRefusedWhileClusterIsUnavailable() {
+        addOtherCluster();
+        when(otherAdapter.fetchProjectFlows("p")).thenThrow(new AzkabanException("Connection refused"));
+
+        router.place("p");
+    }
+
+    @Test
+    public void newProjectsArePlacedRoundRobin() {
+        addOtherCluster();
+
+        assertEquals("default", router.place("a").getName());
+        assertEquals("other", router.place("b").getName());
+        assertEquals("default", router.place("c").getName());
+        assertEquals("other", router.place("b").getName());
+    }
+
+    @Test
+    public void failedCreateReleasesPlacement() {
+        addOtherCluster();
+        doThrow(new AzkabanException("Project already exists.")).when(defaultAdapter).createProject("a", "d");
+
+        try {
+            router.createProject("a", "d");
+            fail("expected failure");
+        } catch (AzkabanException e) {
+            assertEquals("Project already exists.", e.getMessage());
+        }
+        // 放置记录已清除，再次创建时重新选择集群
+        assertEquals("other", router.createProject("a", "d").getName());
+        verify(otherAdapter).createProject("a", "d");
+    }
+
+    @Test
+    public void leastLoadedPlacementPicksIdleCluster() {
+        config.getRouting().setPlacement(AzkabanDemoConfiguration.Routing.Placement.LEAST_LOADED);
+        addOtherCluster();
+        when(defaultPool.getTotalStats()).thenReturn(new PoolStats(30, 5, 0, 100));
+        when(otherPool.getTotalStats()).thenReturn(new PoolStats(2, 0, 0, 100));
+
+        assertEquals("other", router.place("a").getName());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Pattern, String> rules() {
+        return (Map<Pattern, String>) ReflectionTestUtils.getField(router, "rules");
+    }
+}
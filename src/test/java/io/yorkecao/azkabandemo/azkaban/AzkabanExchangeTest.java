@@ -0,0 +1,67 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class AzkabanExchangeTest {
+
+    @Test
+    public void keepsBoundedPrefixButCountsAllBytes() {
+        AzkabanExchange exchange = AzkabanExchange.begin(8);
+        try {
+            assertSame(exchange, AzkabanExchange.current());
+            exchange.received(200);
+            read(exchange, "{\"error\":");
+            read(exchange, "\"session\"}");
+        } finally {
+            exchange.end();
+        }
+        assertNull(AzkabanExchange.current());
+        assertEquals(200, exchange.getStatus());
+        assertEquals(19, exchange.getBytes());
+        assertEquals("{\"error\"", exchange.getPayload());
+        assertTrue(exchange.isTruncated());
+    }
+
+    @Test
+    public void bodyWithinLimitIsKeptWhole() {
+        AzkabanExchange exchange = AzkabanExchange.begin(64);
+        read(exchange, "{\"status\":\"success\"}");
+        exchange.end();
+        assertEquals("{\"status\":\"success\"}", exchange.getPayload());
+        assertFalse(exchange.isTruncated());
+    }
+
+    @Test
+    public void truncationDoesNotSplitMultiByteCharacters() {
+        // "项目" 每个字各 3 字节，5 字节处落在第二个字中间
+        AzkabanExchange exchange = AzkabanExchange.begin(5);
+        read(exchange, "项目");
+        exchange.end();
+        assertEquals("项", exchange.getPayload());
+        assertTrue(exchange.isTruncated());
+
+        AzkabanExchange exact = AzkabanExchange.begin(6);
+        read(exact, "项目abc");
+        exact.end();
+        assertEquals("项目", exact.getPayload());
+    }
+
+    @Test
+    public void nestedExchangeRestoresOuter() {
+        AzkabanExchange outer = AzkabanExchange.begin(0);
+        AzkabanExchange inner = AzkabanExchange.begin(0);
+        inner.end();
+        assertSame(outer, AzkabanExchange.current());
+        outer.end();
+        assertNull(AzkabanExchange.current());
+    }
+
+    private static void read(AzkabanExchange exchange, String chunk) {
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        exchange.read(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,87 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import java.util.Arrays;
+
+/**
+ * 按 Azkaban AJAX API 文档构造的响应体，规模可调，供基准测试与桩服务使用
+ *
+ * @author Yorke
+ */
+public final class AzkabanFixtures {
+
+    private AzkabanFixtures() {
+    }
+
+    public static String login(String sessionId) {
+        return "{\"status\":\"success\",\"session.id\":\"" + sessionId + "\"}";
+    }
+
+    public static String error(String message) {
+        return "{\"error\":\"" + message + "\"}";
+    }
+
+    public static String projectFlows(String project, int flows) {
+        StringBuilder json = new StringBuilder("{\"project\":\"").append(project).append("\",\"projectId\":192,\"flows\":[");
+        for (int i = 0; i < flows; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"flowId\":\"flow-").append(i).append("\"}");
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * 每个 job 依赖前两个 job，形成较宽的依赖图
+     */
+    public static String flowGraph(String project, String flow, int jobs) {
+        StringBuilder json = new StringBuilder("{\"project\":\"").append(project).append("\",\"projectId\":192,\"flow\":\"")
+                .append(flow).append("\",\"nodes\":[");
+        for (int i = 0; i < jobs; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":\"job-").append(i).append("\",\"type\":\"command\",\"in\":[");
+            for (int in = Math.max(0, i - 2); in < i; in++) {
+                json.append(in == Math.max(0, i - 2) ? "" : ",").append("\"job-").append(in).append('"');
+            }
+            json.append("]}");
+        }
+        return json.append("]}").toString();
+    }
+
+    public static String execution(long execId, String status, int jobs) {
+        long start = 1407779473354L;
+        StringBuilder json = new StringBuilder("{\"attempt\":0,\"submitUser\":\"azkaban\",\"status\":\"").append(status)
+                .append("\",\"projectId\":192,\"project\":\"p\",\"flow\":\"f\",\"flowId\":\"f\",\"execid\":").append(execId)
+                .append(",\"submitTime\":").append(start).append(",\"startTime\":").append(start)
+                .append(",\"endTime\":-1,\"updateTime\":").append(start).append(",\"nodes\":[");
+        for (int i = 0; i < jobs; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":\"job-").append(i).append("\",\"type\":\"command\",\"status\":\"")
+                    .append(status).append("\",\"attempt\":0,\"startTime\":").append(start + i * 1000L)
+                    .append(",\"endTime\":").append(start + i * 1000L + 500).append(",\"updateTime\":").append(start + i * 1000L + 500)
+                    .append(",\"in\":[").append(i == 0 ? "" : "\"job-" + (i - 1) + "\"").append("]}");
+        }
+        return json.append("]}").toString();
+    }
+
+    public static String executionPage(String project, String flow, int from, int length, int total) {
+        StringBuilder json = new StringBuilder("{\"project\":\"").append(project).append("\",\"projectId\":192,\"flow\":\"").append(flow)
+                .append("\",\"from\":").append(from).append(",\"length\":").append(length).append(",\"total\":").append(total)
+                .append(",\"executions\":[");
+        for (int i = from; i < Math.min(total, from + length); i++) {
+            long execId = total - i;
+            json.append(i == from ? "" : ",").append("{\"execId\":").append(execId).append(",\"projectId\":192,\"flowId\":\"").append(flow)
+                    .append("\",\"status\":\"SUCCEEDED\",\"submitUser\":\"azkaban\",\"submitTime\":").append(execId * 1000)
+                    .append(",\"startTime\":").append(execId * 1000 + 10).append(",\"endTime\":").append(execId * 1000 + 500).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * @param bytes 日志内容长度，含需要转义的换行与制表符
+     */
+    public static String jobLog(long offset, int bytes) {
+        char[] data = new char[bytes];
+        Arrays.fill(data, 'x');
+        for (int i = 79; i < bytes; i += 80) {
+            data[i] = '\n';
+        }
+        String escaped = new String(data).replace("\n", "\\n");
+        return "{\"data\":\"" + escaped + "\",\"offset\":" + offset + ",\"length\":" + bytes + "}";
+    }
+}
@@ -0,0 +1,195 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * 以固定请求速率驱动 {@link AzkabanAdapter}，报告吞吐与延迟分位数
+ * <p>
+ * 开环压测：请求按计划时间发出，不等待前一个请求完成；延迟从计划时间算起，
+ * 线程不足或服务端变慢导致的排队时间也计入延迟。
+ * <p>
+ * 用法：AzkabanLoadHarness [操作] [每秒请求数] [持续秒数] [并发线程数]
+ * <p>
+ * 默认压测本地桩服务，桩的行为由系统属性控制：stub.latency.min / stub.latency.max（毫秒）、
+ * stub.errorRate、stub.sessionTtl（秒）。指定 azkaban.url 时改为压测该地址。
+ *
+ * @author Yorke
+ */
+public class AzkabanLoadHarness {
+
+    private static final Map<String, Consumer<AzkabanAdapter>> OPERATIONS = new LinkedHashMap<>();
+
+    static {
+        OPERATIONS.put("executionInfo", adapter -> adapter.executionInfo("304"));
+        OPERATIONS.put("fetchFlowExecutions", adapter -> adapter.fetchFlowExecutions("p", "f", 0, 100));
+        OPERATIONS.put("fetchFlowRunningExecutions", adapter -> adapter.fetchFlowRunningExecutions("p", "f"));
+        OPERATIONS.put("fetchSchedule", adapter -> adapter.fetchSchedule("192", "f"));
+        OPERATIONS.put("fetchExecutionJobLogs", adapter -> adapter.fetchExecutionJobLogs("304", "job-0", 0L, 64 * 1024, NullWriter.INSTANCE));
+    }
+
+    private final AzkabanAdapter adapter;
+    private final Consumer<AzkabanAdapter> operation;
+
+    public AzkabanLoadHarness(AzkabanAdapter adapter, String operation) {
+        this.adapter = adapter;
+        this.operation = OPERATIONS.get(operation);
+        if (this.operation == null) {
+            throw new IllegalArgumentException("Unknown operation " + operation + ", expected one of " + OPERATIONS.keySet());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String operation = args.length > 0 ? args[0] : "executionInfo";
+        int rate = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int concurrency = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+
+        String url = System.getProperty("azkaban.url");
+        AzkabanStubServer server = null;
+        if (url == null) {
+            server = new AzkabanStubServer(concurrency)
+                    .latency(Duration.ofMillis(Long.getLong("stub.latency.min", 5)), Duration.ofMillis(Long.getLong("stub.latency.max", 20)))
+                    .errorRate(Double.parseDouble(System.getProperty("stub.errorRate", "0")));
+            if (System.getProperty("stub.sessionTtl") != null) {
+                server.sessionTtl(Duration.ofSeconds(Long.getLong("stub.sessionTtl")));
+            }
+            server.start();
+            url = server.getUrl();
+        }
+        try (LocalAzkabanClient client = new LocalAzkabanClient(url)) {
+            AzkabanLoadHarness harness = new AzkabanLoadHarness(client.getAdapter(), operation);
+            // 预热连接池、会话与 JIT
+            harness.run(Math.min(rate, 50), Duration.ofSeconds(3), concurrency);
+            Report report = harness.run(rate, Duration.ofSeconds(seconds), concurrency);
+            System.out.printf("operation=%s rate=%d/s duration=%ds concurrency=%d%n", operation, rate, seconds, concurrency);
+            System.out.println(report);
+            if (server != null) {
+                System.out.printf("stub: requests=%d logins=%d injectedErrors=%d expiredSessions=%d%n",
+                        server.getRequests(), server.getLogins(), server.getInjectedErrors(), server.getExpiredSessions());
+            }
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    /**
+     * @param rate        每秒请求数
+     * @param duration    持续时间
+     * @param concurrency 执行请求的线程数
+     * @return 压测结果
+     */
+    public Report run(int rate, Duration duration, int concurrency) throws InterruptedException {
+        int total = (int) Math.max(1, rate * duration.toMillis() / 1000);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        // 未完成的请求保持 -1，等待超时后只统计已完成的
+        AtomicLongArray latencies = new AtomicLongArray(total);
+        for (int i = 0; i < total; i++) {
+            latencies.set(i, -1);
+        }
+        Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < total; i++) {
+                long scheduled = start + i * intervalNanos;
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                int index = i;
+                workers.execute(() -> {
+                    String outcome;
+                    try {
+                        operation.accept(adapter);
+                        outcome = AzkabanOperationMetrics.SUCCESS;
+                    } catch (RuntimeException e) {
+                        outcome = AzkabanOperationMetrics.outcome(e);
+                    }
+                    outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+                    latencies.set(index, System.nanoTime() - scheduled);
+                });
+            }
+        } finally {
+            workers.shutdown();
+            if (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                workers.shutdownNow();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long[] done = IntStream.range(0, total)
+                .mapToLong(latencies::get)
+                .filter(latency -> latency >= 0)
+                .sorted()
+                .toArray();
+        Map<String, Long> outcomeCounts = new TreeMap<>();
+        outcomes.forEach((outcome, count) -> outcomeCounts.put(outcome, count.sum()));
+        return new Report(total, done, elapsed, outcomeCounts);
+    }
+
+    /**
+     * 一次压测的结果，延迟按升序排列
+     */
+    public static class Report {
+        private final int sent;
+        private final long[] latencies;
+        private final long elapsedNanos;
+        private final Map<String, Long> outcomes;
+
+        Report(int sent, long[] latencies, long elapsedNanos, Map<String, Long> outcomes) {
+            this.sent = sent;
+            this.latencies = latencies;
+            this.elapsedNanos = elapsedNanos;
+            this.outcomes = outcomes;
+        }
+
+        public int getCompleted() {
+            return latencies.length;
+        }
+
+        public Map<String, Long> getOutcomes() {
+            return outcomes;
+        }
+
+        /**
+         * @return 每秒完成的请求数
+         */
+        public double getThroughput() {
+            return latencies.length * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * @param percentile 0 到 100
+         * @return 延迟分位数（毫秒），按最近排名取值
+         */
+        public double percentile(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100 * latencies.length);
+            return latencies[Math.max(0, Math.min(latencies.length, rank) - 1)] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("sent=%d completed=%d throughput=%.1f/s outcomes=%s%n"
+                            + "latency ms: p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f",
+                    sent, getCompleted(), getThroughput(), outcomes,
+                    percentile(50), percentile(90), percentile(99), percentile(99.9), percentile(100));
+        }
+    }
+}
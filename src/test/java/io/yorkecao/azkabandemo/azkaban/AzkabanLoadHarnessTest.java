@@ -0,0 +1,108 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import io.yorkecao.azkabandemo.model.JobLogChunk;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+public class AzkabanLoadHarnessTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private AzkabanStubServer server;
+    private LocalAzkabanClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new AzkabanStubServer(4).start();
+        client = new LocalAzkabanClient(server.getUrl());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void reloginInsideOperationIsNotCaptured() {
+        client.getAdapter().executionInfo("304");
+        server.expireSessions();
+
+        AzkabanExchange exchange = AzkabanExchange.begin(64 * 1024);
+        try {
+            assertEquals(305, client.getAdapter().executionInfo("305").getExecId());
+        } finally {
+            exchange.end();
+        }
+
+        assertEquals(2, server.getLogins());
+        assertTrue(exchange.getPayload().contains("\"session\""));
+        assertFalse(exchange.getPayload().contains("session.id"));
+        assertFalse(exchange.getPayload().contains("stub-session-"));
+    }
+
+    @Test
+    public void expiredSessionIsRenewedOnce() {
+        assertEquals(304, client.getAdapter().executionInfo("304").getExecId());
+        server.expireSessions();
+        assertEquals(305, client.getAdapter().executionInfo("305").getExecId());
+
+        assertEquals(2, server.getLogins());
+        assertEquals(1, server.getExpiredSessions());
+    }
+
+    @Test
+    public void streamsJobLogsIntoWriter() {
+        StringWriter out = new StringWriter();
+
+        JobLogChunk chunk = client.getAdapter().fetchExecutionJobLogs("304", "job-0", 100L, 200, out);
+
+        assertEquals(100, chunk.getOffset());
+        assertEquals(200, chunk.getLength());
+        assertEquals(200, out.toString().length());
+        assertEquals('\n', out.toString().charAt(79));
+    }
+
+    @Test
+    public void uploadsZipAsMultipart() throws IOException {
+        Map<String, String> received = new ConcurrentHashMap<>();
+        server.respond("upload", params -> {
+            received.putAll(params);
+            return "{\"projectId\":\"192\",\"version\":\"1\"}";
+        });
+        Path zip = folder.newFile("p.zip").toPath();
+        Files.write(zip, new byte[10000]);
+
+        client.getAdapter().uploadZip("p", ZipUpload.ofFile(zip));
+
+        assertEquals("p", received.get("project"));
+        assertEquals("p.zip", received.get("file"));
+        assertEquals("10000", received.get("file.size"));
+    }
+
+    @Test
+    public void reportsInjectedLatencyAndErrors() throws InterruptedException {
+        server.latency(Duration.ofMillis(10), Duration.ofMillis(10)).errorRate(1.0);
+
+        AzkabanLoadHarness.Report report = new AzkabanLoadHarness(client.getAdapter(), "executionInfo")
+                .run(50, Duration.ofSeconds(1), 8);
+
+        assertEquals(50, report.getCompleted());
+        assertNull(report.getOutcomes().get(AzkabanOperationMetrics.SUCCESS));
+        assertTrue(report.percentile(50) >= 10);
+    }
+}
@@ -0,0 +1,94 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.model.Flow;
+import io.yorkecao.azkabandemo.model.ProjectFlows;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AzkabanMetadataCacheTest {
+
+    private AzkabanMetadataCache metadataCache;
+
+    @Before
+    public void setUp() {
+        metadataCache = new AzkabanMetadataCache();
+        ReflectionTestUtils.setField(metadataCache, "config", new AzkabanDemoConfiguration());
+        metadataCache.init();
+    }
+
+    @Test
+    public void projectFlowsAreLoadedOnce() {
+        AtomicInteger loads = new AtomicInteger();
+        ProjectFlows flows = new ProjectFlows();
+        flows.setProjectId(1);
+
+        metadataCache.getProjectFlows("p", project -> {
+            loads.incrementAndGet();
+            return flows;
+        });
+        ProjectFlows cached = metadataCache.getProjectFlows("p", project -> {
+            loads.incrementAndGet();
+            return flows;
+        });
+
+        assertSame(flows, cached);
+        assertEquals(1, loads.get());
+        assertEquals(1, metadataCache.projectFlowsStats().hitCount());
+        assertEquals(1, metadataCache.projectFlowsStats().missCount());
+    }
+
+    @Test
+    public void invalidateProjectDropsFlowJobsOfThatProjectOnly() {
+        metadataCache.getFlowJobs("p", "f1", () -> flow("p-f1"));
+        metadataCache.getFlowJobs("q", "f1", () -> flow("q-f1"));
+
+        metadataCache.invalidateProject("p");
+
+        assertEquals("p-f1-reloaded", metadataCache.getFlowJobs("p", "f1", () -> flow("p-f1-reloaded")).getFlowId());
+        assertEquals("q-f1", metadataCache.getFlowJobs("q", "f1", () -> flow("q-f1-reloaded")).getFlowId());
+    }
+
+    @Test
+    public void loadFinishedAfterInvalidationIsNotCached() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Flow> stale = CompletableFuture.supplyAsync(() -> metadataCache.getFlowJobs("p", "f1", () -> {
+            loading.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return flow("old");
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        // 加载进行中项目被更新，旧结果仍返回给发起加载的调用方，但不留在缓存中
+        metadataCache.invalidateProject("p");
+        release.countDown();
+        assertEquals("old", stale.get(5, TimeUnit.SECONDS).getFlowId());
+
+        assertEquals("new", metadataCache.getFlowJobs("p", "f1", () -> flow("new")).getFlowId());
+    }
+
+    @Test
+    public void missingProjectIsNotCached() {
+        assertNull(metadataCache.getProjectFlows("absent", project -> null));
+        assertNotNull(metadataCache.getProjectFlows("absent", project -> new ProjectFlows()));
+    }
+
+    private static Flow flow(String flowId) {
+        Flow flow = new Flow();
+        flow.setFlowId(flowId);
+        return flow;
+    }
+}
@@ -0,0 +1,57 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.yorkecao.azkabandemo.exception.AzkabanException;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+
+import static org.junit.Assert.*;
+
+public class AzkabanOperationMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private AzkabanOperationMetrics metrics;
+
+    @Before
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new AzkabanOperationMetrics();
+        ReflectionTestUtils.setField(metrics, "registry", registry);
+    }
+
+    @Test
+    public void outcomeClassifiesFailures() {
+        assertEquals(AzkabanOperationMetrics.SUCCESS, AzkabanOperationMetrics.outcome(null));
+        assertEquals(AzkabanOperationMetrics.AZKABAN_ERROR, AzkabanOperationMetrics.outcome(new AzkabanException("Project already exists.")));
+        assertEquals(AzkabanOperationMetrics.IO_ERROR, AzkabanOperationMetrics.outcome(new AzkabanException("Unexpected token", new IOException())));
+        assertEquals(AzkabanOperationMetrics.TIMEOUT, AzkabanOperationMetrics.outcome(new ResourceAccessException("I/O error", new SocketTimeoutException())));
+        assertEquals(AzkabanOperationMetrics.SERVER_ERROR, AzkabanOperationMetrics.outcome(new HttpServerErrorException(HttpStatus.BAD_GATEWAY)));
+        assertEquals(AzkabanOperationMetrics.CLIENT_ERROR, AzkabanOperationMetrics.outcome(new HttpClientErrorException(HttpStatus.NOT_FOUND)));
+        assertEquals(AzkabanOperationMetrics.PARSE_ERROR, AzkabanOperationMetrics.outcome(
+                new ResourceAccessException("I/O error", new JsonParseException(null, "Unexpected character"))));
+        assertEquals(AzkabanOperationMetrics.ERROR, AzkabanOperationMetrics.outcome(new NullPointerException()));
+    }
+
+    @Test
+    public void sampleRecordsTimerAndInFlight() {
+        AzkabanOperationMetrics.Sample first = metrics.start("fetchProjectFlows", AzkabanOperationType.FETCH);
+        AzkabanOperationMetrics.Sample second = metrics.start("fetchProjectFlows", AzkabanOperationType.FETCH);
+        assertEquals(2, registry.find(AzkabanOperationMetrics.IN_FLIGHT).tag("operation", "fetchProjectFlows").gauge().value(), 0);
+
+        first.success();
+        second.failure(new AzkabanException("Project doesn't exist."));
+
+        assertEquals(0, registry.find(AzkabanOperationMetrics.IN_FLIGHT).gauge().value(), 0);
+        assertEquals(1, registry.find(AzkabanOperationMetrics.TIMER).tags("type", "fetch", "outcome", "success").timer().count());
+        assertEquals(1, registry.find(AzkabanOperationMetrics.TIMER).tags("outcome", "azkaban_error").timer().count());
+    }
+}
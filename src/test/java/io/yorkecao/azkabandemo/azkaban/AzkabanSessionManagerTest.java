@@ -0,0 +1,67 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+public class AzkabanSessionManagerTest {
+
+    private AzkabanSessionManager sessionManager;
+    private MockRestServiceServer server;
+
+    @Before
+    public void setUp() {
+        AzkabanDemoConfiguration config = new AzkabanDemoConfiguration();
+        config.setUrl("http://azkaban");
+        config.setUsername("azkaban");
+        config.setPassword("azkaban");
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+
+        sessionManager = new AzkabanSessionManager();
+        ReflectionTestUtils.setField(sessionManager, "config", config);
+        ReflectionTestUtils.setField(sessionManager, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(sessionManager, "restTemplate", restTemplate);
+        AzkabanOperationMetrics metrics = new AzkabanOperationMetrics();
+        ReflectionTestUtils.setField(metrics, "registry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(sessionManager, "metrics", metrics);
+    }
+
+    @Test
+    public void getSessionIdLogsInOnce() {
+        server.expect(ExpectedCount.once(), requestTo("http://azkaban"))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(withSuccess("{\"status\":\"success\",\"session.id\":\"s1\"}", MediaType.APPLICATION_JSON));
+
+        assertEquals("s1", sessionManager.getSessionId());
+        assertEquals("s1", sessionManager.getSessionId());
+        server.verify();
+    }
+
+    @Test
+    public void renewReplacesStaleSessionOnlyOnce() {
+        server.expect(ExpectedCount.once(), requestTo("http://azkaban"))
+                .andRespond(withSuccess("{\"status\":\"success\",\"session.id\":\"s1\"}", MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo("http://azkaban"))
+                .andRespond(withSuccess("{\"status\":\"success\",\"session.id\":\"s2\"}", MediaType.APPLICATION_JSON));
+
+        String stale = sessionManager.getSessionId();
+        assertEquals("s2", sessionManager.renew(stale));
+        // 其他线程带着同一个失效会话到达时复用已经完成的登录
+        assertEquals("s2", sessionManager.renew(stale));
+        server.verify();
+    }
+}
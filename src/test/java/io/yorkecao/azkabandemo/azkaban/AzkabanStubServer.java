@@ -0,0 +1,329 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 本地 Azkaban AJAX 接口桩，监听随机端口
+ * <p>
+ * 登录（POST /，action=login）、/manager、/executor、/schedule 按 ajax 或 action 参数返回预先设置的响应，
+ * 常用查询与操作已有默认响应。可以注入响应延迟、HTTP 500 错误率与会话过期，
+ * 会话过期后请求返回 {"error": "session"}，与真实 Azkaban 一致。
+ * POST 请求体支持 urlencoded 与 multipart/form-data：multipart 中的文件字段以文件名作为参数值，
+ * 文件字节数记为“字段名.size”，文件内容不保留。
+ *
+ * @author Yorke
+ */
+public class AzkabanStubServer implements Closeable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, Function<Map<String, String>, String>> responses = new ConcurrentHashMap<>();
+    /**
+     * session.id 到签发时间（纳秒）
+     */
+    private final Map<String, Long> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong sessionSeq = new AtomicLong();
+    private final AtomicLong execSeq = new AtomicLong();
+
+    private volatile long minLatencyNanos;
+    private volatile long maxLatencyNanos;
+    private volatile double errorRate;
+    private volatile long sessionTtlNanos = Long.MAX_VALUE;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder logins = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+    private final LongAdder expiredSessions = new LongAdder();
+
+    public AzkabanStubServer(int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        respond("fetchprojectflows", params -> AzkabanFixtures.projectFlows(params.get("project"), 10));
+        respond("fetchflowgraph", params -> AzkabanFixtures.flowGraph(params.get("project"), params.get("flow"), 50));
+        respond("fetchFlowExecutions", params -> AzkabanFixtures.executionPage(params.get("project"), params.get("flow"),
+                Integer.parseInt(params.get("start")), Integer.parseInt(params.get("length")), 1000));
+        respond("getRunning", "{\"execIds\":[]}");
+        respond("fetchexecflow", params -> AzkabanFixtures.execution(Long.parseLong(params.get("execid")), "RUNNING", 50));
+        respond("fetchExecJobLogs", params -> AzkabanFixtures.jobLog(Long.parseLong(params.get("offset")),
+                Integer.parseInt(params.get("length"))));
+        respond("executeFlow", params -> "{\"project\":\"" + params.get("project") + "\",\"flow\":\"" + params.get("flow")
+                + "\",\"execid\":" + execSeq.incrementAndGet() + "}");
+        respond("cancelFlow", "{}");
+        respond("fetchSchedule", "{}");
+        respond("scheduleCronFlow", "{\"status\":\"success\",\"message\":\"scheduled\",\"scheduleId\":1}");
+        respond("removeSched", "{\"status\":\"success\",\"message\":\"removed\"}");
+        respond("slaInfo", "{\"slaEmails\":[],\"settings\":[]}");
+        respond("setSla", "{}");
+        respond("upload", "{\"projectId\":\"192\",\"version\":\"1\"}");
+    }
+
+    public AzkabanStubServer start() {
+        server.start();
+        return this;
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * @param action   ajax 或 action 参数的值，登录为 login
+     * @param response 按请求参数生成响应体
+     */
+    public AzkabanStubServer respond(String action, Function<Map<String, String>, String> response) {
+        responses.put(action, response);
+        return this;
+    }
+
+    public AzkabanStubServer respond(String action, String response) {
+        return respond(action, params -> response);
+    }
+
+    /**
+     * 每个请求在 min 与 max 之间均匀随机地延迟后再响应
+     */
+    public AzkabanStubServer latency(Duration min, Duration max) {
+        minLatencyNanos = min.toNanos();
+        maxLatencyNanos = Math.max(min.toNanos(), max.toNanos());
+        return this;
+    }
+
+    /**
+     * @param errorRate 以 HTTP 500 响应的请求比例，登录请求除外
+     */
+    public AzkabanStubServer errorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * 会话自签发起超过 ttl 后失效
+     */
+    public AzkabanStubServer sessionTtl(Duration ttl) {
+        sessionTtlNanos = ttl.toNanos();
+        return this;
+    }
+
+    /**
+     * 立即让所有会话失效
+     */
+    public void expireSessions() {
+        sessions.clear();
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getLogins() {
+        return logins.sum();
+    }
+
+    public long getInjectedErrors() {
+        return injectedErrors.sum();
+    }
+
+    public long getExpiredSessions() {
+        return expiredSessions.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        try {
+            Map<String, String> params = params(exchange);
+            String action = action(params);
+            delay();
+            if ("login".equals(action)) {
+                logins.increment();
+                send(exchange, 200, AzkabanFixtures.login(newSession()));
+                return;
+            }
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                injectedErrors.increment();
+                send(exchange, 500, "Injected failure");
+                return;
+            }
+            if (!isValidSession(params.get("session.id"))) {
+                expiredSessions.increment();
+                send(exchange, 200, AzkabanFixtures.error("session"));
+                return;
+            }
+            Function<Map<String, String>, String> response = action == null ? null : responses.get(action);
+            send(exchange, 200, response == null ? AzkabanFixtures.error("Unknown action " + action) : response.apply(params));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static String action(Map<String, String> params) {
+        if (params.containsKey("ajax")) {
+            return params.get("ajax");
+        }
+        if (params.containsKey("action")) {
+            return params.get("action");
+        }
+        return params.containsKey("delete") ? "delete" : null;
+    }
+
+    private String newSession() {
+        String sessionId = "stub-session-" + sessionSeq.incrementAndGet();
+        sessions.put(sessionId, System.nanoTime());
+        return sessionId;
+    }
+
+    private boolean isValidSession(String sessionId) {
+        Long issued = sessionId == null ? null : sessions.get(sessionId);
+        if (issued == null) {
+            return false;
+        }
+        if (System.nanoTime() - issued > sessionTtlNanos) {
+            sessions.remove(sessionId);
+            return false;
+        }
+        return true;
+    }
+
+    private void delay() {
+        long latency = minLatencyNanos == maxLatencyNanos
+                ? minLatencyNanos
+                : ThreadLocalRandom.current().nextLong(minLatencyNanos, maxLatencyNanos);
+        if (latency > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static Map<String, String> params(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parse(exchange.getRequestURI().getRawQuery(), params);
+        if ("POST".equals(exchange.getRequestMethod())) {
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] body = readAll(in);
+                if (contentType != null && contentType.startsWith("multipart/form-data")) {
+                    parseMultipart(body, boundary(contentType), params);
+                } else {
+                    parse(new String(body, StandardCharsets.UTF_8), params);
+                }
+            }
+        }
+        return params;
+    }
+
+    private static String boundary(String contentType) {
+        for (String parameter : contentType.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.startsWith("boundary=")) {
+                return trimmed.substring("boundary=".length()).replace("\"", "");
+            }
+        }
+        throw new IllegalArgumentException("No boundary in " + contentType);
+    }
+
+    /**
+     * 按 ISO-8859-1 解码使字符下标与字节下标一致，文本字段再按 UTF-8 还原
+     */
+    private static void parseMultipart(byte[] body, String boundary, Map<String, String> params) {
+        String text = new String(body, StandardCharsets.ISO_8859_1);
+        String delimiter = "--" + boundary;
+        int from = text.indexOf(delimiter);
+        while (from >= 0) {
+            int partStart = from + delimiter.length();
+            if (text.startsWith("--", partStart)) {
+                break;
+            }
+            int next = text.indexOf("\r\n" + delimiter, partStart);
+            if (next < 0) {
+                break;
+            }
+            String part = text.substring(partStart + 2, next);
+            int headerEnd = part.indexOf("\r\n\r\n");
+            String headers = part.substring(0, headerEnd);
+            String content = part.substring(headerEnd + 4);
+            String name = dispositionParameter(headers, "name");
+            String fileName = dispositionParameter(headers, "filename");
+            if (fileName != null) {
+                params.put(name, fileName);
+                params.put(name + ".size", String.valueOf(content.length()));
+            } else if (name != null) {
+                params.put(name, new String(content.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8));
+            }
+            from = next + 2;
+        }
+    }
+
+    private static String dispositionParameter(String headers, String parameter) {
+        for (String header : headers.split("\r\n")) {
+            if (header.toLowerCase().startsWith("content-disposition:")) {
+                Matcher matcher = Pattern.compile(";\\s*" + parameter + "=\"([^\"]*)\"").matcher(header);
+                return matcher.find() ? matcher.group(1) : null;
+            }
+        }
+        return null;
+    }
+
+    static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json;charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void parse(String query, Map<String, String> params) throws IOException {
+        if (query == null || query.isEmpty()) {
+            return;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), "UTF-8"), URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+            }
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
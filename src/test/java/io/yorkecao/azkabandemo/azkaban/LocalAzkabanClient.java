@@ -0,0 +1,82 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.yorkecao.azkabandemo.advice.AzkabanAdvice;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 不启动 Spring 容器，按生产配置组装连接池、会话管理与 {@link AzkabanAdapter}
+ * <p>
+ * 只织入会话续期切面，不含指标、重试、熔断与限流，便于单独测量适配器本身。
+ *
+ * @author Yorke
+ */
+public class LocalAzkabanClient implements Closeable {
+
+    private final CloseableHttpClient httpClient;
+    private final AzkabanSessionManager sessionManager;
+    private final AzkabanAdapter adapter;
+
+    public LocalAzkabanClient(String url) {
+        this(configuration(url));
+    }
+
+    public LocalAzkabanClient(AzkabanDemoConfiguration config) {
+        httpClient = config.azkabanHttpClient(config.azkabanConnectionManager());
+        RestTemplate restTemplate = config.restTemplate(httpClient);
+        ObjectMapper objectMapper = config.objectMapper();
+
+        AzkabanOperationMetrics metrics = new AzkabanOperationMetrics();
+        ReflectionTestUtils.setField(metrics, "registry", new SimpleMeterRegistry());
+        sessionManager = new AzkabanSessionManager();
+        ReflectionTestUtils.setField(sessionManager, "config", config);
+        ReflectionTestUtils.setField(sessionManager, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(sessionManager, "restTemplate", restTemplate);
+        ReflectionTestUtils.setField(sessionManager, "metrics", metrics);
+        AzkabanMetadataCache metadataCache = new AzkabanMetadataCache();
+        ReflectionTestUtils.setField(metadataCache, "config", config);
+        metadataCache.init();
+
+        AzkabanAdapter target = new AzkabanAdapter();
+        ReflectionTestUtils.setField(target, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(target, "restTemplate", restTemplate);
+        ReflectionTestUtils.setField(target, "uploadRestTemplate", config.uploadRestTemplate(httpClient));
+        ReflectionTestUtils.setField(target, "sessionManager", sessionManager);
+        ReflectionTestUtils.setField(target, "metadataCache", metadataCache);
+
+        AzkabanAdvice advice = new AzkabanAdvice();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(advice);
+        adapter = proxyFactory.getProxy();
+    }
+
+    private static AzkabanDemoConfiguration configuration(String url) {
+        AzkabanDemoConfiguration config = new AzkabanDemoConfiguration();
+        config.setUrl(url);
+        config.setUsername("azkaban");
+        config.setPassword("azkaban");
+        return config;
+    }
+
+    public AzkabanAdapter getAdapter() {
+        return adapter;
+    }
+
+    public AzkabanSessionManager getSessionManager() {
+        return sessionManager;
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+}
@@ -0,0 +1,103 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.yorkecao.azkabandemo.AzkabanDemoApplication;
+import io.yorkecao.azkabandemo.resilience.AzkabanResilience;
+import io.yorkecao.azkabandemo.resilience.CircuitBreaker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MultiClusterRoutingTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private AzkabanStubServer defaultStub;
+    private AzkabanStubServer otherStub;
+    private ConfigurableApplicationContext context;
+    private AzkabanClusterRouter router;
+
+    @Before
+    public void setUp() throws IOException {
+        defaultStub = new AzkabanStubServer(4).start();
+        defaultStub.respond("fetchprojectflows", params -> "etl".equals(params.get("project"))
+                ? AzkabanFixtures.error("Project etl doesn't exist.")
+                : AzkabanFixtures.projectFlows(params.get("project"), 1));
+        otherStub = new AzkabanStubServer(4).start();
+
+        // 默认集群与 other 集群各对应一个桩，other 集群的适配器由 AzkabanClusterRouter 按配置创建
+        String dir = folder.getRoot().getAbsolutePath();
+        context = new SpringApplicationBuilder(AzkabanDemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("azkaban-demo.url=" + defaultStub.getUrl(),
+                        "azkaban-demo.clusters[0].name=other",
+                        "azkaban-demo.clusters[0].url=" + otherStub.getUrl(),
+                        "azkaban-demo.clusters[0].username=azkaban",
+                        "azkaban-demo.clusters[0].password=azkaban",
+                        "azkaban-demo.circuit-breaker.sliding-window-size=1",
+                        "azkaban-demo.circuit-breaker.minimum-calls=1",
+                        "azkaban-demo.routing.placement-store=" + dir + "/placements.properties",
+                        "azkaban-demo.upload.digest-store=" + dir + "/upload-digests.properties",
+                        "azkaban-demo.history.store-dir=" + dir + "/history")
+                .run();
+        router = context.getBean(AzkabanClusterRouter.class);
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+        defaultStub.close();
+        otherStub.close();
+    }
+
+    @Test
+    public void executionCallsGoToTheClusterOfTheProject() throws Exception {
+        AzkabanAdapter adapter = router.forProject("etl");
+
+        assertEquals("other", adapter.getSessionManager().getCluster().getName());
+        assertTrue(AopUtils.isAopProxy(adapter));
+        long defaultRequests = defaultStub.getRequests();
+        long otherRequests = otherStub.getRequests();
+
+        assertEquals(304, context.getBean(AsyncAzkabanAdapter.class).fetchFlowExecution("etl", "304")
+                .get(5, TimeUnit.SECONDS).getExecId());
+        assertEquals(defaultRequests, defaultStub.getRequests());
+        assertTrue(otherStub.getRequests() > otherRequests);
+    }
+
+    @Test
+    public void outageOfDefaultClusterOnlyOpensItsOwnBreaker() throws Exception {
+        defaultStub.close();
+
+        // 默认集群查询失败被跳过，项目仍在 other 集群上找到
+        AzkabanAdapter adapter = router.forProject("etl");
+        assertEquals("other", adapter.getSessionManager().getCluster().getName());
+        assertEquals(304, adapter.fetchFlowExecution("304").getExecId());
+
+        AzkabanResilience resilience = context.getBean(AzkabanResilience.class);
+        assertEquals(CircuitBreaker.State.OPEN, resilience.getCircuitBreaker("default").getState());
+        assertEquals(CircuitBreaker.State.CLOSED, resilience.getCircuitBreaker("other").getState());
+    }
+
+    @Test
+    public void everyClusterReportsItsOwnPoolAndCacheMetrics() {
+        MeterRegistry registry = context.getBean(MeterRegistry.class);
+
+        for (String cluster : new String[]{"default", "other"}) {
+            assertNotNull(registry.find("azkaban.http.pool.max").tag("cluster", cluster).gauge());
+            assertNotNull(registry.find("cache.gets").tags("cache", "azkaban.projectFlows", "cluster", cluster).functionCounter());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import java.io.Writer;
+
+/**
+ * 丢弃写入内容，压测日志读取时只测量网络与解析
+ *
+ * @author Yorke
+ */
+class NullWriter extends Writer {
+    static final NullWriter INSTANCE = new NullWriter();
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
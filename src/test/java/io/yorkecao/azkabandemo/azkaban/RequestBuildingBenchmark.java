@@ -0,0 +1,85 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.FormHttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求构造：请求头、表单编码、executeFLow 的查询串拼接与 URI 模板展开
+ *
+ * @author Yorke
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBuildingBenchmark {
+
+    private final FormHttpMessageConverter formConverter = new FormHttpMessageConverter();
+    private final DefaultUriBuilderFactory uriBuilderFactory = new DefaultUriBuilderFactory();
+    private MultiValueMap<String, String> form;
+    private Map<String, Object> query;
+
+    @Setup
+    public void setUp() {
+        form = new LinkedMultiValueMap<>();
+        form.add("session.id", "c7a4f8b2-5d1e-4c3a-9f6b-2e8d7a1c0b9f");
+        form.add("ajax", "scheduleCronFlow");
+        form.add("projectName", "nightly-etl");
+        form.add("flow", "load_warehouse");
+        form.add("cronExpression", "0 0 2 ? * *");
+
+        query = new HashMap<>();
+        query.put("session.id", "c7a4f8b2-5d1e-4c3a-9f6b-2e8d7a1c0b9f");
+        query.put("ajax", "executeFlow");
+        query.put("project", "nightly-etl");
+        query.put("flow", "load_warehouse");
+        query.put("failureAction", "finishPossible");
+        query.put("concurrentOption", "skip");
+    }
+
+    @Benchmark
+    public HttpHeaders headers() {
+        return AzkabanAdapter.getAzkabanHeaders();
+    }
+
+    @Benchmark
+    public byte[] formEncoding() throws IOException {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        formConverter.write(form, MediaType.APPLICATION_FORM_URLENCODED, message);
+        return message.getBodyAsBytes();
+    }
+
+    @Benchmark
+    public String joinedQuery() {
+        return "http://azkaban/executor?" + AzkabanAdapter.joinQuery(query);
+    }
+
+    @Benchmark
+    public URI expandedTemplate() {
+        return uriBuilderFactory.expand("http://azkaban/executor?session.id={session.id}&ajax={ajax}&project={project}&flow={flow}"
+                + "&failureAction={failureAction}&concurrentOption={concurrentOption}", query);
+    }
+}
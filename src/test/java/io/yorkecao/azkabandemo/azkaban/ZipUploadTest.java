@@ -0,0 +1,78 @@
+package io.yorkecao.azkabandemo.azkaban;
+
+import io.yorkecao.azkabandemo.utils.FileUtils;
+import io.yorkecao.azkabandemo.utils.ZipOptions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.*;
+
+public class ZipUploadTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void ofSourcesZipsStraightIntoTheBody() throws Exception {
+        Path project = temporaryFolder.newFolder("flows").toPath();
+        Files.write(project.resolve("start.job"), "type=command\ncommand=echo start".getBytes());
+        AtomicLong reported = new AtomicLong(-1);
+        ZipUpload zipUpload = ZipUpload.ofSources("flows.zip", ZipOptions.defaults(), project)
+                .withListener((bytesSent, totalBytes) -> {
+                    assertEquals(-1, totalBytes);
+                    reported.set(bytesSent);
+                });
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        zipUpload.writeTo(body);
+
+        assertEquals(-1, zipUpload.getContentLength());
+        assertEquals(body.size(), zipUpload.getBytesWritten());
+        assertEquals(body.size(), reported.get());
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(body.toByteArray()))) {
+            ZipEntry entry = zis.getNextEntry();
+            assertEquals("flows/start.job", entry.getName());
+            assertNull(zis.getNextEntry());
+        }
+    }
+
+    @Test
+    public void contentDigestFollowsTheZippedBytes() throws Exception {
+        Path project = temporaryFolder.newFolder("bundle").toPath();
+        Files.write(project.resolve("start.job"), "type=command\ncommand=echo 1".getBytes());
+        String before = FileUtils.digest(project);
+        ZipUpload zipUpload = ZipUpload.ofSources("bundle.zip", ZipOptions.defaults(), project);
+
+        zipUpload.writeTo(new ByteArrayOutputStream());
+        assertEquals(before, zipUpload.getContentDigest());
+
+        // 事先计算摘要之后文件被修改，记录的是实际打包的内容
+        Files.write(project.resolve("start.job"), "type=command\ncommand=echo 2".getBytes());
+        zipUpload.writeTo(new ByteArrayOutputStream());
+        assertNotEquals(before, zipUpload.getContentDigest());
+        assertEquals(FileUtils.digest(project), zipUpload.getContentDigest());
+    }
+
+    @Test
+    public void ofFileReportsKnownLength() throws Exception {
+        Path zip = temporaryFolder.newFile("existing.zip").toPath();
+        Files.write(zip, new byte[]{1, 2, 3});
+
+        ZipUpload zipUpload = ZipUpload.ofFile(zip);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        zipUpload.writeTo(body);
+
+        assertEquals("existing.zip", zipUpload.getFileName());
+        assertEquals(3, zipUpload.getContentLength());
+        assertArrayEquals(new byte[]{1, 2, 3}, body.toByteArray());
+    }
+}
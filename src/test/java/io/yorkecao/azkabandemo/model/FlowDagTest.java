@@ -0,0 +1,69 @@
+package io.yorkecao.azkabandemo.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FlowDagTest {
+
+    /**
+     * a -> b -> d
+     * a -> c -> d
+     * e（独立）
+     */
+    private static Flow flow() {
+        Flow flow = new Flow();
+        flow.setFlowId("nightly");
+        flow.setNodes(Arrays.asList(node("d", "b", "c"), node("b", "a"), node("c", "a"), node("a"), node("e")));
+        return flow;
+    }
+
+    private static FlowNode node(String id, String... in) {
+        FlowNode node = new FlowNode();
+        node.setId(id);
+        node.setIn(Arrays.asList(in));
+        return node;
+    }
+
+    @Test
+    public void ordersJobsTopologically() {
+        FlowDag dag = FlowDag.of(flow());
+
+        assertEquals(5, dag.getJobIds().size());
+        assertTrue(dag.getJobIds().indexOf("a") < dag.getJobIds().indexOf("b"));
+        assertTrue(dag.getJobIds().indexOf("c") < dag.getJobIds().indexOf("d"));
+        assertEquals(Arrays.asList("b", "c"), dag.getDownstream("a"));
+    }
+
+    @Test
+    public void computesCriticalPathAndSlack() {
+        Map<String, Long> durations = new HashMap<>();
+        durations.put("a", 10L);
+        durations.put("b", 50L);
+        durations.put("c", 20L);
+        durations.put("d", 10L);
+        durations.put("e", 30L);
+
+        CriticalPathAnalysis analysis = FlowDag.of(flow()).analyze(durations);
+
+        assertEquals(70, analysis.getMakespan());
+        assertEquals(Arrays.asList("a", "b", "d"), analysis.getCriticalPath());
+        assertEquals(0, analysis.getJobs().get("b").getSlack());
+        assertEquals(30, analysis.getJobs().get("c").getSlack());
+        assertEquals(40, analysis.getJobs().get("e").getSlack());
+        // 0-10 时 a、e 并行，10-30 时 b、c、e 并行
+        assertEquals(3, analysis.getMaxParallelism());
+        assertEquals(120.0 / 70, analysis.getAverageParallelism(), 1e-9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCycle() {
+        Flow flow = new Flow();
+        flow.setNodes(Arrays.asList(node("a", "b"), node("b", "a")));
+        FlowDag.of(flow);
+    }
+}
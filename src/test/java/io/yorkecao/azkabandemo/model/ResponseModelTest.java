@@ -0,0 +1,78 @@
+package io.yorkecao.azkabandemo.model;
+
+import azkaban.executor.Status;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ResponseModelTest {
+
+    private final ObjectMapper objectMapper = new AzkabanDemoConfiguration().objectMapper();
+
+    @Test
+    public void bindsFetchExecFlow() throws IOException {
+        Execution execution = read("{\"attempt\":0,\"submitUser\":\"1\",\"status\":\"RUNNING\",\"projectId\":192,\"flow\":\"test\","
+                + "\"flowId\":\"test\",\"execid\":304,\"project\":\"p\",\"startTime\":1407779473354,\"nodes\":["
+                + "{\"id\":\"test\",\"status\":\"CANCELLED\",\"type\":\"command\",\"in\":[\"test-foo\"]},"
+                + "{\"id\":\"embedded\",\"type\":\"flow\",\"status\":\"RUNNING\",\"nodes\":[{\"id\":\"job\",\"nestedId\":\"embedded:job\",\"status\":\"READY\"}]}]}",
+                Execution.class);
+
+        assertEquals(304, execution.getExecId());
+        assertEquals(Status.RUNNING, execution.getStatus());
+        assertFalse(execution.isFinished());
+        assertEquals(-1, execution.getEndTime());
+        assertEquals(Arrays.asList("test-foo"), execution.getNodes().get(0).getIn());
+        assertTrue(execution.getNodes().get(0).isFinished());
+        assertEquals("embedded:job", execution.getNodes().get(1).getNodes().get(0).getJobId());
+    }
+
+    @Test
+    public void bindsFetchFlowExecutionsPage() throws IOException {
+        ExecutionPage page = read("{\"executions\":[{\"startTime\":1407779928865,\"submitUser\":\"1\",\"status\":\"FAILED\",\"submitTime\":1407779928829,"
+                + "\"execId\":306,\"projectId\":192,\"endTime\":1407779950602,\"flowId\":\"test\"}],"
+                + "\"total\":16,\"project\":\"p\",\"length\":1,\"from\":0,\"flow\":\"test\",\"projectId\":192}", ExecutionPage.class);
+
+        assertEquals(16, page.getTotal());
+        assertEquals(306, page.getExecutions().get(0).getExecId());
+        assertEquals(Status.FAILED, page.getExecutions().get(0).getStatus());
+    }
+
+    @Test
+    public void bindsFlowGraphAndProjectFlows() throws IOException {
+        Flow flow = read("{\"project\":\"p\",\"nodes\":[{\"id\":\"final\",\"type\":\"command\",\"in\":[\"a\",\"b\"]}],\"flow\":\"test\",\"projectId\":192}", Flow.class);
+        assertEquals("test", flow.getFlowId());
+        assertEquals(Arrays.asList("a", "b"), flow.getNodes().get(0).getIn());
+
+        ProjectFlows projectFlows = read("{\"project\":\"p\",\"projectId\":192,\"flows\":[{\"flowId\":\"test\"},{\"flowId\":\"test2\"}]}", ProjectFlows.class);
+        assertEquals(192, projectFlows.getProjectId());
+        assertEquals("test2", projectFlows.getFlows().get(1).getFlowId());
+    }
+
+    @Test
+    public void errorResponseBindsToAnyModel() throws IOException {
+        Execution execution = read("{\"error\":\"session\"}", Execution.class);
+        assertEquals("session", execution.getError());
+        assertTrue(execution.getNodes().isEmpty());
+    }
+
+    @Test
+    public void unknownStatusBindsAsNull() throws IOException {
+        Execution execution = read("{\"execid\":304,\"status\":\"SOME_FUTURE_STATUS\",\"nodes\":[{\"id\":\"job\",\"status\":\"RUNNING\"}]}",
+                Execution.class);
+
+        assertNull(execution.getStatus());
+        assertFalse(execution.isFinished());
+        assertEquals(Status.RUNNING, execution.getNodes().get(0).getStatus());
+    }
+
+    private <T> T read(String json, Class<T> type) throws IOException {
+        return objectMapper.readValue(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), type);
+    }
+}
@@ -0,0 +1,103 @@
+package io.yorkecao.azkabandemo.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.yorkecao.azkabandemo.azkaban.AzkabanFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 响应解析：先转 String 再 readTree 逐个取字段，与直接从字节流绑定为类型的对比
+ *
+ * @author Yorke
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseParsingBenchmark {
+
+    @Param({"10", "200"})
+    private int jobs;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] execution;
+    private byte[] flowGraph;
+    private byte[] jobLog;
+
+    @Setup
+    public void setUp() {
+        execution = AzkabanFixtures.execution(304, "RUNNING", jobs).getBytes(StandardCharsets.UTF_8);
+        flowGraph = AzkabanFixtures.flowGraph("p", "f", jobs).getBytes(StandardCharsets.UTF_8);
+        jobLog = AzkabanFixtures.jobLog(0, jobs * 1024).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void executionReadTree(Blackhole blackhole) throws IOException {
+        JsonNode root = objectMapper.readTree(new String(execution, StandardCharsets.UTF_8));
+        blackhole.consume(root.get("status").asText());
+        for (JsonNode node : root.get("nodes")) {
+            blackhole.consume(node.get("id").asText());
+            blackhole.consume(node.get("status").asText());
+            blackhole.consume(node.get("startTime").asLong());
+        }
+    }
+
+    @Benchmark
+    public void executionTyped(Blackhole blackhole) throws IOException {
+        Execution bound = objectMapper.readValue(new ByteArrayInputStream(execution), Execution.class);
+        blackhole.consume(bound.getStatus());
+        for (ExecutionNode node : bound.getNodes()) {
+            blackhole.consume(node.getId());
+            blackhole.consume(node.getStatus());
+            blackhole.consume(node.getStartTime());
+        }
+    }
+
+    @Benchmark
+    public void flowGraphReadTree(Blackhole blackhole) throws IOException {
+        JsonNode root = objectMapper.readTree(new String(flowGraph, StandardCharsets.UTF_8));
+        for (JsonNode node : root.get("nodes")) {
+            blackhole.consume(node.get("id").asText());
+            for (JsonNode in : node.get("in")) {
+                blackhole.consume(in.asText());
+            }
+        }
+    }
+
+    @Benchmark
+    public void flowGraphTyped(Blackhole blackhole) throws IOException {
+        Flow bound = objectMapper.readValue(new ByteArrayInputStream(flowGraph), Flow.class);
+        for (FlowNode node : bound.getNodes()) {
+            blackhole.consume(node.getId());
+            blackhole.consume(node.getIn());
+        }
+    }
+
+    @Benchmark
+    public String jobLogReadTree() throws IOException {
+        return objectMapper.readTree(new String(jobLog, StandardCharsets.UTF_8)).get("data").asText();
+    }
+
+    @Benchmark
+    public String jobLogTyped() throws IOException {
+        return objectMapper.readValue(new ByteArrayInputStream(jobLog), JobLog.class).getData();
+    }
+}
@@ -0,0 +1,33 @@
+package io.yorkecao.azkabandemo.resilience;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+public class RetryPolicyTest {
+
+    private final RetryPolicy policy = new RetryPolicy(4, Duration.ofMillis(100), Duration.ofMillis(300), 2.0, Duration.ofSeconds(1));
+
+    @Test
+    public void backoffIsJitteredBelowCeiling() {
+        for (int i = 0; i < 1000; i++) {
+            long first = policy.backoffNanos(1, 0);
+            assertTrue(first >= 0 && first < Duration.ofMillis(100).toNanos());
+            long third = policy.backoffNanos(3, 0);
+            // 100ms * 2^2 超过单次上限，按 300ms 截断
+            assertTrue(third >= 0 && third < Duration.ofMillis(300).toNanos());
+        }
+    }
+
+    @Test
+    public void stopsAfterMaxAttempts() {
+        assertEquals(-1, policy.backoffNanos(4, 0));
+    }
+
+    @Test
+    public void stopsWhenTimeBudgetIsSpent() {
+        assertEquals(-1, policy.backoffNanos(1, Duration.ofSeconds(1).toNanos()));
+    }
+}
@@ -0,0 +1,82 @@
+package io.yorkecao.azkabandemo.resilience;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SingleFlightTest {
+
+    private final SingleFlight<String> singleFlight = new SingleFlight<>();
+
+    @Test
+    public void concurrentCallsShareOneExecution() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> results = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        threads.add(start(results, () -> {
+            started.countDown();
+            release.await();
+            return "flows-" + calls.incrementAndGet();
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++) {
+            threads.add(start(results, () -> "flows-" + calls.incrementAndGet()));
+        }
+        // 等到后到的调用方都挂在在途调用上
+        for (Thread thread : threads.subList(1, threads.size())) {
+            while (thread.getState() != Thread.State.WAITING) {
+                Thread.sleep(1);
+            }
+        }
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+        assertEquals(Arrays.asList("flows-1", "flows-1", "flows-1", "flows-1"), results);
+        assertEquals(1, calls.get());
+        assertEquals(0, singleFlight.getInFlight());
+    }
+
+    @Test
+    public void failureIsSharedAndNotRemembered() throws Throwable {
+        try {
+            singleFlight.execute("flows", () -> {
+                throw new IllegalStateException("boom");
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("boom", e.getMessage());
+        }
+        // 调用完成后不保留结果，之后的调用重新执行
+        assertEquals("ok", singleFlight.execute("flows", () -> "ok"));
+        assertEquals(0, singleFlight.getInFlight());
+    }
+
+    @Test
+    public void differentKeysAreNotCoalesced() throws Throwable {
+        String result = singleFlight.execute("a", () -> "a" + singleFlight.execute("b", () -> "b"));
+        assertEquals("ab", result);
+    }
+
+    private Thread start(List<String> results, SingleFlight.Call<String> call) {
+        Thread thread = new Thread(() -> {
+            try {
+                results.add(singleFlight.execute("flows", call));
+            } catch (Throwable e) {
+                results.add(e.toString());
+            }
+        });
+        thread.start();
+        return thread;
+    }
+}
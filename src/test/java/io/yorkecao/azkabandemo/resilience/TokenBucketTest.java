@@ -0,0 +1,63 @@
+package io.yorkecao.azkabandemo.resilience;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class TokenBucketTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final TokenBucket bucket = new TokenBucket(10, 2, now::get);
+
+    @Test
+    public void burstIsServedImmediately() {
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(-1, bucket.reserve(0));
+    }
+
+    @Test
+    public void queuedCallersWaitInTurn() {
+        bucket.reserve(0);
+        bucket.reserve(0);
+
+        long second = TimeUnit.SECONDS.toNanos(1);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.reserve(second));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(200), bucket.reserve(second));
+        // 超过最长等待时间时不预留
+        assertEquals(-1, bucket.reserve(TimeUnit.MILLISECONDS.toNanos(250)));
+    }
+
+    @Test
+    public void interruptedCallerReturnsItsToken() {
+        bucket.reserve(0);
+        bucket.reserve(0);
+
+        long second = TimeUnit.SECONDS.toNanos(1);
+        Thread.currentThread().interrupt();
+        try {
+            bucket.tryAcquire(second);
+            fail("expected interrupt");
+        } catch (InterruptedException e) {
+            // 预留的令牌已归还，下一个调用方仍只需等待一个令牌的时间
+            assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.reserve(second));
+        }
+    }
+
+    @Test
+    public void tokensRefillOverTime() {
+        bucket.reserve(0);
+        bucket.reserve(0);
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(0, bucket.reserve(0));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        // 最多积攒 burst 个令牌
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(-1, bucket.reserve(0));
+    }
+}
@@ -0,0 +1,96 @@
+package io.yorkecao.azkabandemo.service;
+
+import io.yorkecao.azkabandemo.azkaban.AsyncAzkabanAdapter;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.exception.AzkabanException;
+import io.yorkecao.azkabandemo.model.FlowExecutionRequest;
+import io.yorkecao.azkabandemo.model.FlowExecutionResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class AzkabanServiceBatchTest {
+
+    private AzkabanService azkabanService;
+    private AsyncAzkabanAdapter asyncAzkabanAdapter;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        asyncAzkabanAdapter = mock(AsyncAzkabanAdapter.class);
+        executor = Executors.newCachedThreadPool();
+
+        azkabanService = new AzkabanService();
+        ReflectionTestUtils.setField(azkabanService, "asyncAzkabanAdapter", asyncAzkabanAdapter);
+        ReflectionTestUtils.setField(azkabanService, "config", new AzkabanDemoConfiguration());
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void resultsFollowRequestOrderAndFailuresStayIsolated() {
+        when(asyncAzkabanAdapter.startFlow(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            String flow = invocation.getArgument(1);
+            if ("bad".equals(flow)) {
+                CompletableFuture<String> failed = new CompletableFuture<>();
+                failed.completeExceptionally(new AzkabanException("Flow bad not found."));
+                return failed;
+            }
+            return CompletableFuture.completedFuture("exec-" + flow);
+        });
+        List<FlowExecutionRequest> requests = new ArrayList<>();
+        requests.add(new FlowExecutionRequest("p", "a"));
+        requests.add(new FlowExecutionRequest("p", "bad"));
+        requests.add(new FlowExecutionRequest("q", "c"));
+
+        List<FlowExecutionResult> results = azkabanService.executeFlows(requests, 2);
+
+        assertEquals(3, results.size());
+        assertEquals("exec-a", results.get(0).getExecId());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("Flow bad not found.", results.get(1).getError().getMessage());
+        assertEquals("exec-c", results.get(2).getExecId());
+    }
+
+    @Test
+    public void inFlightRequestsNeverExceedConcurrency() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(asyncAzkabanAdapter.startFlow(anyString(), anyString(), any())).thenAnswer(invocation ->
+                CompletableFuture.supplyAsync(() -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(20);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    inFlight.decrementAndGet();
+                    return "exec";
+                }, executor));
+        List<FlowExecutionRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            requests.add(new FlowExecutionRequest("p", "f" + i));
+        }
+
+        List<FlowExecutionResult> results = azkabanService.executeFlows(requests, 3);
+
+        assertTrue(results.stream().allMatch(FlowExecutionResult::isSuccess));
+        assertTrue(maxInFlight.get() <= 3);
+    }
+}
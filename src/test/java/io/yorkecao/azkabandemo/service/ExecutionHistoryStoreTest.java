@@ -0,0 +1,168 @@
+package io.yorkecao.azkabandemo.service;
+
+import azkaban.executor.Status;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.model.Execution;
+import io.yorkecao.azkabandemo.model.ExecutionRecord;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class ExecutionHistoryStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private AzkabanDemoConfiguration config;
+    private ExecutionHistory executionHistory;
+    private final List<Execution> remote = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        config = new AzkabanDemoConfiguration();
+        config.getHistory().setStoreDir(folder.getRoot().getAbsolutePath());
+        executionHistory = mock(ExecutionHistory.class);
+        when(executionHistory.stream(eq("p"), eq("f"), anyInt(), any())).thenAnswer(invocation -> {
+            Predicate<Execution> until = invocation.getArgument(3);
+            List<Execution> matched = new ArrayList<>();
+            for (Execution execution : remote) {
+                if (!until.test(execution)) {
+                    break;
+                }
+                matched.add(execution);
+            }
+            return matched.stream();
+        });
+    }
+
+    @Test
+    public void syncFetchesOnlyAfterWatermark() {
+        ExecutionHistoryStore store = newStore();
+        long now = System.currentTimeMillis();
+        remote.add(execution(3, Status.RUNNING, now, -1));
+        remote.add(execution(2, Status.FAILED, now, 2000));
+        remote.add(execution(1, Status.SUCCEEDED, now, 1000));
+        assertEquals(3, store.sync("p", "f"));
+
+        remote.set(0, execution(3, Status.SUCCEEDED, now, 3000));
+        remote.add(0, execution(4, Status.SUCCEEDED, now, 4000));
+        // 只有结束的 3 与新增的 4 需要写入，1、2 在水位线之前不再比较
+        assertEquals(2, store.sync("p", "f"));
+        assertEquals(0, store.sync("p", "f"));
+
+        assertEquals("[4:SUCCEEDED, 3:SUCCEEDED]", store.lastRuns("p", "f", 2).toString());
+        assertEquals(0.25, store.failureRate("p", "f", Duration.ofDays(7)), 0.0001);
+        assertEquals(4000, store.durationPercentile("p", "f", Duration.ofDays(7), 0.95));
+        assertEquals(2000, store.durationPercentile("p", "f", Duration.ofDays(7), 0.5));
+    }
+
+    @Test
+    public void recordWithoutStatusDoesNotHoldTheWatermark() {
+        ExecutionHistoryStore store = newStore();
+        long now = System.currentTimeMillis();
+        remote.add(execution(2, null, now, -1));
+        remote.add(execution(1, Status.SUCCEEDED, now, 1000));
+        assertEquals(2, store.sync("p", "f"));
+
+        remote.add(0, execution(3, Status.SUCCEEDED, now, 3000));
+        assertEquals(1, store.sync("p", "f"));
+
+        ArgumentCaptor<Predicate<Execution>> until = ArgumentCaptor.forClass(Predicate.class);
+        verify(executionHistory, times(2)).stream(eq("p"), eq("f"), anyInt(), until.capture());
+        assertFalse(until.getValue().test(execution(2, null, now, -1)));
+    }
+
+    @Test
+    public void historySurvivesRestart() {
+        long now = System.currentTimeMillis();
+        remote.add(execution(2, Status.RUNNING, now, -1));
+        remote.add(execution(1, Status.SUCCEEDED, now, 1000));
+        newStore().sync("p", "f");
+        remote.set(0, execution(2, Status.KILLED, now, 500));
+        newStore().sync("p", "f");
+
+        List<ExecutionRecord> runs = newStore().lastRuns("p", "f", 10);
+        assertEquals("[2:KILLED, 1:SUCCEEDED]", runs.stream().map(ExecutionRecord::toString).collect(Collectors.toList()).toString());
+    }
+
+    @Test
+    public void queriesDoNotWaitForSync() throws Exception {
+        ExecutionHistoryStore store = newStore();
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(executionHistory.stream(eq("p"), eq("f"), anyInt(), any())).thenAnswer(invocation -> {
+            fetching.countDown();
+            release.await();
+            return Stream.of(execution(1, Status.SUCCEEDED, System.currentTimeMillis(), 1000));
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> sync = executor.submit(() -> store.sync("p", "f"));
+            assertTrue(fetching.await(5, TimeUnit.SECONDS));
+
+            // 拉取仍在进行，查询立即返回已有数据
+            assertTrue(store.lastRuns("p", "f", 10).isEmpty());
+            release.countDown();
+            assertEquals(1, sync.get(5, TimeUnit.SECONDS).intValue());
+            assertEquals(1, store.lastRuns("p", "f", 10).size());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failedWriteLeavesMemoryUnchanged() throws Exception {
+        // 存储目录的父路径是普通文件，无法创建目录
+        config.getHistory().setStoreDir(folder.newFile("blocked").getAbsolutePath());
+        ExecutionHistoryStore store = newStore();
+        remote.add(execution(1, Status.SUCCEEDED, System.currentTimeMillis(), 1000));
+
+        try {
+            store.sync("p", "f");
+            fail("expected write failure");
+        } catch (UncheckedIOException e) {
+            assertTrue(store.lastRuns("p", "f", 10).isEmpty());
+        }
+    }
+
+    private ExecutionHistoryStore newStore() {
+        ExecutionHistoryStore store = new ExecutionHistoryStore();
+        ReflectionTestUtils.setField(store, "executionHistory", executionHistory);
+        ReflectionTestUtils.setField(store, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(store, "config", config);
+        return store;
+    }
+
+    private static Execution execution(long execId, Status status, long submitTime, long duration) {
+        Execution execution = new Execution();
+        execution.setExecId(execId);
+        execution.setStatus(status);
+        execution.setSubmitTime(submitTime);
+        execution.setStartTime(submitTime);
+        execution.setEndTime(duration < 0 ? -1 : submitTime + duration);
+        return execution;
+    }
+}
@@ -0,0 +1,99 @@
+package io.yorkecao.azkabandemo.service;
+
+import io.yorkecao.azkabandemo.azkaban.AsyncAzkabanAdapter;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.model.Execution;
+import io.yorkecao.azkabandemo.model.ExecutionPage;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class ExecutionHistoryTest {
+
+    private ExecutionHistory history;
+    private AsyncAzkabanAdapter asyncAzkabanAdapter;
+
+    @Before
+    public void setUp() {
+        asyncAzkabanAdapter = mock(AsyncAzkabanAdapter.class);
+        history = new ExecutionHistory();
+        ReflectionTestUtils.setField(history, "asyncAzkabanAdapter", asyncAzkabanAdapter);
+        ReflectionTestUtils.setField(history, "config", new AzkabanDemoConfiguration());
+        // execid 10..1，提交时间与 execid 相同
+        when(asyncAzkabanAdapter.fetchFlowExecutions(eq("p"), eq("f"), anyInt(), anyInt())).thenAnswer(invocation -> {
+            int start = invocation.getArgument(2);
+            int length = invocation.getArgument(3);
+            return CompletableFuture.completedFuture(page(10, start, length));
+        });
+    }
+
+    @Test
+    public void iteratesAllPagesInOrder() {
+        List<Long> execIds = history.stream("p", "f", 3, execution -> true)
+                .map(Execution::getExecId)
+                .collect(Collectors.toList());
+
+        assertEquals(10, execIds.size());
+        assertEquals(Long.valueOf(10), execIds.get(0));
+        assertEquals(Long.valueOf(1), execIds.get(9));
+        verify(asyncAzkabanAdapter, times(4)).fetchFlowExecutions(eq("p"), eq("f"), anyInt(), eq(3));
+    }
+
+    @Test
+    public void stopsFetchingWhenConditionFails() {
+        try (Stream<Execution> executions = history.stream("p", "f", 3, execution -> execution.getSubmitTime() >= 6)) {
+            assertEquals(5, executions.count());
+        }
+        // 第二页中遇到 execid 5 即停止，第三页已预取但不再继续
+        verify(asyncAzkabanAdapter, never()).fetchFlowExecutions("p", "f", 9, 3);
+    }
+
+    @Test
+    public void fetchesNothingUntilConsumed() {
+        try (Stream<Execution> executions = history.stream("p", "f", 3, execution -> true)) {
+            verify(asyncAzkabanAdapter, never()).fetchFlowExecutions(anyString(), anyString(), anyInt(), anyInt());
+
+            assertEquals(Long.valueOf(10), executions.findFirst().map(Execution::getExecId).orElse(null));
+        }
+        // 第一页消费时预取了第二页，之后不再拉取
+        verify(asyncAzkabanAdapter, times(2)).fetchFlowExecutions(eq("p"), eq("f"), anyInt(), eq(3));
+    }
+
+    @Test
+    public void skipsExecutionsShiftedByNewRuns() {
+        when(asyncAzkabanAdapter.fetchFlowExecutions("p", "f", 0, 3)).thenReturn(CompletableFuture.completedFuture(page(10, 0, 3)));
+        // 第一页之后又有一次新执行，旧记录整体后移一位
+        when(asyncAzkabanAdapter.fetchFlowExecutions("p", "f", 3, 3)).thenReturn(CompletableFuture.completedFuture(page(11, 3, 3)));
+
+        List<Long> execIds = history.stream("p", "f", 3, execution -> execution.getExecId() > 5)
+                .map(Execution::getExecId)
+                .collect(Collectors.toList());
+
+        assertEquals("[10, 9, 8, 7, 6]", execIds.toString());
+    }
+
+    private static ExecutionPage page(int total, int start, int length) {
+        List<Execution> executions = new ArrayList<>();
+        for (int i = start; i < Math.min(total, start + length); i++) {
+            Execution execution = new Execution();
+            execution.setExecId(total - i);
+            execution.setSubmitTime(total - i);
+            executions.add(execution);
+        }
+        ExecutionPage page = new ExecutionPage();
+        page.setTotal(total);
+        page.setExecutions(executions);
+        return page;
+    }
+}
@@ -0,0 +1,125 @@
+package io.yorkecao.azkabandemo.service;
+
+import azkaban.executor.Status;
+import io.yorkecao.azkabandemo.azkaban.AsyncAzkabanAdapter;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.exception.AzkabanException;
+import io.yorkecao.azkabandemo.model.Execution;
+import io.yorkecao.azkabandemo.model.JobLogChunk;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ExecutionLogTailerTest {
+
+    private ExecutionLogTailer tailer;
+    private AsyncAzkabanAdapter asyncAzkabanAdapter;
+
+    @Before
+    public void setUp() {
+        AzkabanDemoConfiguration config = new AzkabanDemoConfiguration();
+        config.getLogTail().setPollInterval(Duration.ofMillis(1));
+        config.getLogTail().setMaxFailures(1);
+        asyncAzkabanAdapter = mock(AsyncAzkabanAdapter.class);
+        Execution finished = new Execution();
+        finished.setStatus(Status.SUCCEEDED);
+        when(asyncAzkabanAdapter.fetchFlowExecution("p", "1")).thenReturn(CompletableFuture.completedFuture(finished));
+
+        tailer = new ExecutionLogTailer();
+        ReflectionTestUtils.setField(tailer, "asyncAzkabanAdapter", asyncAzkabanAdapter);
+        ReflectionTestUtils.setField(tailer, "config", config);
+        tailer.start();
+    }
+
+    @After
+    public void tearDown() {
+        tailer.stop();
+    }
+
+    @Test
+    public void advancesOffsetAndReadsOnceMoreAfterJobFinished() throws Exception {
+        when(asyncAzkabanAdapter.fetchExecutionJobLogs(eq("p"), eq("1"), eq("j"), anyLong(), anyInt(), any())).thenReturn(
+                chunk(0, 10), chunk(10, 0), chunk(10, 5), chunk(15, 0));
+
+        long bytes = tailer.tail("p", "1", "j", new StringWriter()).get(5, TimeUnit.SECONDS);
+
+        assertEquals(15, bytes);
+        assertEquals(15, tailer.offset("p", "1", "j"));
+        // 暂无新日志后确认 job 已结束，再从原位置读一次，读到结束前写入的 5 字节
+        verify(asyncAzkabanAdapter, times(2)).fetchExecutionJobLogs(eq("p"), eq("1"), eq("j"), eq(10L), anyInt(), any());
+        verify(asyncAzkabanAdapter).fetchExecutionJobLogs(eq("p"), eq("1"), eq("j"), eq(15L), anyInt(), any());
+    }
+
+    @Test
+    public void failedFinalReadFailsTheTail() throws Exception {
+        CompletableFuture<JobLogChunk> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new AzkabanException("reset"));
+        when(asyncAzkabanAdapter.fetchExecutionJobLogs(eq("p"), eq("1"), eq("j"), anyLong(), anyInt(), any())).thenReturn(
+                chunk(0, 10), chunk(10, 0), failed);
+
+        try {
+            tailer.tail("p", "1", "j", new StringWriter()).get(5, TimeUnit.SECONDS);
+            fail("expected failure");
+        } catch (ExecutionException e) {
+            assertEquals("reset", e.getCause().getMessage());
+        }
+        assertEquals(10, tailer.offset("p", "1", "j"));
+    }
+
+    @Test
+    public void failedReadLeavesNothingInTheOutput() throws Exception {
+        CompletableFuture<JobLogChunk> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new AzkabanException("reset"));
+        when(asyncAzkabanAdapter.fetchExecutionJobLogs(eq("p"), eq("1"), eq("j"), anyLong(), anyInt(), any()))
+                .thenAnswer(invocation -> {
+                    // 读到一半连接断开
+                    invocation.<Writer>getArgument(5).write("01234");
+                    return failed;
+                })
+                .thenAnswer(invocation -> {
+                    invocation.<Writer>getArgument(5).write("0123456789");
+                    return chunk(0, 10);
+                })
+                .thenReturn(chunk(10, 0));
+        StringWriter out = new StringWriter();
+
+        assertEquals(10, (long) tailer.tail("p", "1", "j", out).get(5, TimeUnit.SECONDS));
+
+        assertEquals("0123456789", out.toString());
+    }
+
+    @Test
+    public void readsFailingWhileJobRunsFailTheTail() throws Exception {
+        Execution running = new Execution();
+        running.setStatus(Status.RUNNING);
+        when(asyncAzkabanAdapter.fetchFlowExecution("p", "1")).thenReturn(CompletableFuture.completedFuture(running));
+        CompletableFuture<JobLogChunk> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new AzkabanException("reset"));
+        when(asyncAzkabanAdapter.fetchExecutionJobLogs(eq("p"), eq("1"), eq("j"), anyLong(), anyInt(), any())).thenReturn(failed);
+
+        // 状态查询一直成功，不能让日志读取的失败次数被清零
+        try {
+            tailer.tail("p", "1", "j", new StringWriter()).get(5, TimeUnit.SECONDS);
+            fail("expected failure");
+        } catch (ExecutionException e) {
+            assertEquals("reset", e.getCause().getMessage());
+        }
+        verify(asyncAzkabanAdapter, times(2)).fetchExecutionJobLogs(eq("p"), eq("1"), eq("j"), anyLong(), anyInt(), any());
+    }
+
+    private static CompletableFuture<JobLogChunk> chunk(long offset, int length) {
+        return CompletableFuture.completedFuture(new JobLogChunk(offset, length));
+    }
+}
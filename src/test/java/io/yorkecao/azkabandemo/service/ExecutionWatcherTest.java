@@ -0,0 +1,110 @@
+package io.yorkecao.azkabandemo.service;
+
+import azkaban.executor.Status;
+import io.yorkecao.azkabandemo.azkaban.AsyncAzkabanAdapter;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.exception.AzkabanRejectedException;
+import io.yorkecao.azkabandemo.model.Execution;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class ExecutionWatcherTest {
+
+    private ExecutionWatcher watcher;
+    private AsyncAzkabanAdapter asyncAzkabanAdapter;
+
+    @Before
+    public void setUp() {
+        AzkabanDemoConfiguration config = new AzkabanDemoConfiguration();
+        config.getWatcher().setMinInterval(Duration.ofMillis(1));
+        config.getWatcher().setMaxInterval(Duration.ofMillis(5));
+        asyncAzkabanAdapter = mock(AsyncAzkabanAdapter.class);
+
+        watcher = new ExecutionWatcher();
+        ReflectionTestUtils.setField(watcher, "asyncAzkabanAdapter", asyncAzkabanAdapter);
+        ReflectionTestUtils.setField(watcher, "config", config);
+        watcher.start();
+    }
+
+    @After
+    public void tearDown() {
+        watcher.stop();
+    }
+
+    @Test
+    public void deliversTransitionsUntilFinished() throws Exception {
+        when(asyncAzkabanAdapter.fetchFlowExecution("p", "1")).thenReturn(
+                status(Status.PREPARING), status(Status.RUNNING), status(Status.RUNNING), status(Status.SUCCEEDED));
+        List<String> transitions = new CopyOnWriteArrayList<>();
+
+        Status finalStatus = watcher.watch("p", "1", (execId, previous, current) -> transitions.add(previous + "->" + current))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(Status.SUCCEEDED, finalStatus);
+        assertEquals("[null->PREPARING, PREPARING->RUNNING, RUNNING->SUCCEEDED]", transitions.toString());
+        assertEquals(0, watcher.size());
+    }
+
+    @Test
+    public void duplicateWatchersShareOnePollingChain() throws Exception {
+        CompletableFuture<Execution> pending = new CompletableFuture<>();
+        when(asyncAzkabanAdapter.fetchFlowExecution("p", "2")).thenReturn(pending);
+
+        CompletableFuture<Status> first = watcher.watch("p", "2");
+        CompletableFuture<Status> second = watcher.watch("p", "2");
+        pending.complete(execution(Status.KILLED));
+
+        assertEquals(Status.KILLED, first.get(5, TimeUnit.SECONDS));
+        assertEquals(Status.KILLED, second.get(5, TimeUnit.SECONDS));
+        verify(asyncAzkabanAdapter, times(1)).fetchFlowExecution("p", "2");
+    }
+
+    @Test
+    public void unexpectedCallbackFailureCompletesWaiters() throws Exception {
+        // 响应为 null 时回调抛出 NullPointerException，等待者应收到失败而不是一直等待
+        when(asyncAzkabanAdapter.fetchFlowExecution("p", "3")).thenReturn(CompletableFuture.completedFuture(null));
+
+        try {
+            watcher.watch("p", "3").get(5, TimeUnit.SECONDS);
+            fail("expected failure");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NullPointerException);
+        }
+        assertEquals(0, watcher.size());
+    }
+
+    @Test
+    public void watchAfterStopIsRejected() throws Exception {
+        watcher.stop();
+
+        try {
+            watcher.watch("p", "4").get(5, TimeUnit.SECONDS);
+            fail("expected failure");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof AzkabanRejectedException);
+        }
+        assertEquals(0, watcher.size());
+    }
+
+    private static CompletableFuture<Execution> status(Status status) {
+        return CompletableFuture.completedFuture(execution(status));
+    }
+
+    private static Execution execution(Status status) {
+        Execution execution = new Execution();
+        execution.setStatus(status);
+        return execution;
+    }
+}
@@ -0,0 +1,100 @@
+package io.yorkecao.azkabandemo.service;
+
+import io.yorkecao.azkabandemo.azkaban.AzkabanAdapter;
+import io.yorkecao.azkabandemo.azkaban.AzkabanClusterRouter;
+import io.yorkecao.azkabandemo.exception.AzkabanException;
+import io.yorkecao.azkabandemo.model.CriticalPathAnalysis;
+import io.yorkecao.azkabandemo.model.Execution;
+import io.yorkecao.azkabandemo.model.ExecutionNode;
+import io.yorkecao.azkabandemo.model.Flow;
+import io.yorkecao.azkabandemo.model.FlowNode;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class FlowAnalyzerTest {
+
+    private FlowAnalyzer flowAnalyzer;
+    private AzkabanAdapter azkabanAdapter;
+
+    @Before
+    public void setUp() {
+        azkabanAdapter = mock(AzkabanAdapter.class);
+        AzkabanClusterRouter clusterRouter = mock(AzkabanClusterRouter.class);
+        when(clusterRouter.forProject("p")).thenReturn(azkabanAdapter);
+        flowAnalyzer = new FlowAnalyzer();
+        ReflectionTestUtils.setField(flowAnalyzer, "clusterRouter", clusterRouter);
+
+        // a -> b -> d, a -> c -> d
+        Flow flow = new Flow();
+        flow.setProject("p");
+        flow.setFlowId("f");
+        flow.setNodes(Arrays.asList(flowNode("d", "b", "c"), flowNode("b", "a"), flowNode("c", "a"), flowNode("a")));
+        when(azkabanAdapter.fetchFlowJobs("p", "f")).thenReturn(flow);
+    }
+
+    @Test
+    public void analyzesCriticalPathOfExecution() {
+        when(azkabanAdapter.fetchFlowExecution("304")).thenReturn(execution("p", "f",
+                executionNode("a", 0, 10), executionNode("b", 10, 60), executionNode("c", 10, 30), executionNode("d", 60, 70)));
+
+        CriticalPathAnalysis analysis = flowAnalyzer.analyze("p", "f", "304");
+
+        assertEquals(70, analysis.getMakespan());
+        assertEquals(Arrays.asList("a", "b", "d"), analysis.getCriticalPath());
+        assertEquals(30, analysis.getJobs().get("c").getSlack());
+    }
+
+    @Test(expected = AzkabanException.class)
+    public void rejectsExecutionOfAnotherFlow() {
+        when(azkabanAdapter.fetchFlowExecution("305")).thenReturn(execution("p", "other", executionNode("a", 0, 10)));
+
+        flowAnalyzer.analyze("p", "f", "305");
+    }
+
+    @Test
+    public void durationsSkipJobsThatDidNotRun() {
+        ExecutionNode embedded = executionNode("embedded", 0, 40);
+        embedded.setNodes(Arrays.asList(executionNode("inner", 5, 35)));
+        Execution execution = execution("p", "f", executionNode("a", 0, 10), executionNode("b", -1, -1), embedded);
+
+        Map<String, Long> durations = FlowAnalyzer.durations(execution);
+
+        assertEquals(Long.valueOf(10), durations.get("a"));
+        assertFalse(durations.containsKey("b"));
+        // 内嵌 flow 按整体耗时计，不展开其中的 job
+        assertEquals(Long.valueOf(40), durations.get("embedded"));
+        assertFalse(durations.containsKey("inner"));
+    }
+
+    private static FlowNode flowNode(String id, String... in) {
+        FlowNode node = new FlowNode();
+        node.setId(id);
+        node.setIn(Arrays.asList(in));
+        return node;
+    }
+
+    private static Execution execution(String project, String flowId, ExecutionNode... nodes) {
+        Execution execution = new Execution();
+        execution.setProject(project);
+        execution.setFlowId(flowId);
+        execution.setNodes(Arrays.asList(nodes));
+        return execution;
+    }
+
+    private static ExecutionNode executionNode(String id, long start, long end) {
+        // start、end 为相对执行开始的毫秒数，startTime 不大于 0 视为未运行
+        long base = 1407779473354L;
+        ExecutionNode node = new ExecutionNode();
+        node.setId(id);
+        node.setStartTime(start < 0 ? -1 : base + start);
+        node.setEndTime(end < 0 ? -1 : base + end);
+        return node;
+    }
+}
@@ -0,0 +1,148 @@
+package io.yorkecao.azkabandemo.service;
+
+import io.yorkecao.azkabandemo.azkaban.AsyncAzkabanAdapter;
+import io.yorkecao.azkabandemo.azkaban.AzkabanAdapter;
+import io.yorkecao.azkabandemo.config.AzkabanDemoConfiguration;
+import io.yorkecao.azkabandemo.exception.AzkabanException;
+import io.yorkecao.azkabandemo.model.DesiredSchedule;
+import io.yorkecao.azkabandemo.model.Flow;
+import io.yorkecao.azkabandemo.model.ProjectFlows;
+import io.yorkecao.azkabandemo.model.Schedule;
+import io.yorkecao.azkabandemo.model.ScheduleChange;
+import io.yorkecao.azkabandemo.model.ScheduleReconcileResult;
+import io.yorkecao.azkabandemo.model.Sla;
+import io.yorkecao.azkabandemo.model.SlaSetting;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ScheduleReconcilerTest {
+
+    private ScheduleReconciler reconciler;
+    private AzkabanAdapter adapter;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        adapter = mock(AzkabanAdapter.class);
+        AsyncAzkabanAdapter asyncAzkabanAdapter = mock(AsyncAzkabanAdapter.class);
+        when(asyncAzkabanAdapter.onProject(anyString(), any())).thenAnswer(invocation -> {
+            Function<AzkabanAdapter, Object> call = invocation.getArgument(1);
+            try {
+                return CompletableFuture.completedFuture(call.apply(adapter));
+            } catch (RuntimeException e) {
+                CompletableFuture<Object> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                return failed;
+            }
+        });
+        reconciler = new ScheduleReconciler();
+        ReflectionTestUtils.setField(reconciler, "asyncAzkabanAdapter", asyncAzkabanAdapter);
+        ReflectionTestUtils.setField(reconciler, "config", new AzkabanDemoConfiguration());
+
+        ProjectFlows flows = new ProjectFlows();
+        flows.setProjectId(7);
+        flows.setFlows(Arrays.asList(flow("daily"), flow("hourly"), flow("legacy")));
+        when(adapter.fetchProjectFlows("p")).thenReturn(flows);
+        when(adapter.fetchSchedule("7", "daily")).thenReturn(schedule("1", "0 0 2 ? * *"));
+        when(adapter.fetchSchedule("7", "legacy")).thenReturn(schedule("3", "0 0 4 ? * *"));
+        Sla sla = new Sla();
+        sla.setSlaEmails(Collections.singletonList("ops@example.com"));
+        sla.setSettings(Collections.singletonList(SlaSetting.of("", "SUCCESS", "1h30m", true, false)));
+        when(adapter.fetchSla("1")).thenReturn(sla);
+    }
+
+    @Test
+    public void unchangedDeployOnlyReads() {
+        ScheduleReconcileResult result = reconciler.reconcile(Arrays.asList(
+                new DesiredSchedule("p", "daily", "0  0 2 ? * *", Collections.singletonList("ops@example.com"),
+                        Collections.singletonList(SlaSetting.of("", "SUCCESS", "1:30", true, false))),
+                new DesiredSchedule("p", "legacy", "0 0 4 ? * *")));
+
+        assertTrue(result.getApplied().isEmpty());
+        assertEquals(2, result.getUnchanged());
+        verify(adapter, never()).scheduleCronBasedFlow(anyString(), anyString(), anyString());
+        verify(adapter, never()).unscheduleFlow(anyString());
+        verify(adapter, never()).setSla(anyString(), any(), any());
+    }
+
+    @Test
+    public void appliesOnlyTheDifference() {
+        when(adapter.fetchSchedule("7", "hourly")).thenReturn(null, schedule("4", "0 0 * ? * *"));
+
+        ScheduleReconcileResult result = reconciler.reconcile(Collections.singleton("p"), Arrays.asList(
+                new DesiredSchedule("p", "daily", "0 0 3 ? * *"),
+                new DesiredSchedule("p", "hourly", "0 0 * ? * *", Collections.<String>emptyList(),
+                        Collections.singletonList(SlaSetting.of("", "FINISH", "0:45", false, true)))));
+
+        List<String> applied = result.getApplied().stream().map(ScheduleChange::toString).collect(Collectors.toList());
+        assertEquals(Arrays.asList("UPDATE p/daily [0 0 3 ? * *]", "CREATE p/hourly [0 0 * ? * *]", "REMOVE p/legacy"), applied);
+        verify(adapter).scheduleCronBasedFlow("p", "daily", "0 0 3 ? * *");
+        verify(adapter).scheduleCronBasedFlow("p", "hourly", "0 0 * ? * *");
+        ArgumentCaptor<String[][]> settings = ArgumentCaptor.forClass(String[][].class);
+        verify(adapter).setSla(eq("4"), eq(new String[0]), settings.capture());
+        assertArrayEquals(new String[][]{{",FINISH,0:45,false,true"}}, settings.getValue());
+        verify(adapter).unscheduleFlow("3");
+        verify(adapter, never()).fetchSla(anyString());
+    }
+
+    @Test
+    public void removalIsOptIn() {
+        ScheduleReconcileResult result = reconciler.reconcile(Collections.singletonList(new DesiredSchedule("p", "daily", "0 0 3 ? * *")));
+
+        assertEquals(Collections.singletonList("UPDATE p/daily [0 0 3 ? * *]"),
+                result.getApplied().stream().map(ScheduleChange::toString).collect(Collectors.toList()));
+        // 未列出的 flow 不读取也不移除
+        verify(adapter, never()).fetchSchedule("7", "legacy");
+        verify(adapter, never()).unscheduleFlow(anyString());
+    }
+
+    @Test
+    public void slaDifferenceUpdatesSlaOnly() {
+        ScheduleReconcileResult result = reconciler.reconcile(Arrays.asList(
+                new DesiredSchedule("p", "daily", "0 0 2 ? * *", Collections.singletonList("ops@example.com"),
+                        Collections.singletonList(SlaSetting.of("", "SUCCESS", "2:00", true, false))),
+                new DesiredSchedule("p", "legacy", "0 0 4 ? * *")));
+
+        assertEquals(ScheduleChange.Action.UPDATE_SLA, result.getApplied().get(0).getAction());
+        verify(adapter).setSla(eq("1"), any(), any());
+        verify(adapter, never()).scheduleCronBasedFlow(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void failedChangeDoesNotStopOthers() {
+        doThrow(new AzkabanException("boom")).when(adapter).unscheduleFlow("3");
+
+        ScheduleReconcileResult result = reconciler.reconcile(Collections.singleton("p"),
+                Collections.singletonList(new DesiredSchedule("p", "daily", "0 0 3 ? * *")));
+
+        assertFalse(result.isSuccess());
+        assertEquals(1, result.getApplied().size());
+        assertEquals("boom", result.getFailures().values().iterator().next().getMessage());
+    }
+
+    private static Flow flow(String flowId) {
+        Flow flow = new Flow();
+        flow.setFlowId(flowId);
+        return flow;
+    }
+
+    private static Schedule schedule(String scheduleId, String cronExpression) {
+        Schedule schedule = new Schedule();
+        schedule.setScheduleId(scheduleId);
+        schedule.setCronExpression(cronExpression);
+        return schedule;
+    }
+}
@@ -1,9 +1,28 @@
 package io.yorkecao.azkabandemo.utils;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.util.StreamUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import static org.junit.Assert.*;
 
@@ -11,6 +30,9 @@ import static org.junit.Assert.*;
 @RunWith(SpringRunner.class)
 public class FileUtilsTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void createFile() throws Exception {
         FileUtils.createFile("D:/dev/test.sql", null);
@@ -20,4 +42,108 @@ public class FileUtilsTest {
     public void zipFiles() throws Exception {
         FileUtils.zipFiles("D:/dev/zip.zip", "D:/dev/test.txt", "D:/dev/test/");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void zipFilesStreamsDirectoriesInNameOrder() throws Exception {
+        Path project = temporaryFolder.newFolder("project").toPath();
+        Files.createDirectories(project.resolve("lib"));
+        Files.write(project.resolve("b.job"), "type=command\ncommand=echo b".getBytes());
+        Files.write(project.resolve("a.job"), "type=command\ncommand=echo a".getBytes());
+        Files.write(project.resolve("lib/app.jar"), new byte[]{1, 2, 3, 4});
+        File zip = temporaryFolder.newFile("project.zip");
+
+        FileUtils.zipFiles(zip.getPath(), project.toString());
+
+        try (ZipFile zipFile = new ZipFile(zip)) {
+            List<String> names = zipFile.stream().map(ZipEntry::getName).collect(Collectors.toList());
+            assertEquals("project/a.job,project/b.job,project/lib/app.jar", String.join(",", names));
+            assertEquals(ZipEntry.STORED, zipFile.getEntry("project/lib/app.jar").getMethod());
+            assertEquals(ZipEntry.DEFLATED, zipFile.getEntry("project/a.job").getMethod());
+            assertEquals(4, zipFile.getEntry("project/lib/app.jar").getSize());
+        }
+    }
+
+    @Test
+    public void parallelZipFilesMatchesSerialZip() throws Exception {
+        Path project = temporaryFolder.newFolder("bundle").toPath();
+        Files.createDirectories(project.resolve("conf"));
+        for (int i = 0; i < 50; i++) {
+            Files.write(project.resolve("conf/job" + i + ".job"), ("type=command\ncommand=echo " + i).getBytes());
+        }
+        Files.write(project.resolve("app.jar"), new byte[]{1, 2, 3, 4});
+        File serial = temporaryFolder.newFile("serial.zip");
+        File parallel = temporaryFolder.newFile("parallel.zip");
+        ZipOptions options = ZipOptions.defaults();
+        options.setInMemoryThreshold(16);
+
+        FileUtils.zipFiles(serial.getPath(), options, project.toString());
+        FileUtils.parallelZipFiles(parallel.getPath(), options, project.toString());
+
+        try (ZipFile expected = new ZipFile(serial); ZipFile actual = new ZipFile(parallel)) {
+            assertEquals(describe(expected), describe(actual));
+            ZipEntry entry = actual.getEntry("bundle/conf/job7.job");
+            try (InputStream in = actual.getInputStream(entry)) {
+                assertEquals("type=command\ncommand=echo 7", StreamUtils.copyToString(in, StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    public void failedParallelZipReleasesAllTempFiles() throws Exception {
+        Path project = temporaryFolder.newFolder("large").toPath();
+        for (int i = 0; i < 40; i++) {
+            Files.write(project.resolve("part" + i + ".dat"), new byte[64 * 1024]);
+        }
+        ZipOptions options = ZipOptions.defaults();
+        options.setParallelism(4);
+        options.setInMemoryThreshold(0);
+        Set<Path> before = tempParts();
+        // 写出第一个条目时失败，窗口中其余条目可能正在压缩
+        OutputStream failing = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("disk full");
+            }
+        };
+
+        try {
+            FileUtils.parallelZipFiles(failing, options, project);
+            fail("expected failure");
+        } catch (IOException e) {
+            assertEquals("disk full", e.getMessage());
+        }
+        assertEquals(before, tempParts());
+    }
+
+    @Test
+    public void digestIgnoresTimestampsAndSourceOrder() throws Exception {
+        Path flows = temporaryFolder.newFolder("flows").toPath();
+        Path conf = temporaryFolder.newFolder("conf").toPath();
+        Files.write(flows.resolve("a.job"), "type=command".getBytes());
+        Files.write(conf.resolve("app.properties"), "k=v".getBytes());
+
+        String digest = FileUtils.digest(flows, conf);
+        Files.setLastModifiedTime(flows.resolve("a.job"), FileTime.fromMillis(0));
+        assertEquals(digest, FileUtils.digest(conf, flows));
+
+        Files.write(conf.resolve("app.properties"), "k=w".getBytes());
+        assertNotEquals(digest, FileUtils.digest(flows, conf));
+    }
+
+    private static Set<Path> tempParts() throws IOException {
+        try (Stream<Path> files = Files.list(Paths.get(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(file -> file.getFileName().toString().startsWith("azkaban-zip-")).collect(Collectors.toSet());
+        }
+    }
+
+    private static List<String> describe(ZipFile zipFile) {
+        return zipFile.stream()
+                .map(entry -> entry.getName() + ":" + entry.getMethod() + ":" + entry.getSize() + ":" + entry.getCrc())
+                .collect(Collectors.toList());
+    }
+}
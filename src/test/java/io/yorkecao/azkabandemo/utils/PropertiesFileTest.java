@@ -0,0 +1,35 @@
+package io.yorkecao.azkabandemo.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class PropertiesFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void changesSurviveReload() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("nested/store.properties");
+        PropertiesFile store = new PropertiesFile(file, "test");
+        assertEquals(0, store.load());
+
+        store.put("a", "1");
+        store.put("b", "2");
+        store.remove("a");
+
+        PropertiesFile reloaded = new PropertiesFile(file, "test");
+        assertEquals(1, reloaded.load());
+        assertNull(reloaded.get("a"));
+        assertEquals("2", reloaded.get("b"));
+        // 临时文件已被原子替换，不留在目录中
+        File[] files = file.getParent().toFile().listFiles();
+        assertEquals(1, files.length);
+    }
+}
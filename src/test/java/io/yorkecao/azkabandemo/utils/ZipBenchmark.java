@@ -0,0 +1,103 @@
+package io.yorkecao.azkabandemo.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 串行与并行打包的耗时对比，覆盖几种典型的项目包形态
+ *
+ * @author Yorke
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ZipBenchmark {
+
+    /**
+     * 文件数 x 单文件字节数 x 目录深度
+     * <ul>
+     * <li>many-small：大量作业配置与脚本</li>
+     * <li>few-large：少量依赖 jar 等大文件</li>
+     * <li>nested：多层目录下的中等文件</li>
+     * </ul>
+     */
+    @Param({"many-small", "few-large", "nested"})
+    private String shape;
+
+    private Path workDir;
+    private Path bundle;
+    private Path zip;
+    private final ZipOptions options = ZipOptions.defaults();
+
+    @Setup
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("zip-benchmark");
+        bundle = workDir.resolve("bundle");
+        zip = workDir.resolve("bundle.zip");
+        switch (shape) {
+            case "many-small":
+                createBundle(bundle, 2000, 4 * 1024, 1);
+                break;
+            case "few-large":
+                createBundle(bundle, 8, 16 * 1024 * 1024, 1);
+                break;
+            default:
+                createBundle(bundle, 500, 64 * 1024, 4);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void serial() throws IOException {
+        FileUtils.zipFiles(zip.toString(), options, bundle.toString());
+    }
+
+    @Benchmark
+    public void parallel() throws IOException {
+        FileUtils.parallelZipFiles(zip.toString(), options, bundle.toString());
+    }
+
+    private static void createBundle(Path dir, int files, int fileSize, int depth) throws IOException {
+        Random random = new Random(42);
+        byte[] content = new byte[fileSize];
+        for (int i = 0; i < files; i++) {
+            Path parent = dir;
+            for (int level = 1; level < depth; level++) {
+                parent = parent.resolve("d" + (i >> (level * 2)) % 4);
+            }
+            Files.createDirectories(parent);
+            // 文本类内容，压缩比接近作业配置与脚本
+            for (int j = 0; j < content.length; j++) {
+                content[j] = (byte) ('a' + random.nextInt(16));
+            }
+            Files.write(parent.resolve("file-" + i + ".txt"), content);
+        }
+    }
+}